@@ -0,0 +1,132 @@
+// Load test for POST /orders and GET /restaurants/nearby, run once per thread mode and compared.
+//
+// Each endpoint gets its own open-model scenario (a fixed arrival rate, so a slow server shows up
+// as latency and dropped iterations rather than as fewer requests). The summary reports p50, p95
+// and p99 latency and throughput per endpoint, and is written to summary-<MODE>.json.
+//
+//   1. Start the backend on platform threads:  VIRTUAL_THREADS=false java -jar target/*.jar \
+//          --app.order.kitchen.max-queue-minutes=1000000
+//      (kitchen admission control answers 503 once a restaurant's queue is full; those responses
+//      are counted as shed orders, not failures, but lifting the limit keeps the runs comparable)
+//   2. k6 run -e MODE=platform -e CUSTOMER_EMAIL=... -e CUSTOMER_PASSWORD=... perf/k6/orders-and-nearby.js
+//   3. Restart with VIRTUAL_THREADS=true (needs a Java 21 runtime) and run again with -e MODE=virtual
+//   4. Compare summary-platform.json with summary-virtual.json
+//
+// Environment: BASE_URL, CUSTOMER_EMAIL, CUSTOMER_PASSWORD, RESTAURANT_ID, ADDRESS_ID, ORDER_ITEMS
+// (JSON array of {productId, quantity} from that restaurant's menu), LATITUDE, LONGITUDE,
+// RADIUS_KM, ORDER_RATE and NEARBY_RATE (requests per second), DURATION, MAX_VUS.
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+import exec from 'k6/execution';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1/api/v1';
+const MODE = __ENV.MODE || 'platform';
+const DURATION = __ENV.DURATION || '2m';
+const MAX_VUS = parseInt(__ENV.MAX_VUS || '500', 10);
+const RESTAURANT_ID = parseInt(__ENV.RESTAURANT_ID || '1', 10);
+const ADDRESS_ID = parseInt(__ENV.ADDRESS_ID || '1', 10);
+const ORDER_ITEMS = JSON.parse(__ENV.ORDER_ITEMS || '[{"productId":1,"quantity":1},{"productId":2,"quantity":2}]');
+const LATITUDE = parseFloat(__ENV.LATITUDE || '12.9716');
+const LONGITUDE = parseFloat(__ENV.LONGITUDE || '77.5946');
+const RADIUS_KM = parseFloat(__ENV.RADIUS_KM || '5');
+// Query points are jittered around the centre so lookups do not all hit the same grid cells
+const JITTER_DEGREES = 0.05;
+
+const shedOrders = new Counter('orders_shed');
+
+export const options = {
+    scenarios: {
+        orders: {
+            executor: 'constant-arrival-rate',
+            exec: 'placeOrder',
+            rate: parseInt(__ENV.ORDER_RATE || '50', 10),
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 50,
+            maxVUs: MAX_VUS,
+        },
+        nearby: {
+            executor: 'constant-arrival-rate',
+            exec: 'searchNearby',
+            rate: parseInt(__ENV.NEARBY_RATE || '200', 10),
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 50,
+            maxVUs: MAX_VUS,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        // Listed per endpoint so the summary breaks latency and throughput down by scenario
+        'http_req_duration{scenario:orders}': ['p(99)>=0'],
+        'http_req_duration{scenario:nearby}': ['p(99)>=0'],
+        'http_reqs{scenario:orders}': ['count>=0'],
+        'http_reqs{scenario:nearby}': ['count>=0'],
+        'http_req_failed{scenario:orders}': ['rate<0.01'],
+        'http_req_failed{scenario:nearby}': ['rate<0.01'],
+        dropped_iterations: ['count>=0'],
+    },
+};
+
+export function setup() {
+    const response = http.post(`${BASE_URL}/auth/login`, JSON.stringify({
+        email: __ENV.CUSTOMER_EMAIL,
+        password: __ENV.CUSTOMER_PASSWORD,
+    }), { headers: { 'Content-Type': 'application/json' } });
+    if (response.status !== 200) {
+        throw new Error(`Login failed with ${response.status}: ${response.body}`);
+    }
+    return { token: response.json('token') };
+}
+
+export function placeOrder(data) {
+    const response = http.post(`${BASE_URL}/orders`, JSON.stringify({
+        restaurantId: RESTAURANT_ID,
+        deliveryAddressId: ADDRESS_ID,
+        items: ORDER_ITEMS,
+    }), {
+        headers: {
+            'Content-Type': 'application/json',
+            'Authorization': `Bearer ${data.token}`,
+            'Idempotency-Key': `k6-${MODE}-${exec.scenario.iterationInTest}-${Date.now()}`,
+        },
+        // A 503 is the kitchen shedding load, an answer rather than a failure
+        responseCallback: http.expectedStatuses(201, 503),
+    });
+    if (response.status === 503) {
+        shedOrders.add(1);
+        return;
+    }
+    check(response, { 'order placed': (r) => r.status === 201 });
+}
+
+export function searchNearby(data) {
+    const latitude = LATITUDE + (Math.random() - 0.5) * JITTER_DEGREES;
+    const longitude = LONGITUDE + (Math.random() - 0.5) * JITTER_DEGREES;
+    const response = http.get(
+        `${BASE_URL}/restaurants/nearby?latitude=${latitude}&longitude=${longitude}&radiusKm=${RADIUS_KM}&limit=20`,
+        { headers: { 'Authorization': `Bearer ${data.token}` } });
+    check(response, { 'nearby answered': (r) => r.status === 200 });
+}
+
+export function handleSummary(summary) {
+    const pick = (name) => summary.metrics[name] ? summary.metrics[name].values : null;
+    const endpoint = (scenario) => ({
+        latencyMs: pick(`http_req_duration{scenario:${scenario}}`),
+        requests: pick(`http_reqs{scenario:${scenario}}`),
+        failed: pick(`http_req_failed{scenario:${scenario}}`),
+    });
+    const report = {
+        mode: MODE,
+        duration: DURATION,
+        orders: Object.assign(endpoint('orders'), { shed: pick('orders_shed') }),
+        nearby: endpoint('nearby'),
+        droppedIterations: pick('dropped_iterations'),
+    };
+    return {
+        stdout: JSON.stringify(report, null, 2) + '\n',
+        [`summary-${MODE}.json`]: JSON.stringify(report, null, 2),
+    };
+}
@@ -36,7 +36,14 @@ public class CorsConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "Idempotency-Key"
+        ));
+
+        // Let browser clients see whether an order placement was replayed
+        configuration.setExposedHeaders(Arrays.asList(
+            "Idempotent-Replayed",
+            "Retry-After"
         ));
         
         // Allow credentials (cookies, authorization headers)
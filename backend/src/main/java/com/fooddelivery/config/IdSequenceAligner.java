@@ -0,0 +1,48 @@
+package com.fooddelivery.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the pooled id sequences of orders, order items and delivery assignments ahead of the
+ * rows already in their tables. Databases created before the switch from IDENTITY keys get the sequences from the
+ * schema update starting at 1, so the first inserts would collide with existing ids; this moves
+ * each sequence past MAX(id) before the web server takes requests.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceAligner implements InitializingBean {
+
+    // Must match allocationSize of the @SequenceGenerator mappings
+    private static final long ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        align("orders_seq", "orders");
+        align("order_items_seq", "order_items");
+        align("delivery_assignments_seq", "delivery_assignments");
+    }
+
+    private void align(String sequence, String table) {
+        // Hibernate's pooled optimizer hands out (value - allocation size, value] for each value it
+        // draws; drawing one here costs a block of ids but never races a concurrent writer
+        long next = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        if (next - ALLOCATION_SIZE >= maxId) {
+            return;
+        }
+        long restart = maxId + ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+        log.warn("Sequence {} was behind {} (max id {}), restarted at {}", sequence, table, maxId, restart);
+    }
+}
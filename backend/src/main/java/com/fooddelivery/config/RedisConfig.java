@@ -1,9 +1,14 @@
 package com.fooddelivery.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -26,6 +31,31 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
 
+    /**
+     * Pub/sub subscriptions for cross-node cache invalidation
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            @Value("${app.cache.invalidation.recovery-interval-ms:5000}") long recoveryIntervalMs) {
+        // Started by CacheInvalidationBus once Redis is reachable, so a Redis outage cannot fail startup
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
 
+        SimpleAsyncTaskExecutor subscriptionExecutor = new SimpleAsyncTaskExecutor("redis-subscription-");
+        subscriptionExecutor.setDaemon(true);
+        container.setSubscriptionExecutor(subscriptionExecutor);
+        // Listeners only drop in-memory entries, so they run on the subscription thread itself:
+        // no hand-off latency and messages are applied in the order Redis delivered them
+        container.setTaskExecutor(new SyncTaskExecutor());
+        container.setRecoveryInterval(recoveryIntervalMs);
+        return container;
+    }
+}
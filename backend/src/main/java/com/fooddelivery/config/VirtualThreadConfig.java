@@ -0,0 +1,49 @@
+package com.fooddelivery.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual-thread mode, switched on with spring.threads.virtual.enabled on Java 21+. Spring Boot then
+ * runs Tomcat requests, @Async methods and scheduled jobs on virtual threads. Those are cheap enough
+ * that thousands can block on JDBC at once, so the DataSource is wrapped to queue them on a fair
+ * semaphore sized to the pool instead of letting them all contend inside Hikari.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(
+            @Value("${app.jdbc.max-concurrent-connections:0}") int maxConcurrentConnections,
+            @Value("${app.jdbc.permit-timeout-ms:0}") long permitTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                HikariConfigMXBean pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+                        HikariDataSource.class);
+                int permits = maxConcurrentConnections > 0 ? maxConcurrentConnections
+                        : pool != null ? pool.getMaximumPoolSize() : 10;
+                long timeoutMs = permitTimeoutMs > 0 ? permitTimeoutMs
+                        : pool != null ? pool.getConnectionTimeout() : 30_000;
+                log.info("Limiting DataSource '{}' to {} concurrent connections ({} ms permit timeout)",
+                        beanName, permits, timeoutMs);
+                return new ConcurrencyLimitedDataSource(dataSource, permits, timeoutMs);
+            }
+        };
+    }
+}
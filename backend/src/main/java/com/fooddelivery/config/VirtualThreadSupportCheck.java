@@ -0,0 +1,29 @@
+package com.fooddelivery.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava.Range;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * spring.threads.virtual.enabled is silently ignored before Java 21: Tomcat, @Async and the
+ * scheduler stay on platform pools and {@link VirtualThreadConfig} is skipped. The build still
+ * targets 17, so say so at startup rather than leave a deployment believing it runs virtual.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@ConditionalOnJava(value = JavaVersion.TWENTY_ONE, range = Range.OLDER_THAN)
+public class VirtualThreadSupportCheck {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnUnsupported() {
+        log.warn("Virtual threads were requested (spring.threads.virtual.enabled) but this JVM is Java {}; "
+                        + "they need Java 21+, so requests, @Async and @Scheduled run on platform thread pools",
+                Runtime.version().feature());
+    }
+}
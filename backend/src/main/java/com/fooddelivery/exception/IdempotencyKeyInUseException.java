@@ -0,0 +1,18 @@
+package com.fooddelivery.exception;
+
+import lombok.Getter;
+
+/**
+ * Another request with the same Idempotency-Key is still being processed; the client may retry
+ * after the hinted delay and will then receive that request's result
+ */
+@Getter
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IdempotencyKeyInUseException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
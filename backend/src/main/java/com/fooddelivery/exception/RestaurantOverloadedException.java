@@ -0,0 +1,17 @@
+package com.fooddelivery.exception;
+
+import lombok.Getter;
+
+/**
+ * The restaurant's kitchen is at capacity; the client may retry after the hinted delay
+ */
+@Getter
+public class RestaurantOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RestaurantOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
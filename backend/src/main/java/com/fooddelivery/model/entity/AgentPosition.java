@@ -0,0 +1,36 @@
+package com.fooddelivery.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest known position of each agent, shared by all nodes. Kept up to date by the
+ * location flush; agent_locations holds the full history.
+ */
+@Entity
+@Table(name = "agent_positions", indexes = {
+    @Index(name = "idx_agent_positions_time", columnList = "recorded_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgentPosition {
+
+    @Id
+    private Long agentId;
+
+    @Column(nullable = false)
+    private Double latitude;
+
+    @Column(nullable = false)
+    private Double longitude;
+
+    @Column
+    private Double accuracyMeters;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
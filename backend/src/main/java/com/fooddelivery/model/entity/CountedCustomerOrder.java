@@ -0,0 +1,30 @@
+package com.fooddelivery.model.entity;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The status an order is currently counted under in customer_order_stats. A status change is
+ * only folded in when it starts from this status, so redelivered events are not counted twice.
+ */
+@Entity
+@Table(name = "customer_order_stats_orders", indexes = {
+    @Index(name = "idx_customer_order_stats_orders_customer", columnList = "customer_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CountedCustomerOrder {
+
+    @Id
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private OrderStatus status;
+}
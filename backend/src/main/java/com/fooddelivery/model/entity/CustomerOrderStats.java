@@ -0,0 +1,44 @@
+package com.fooddelivery.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order counters per customer, kept up to date from order events so profile reads do not
+ * scan the order history. Lifetime spend counts delivered orders only.
+ */
+@Entity
+@Table(name = "customer_order_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerOrderStats {
+
+    @Id
+    private Long customerId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long totalOrders = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long deliveredOrders = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long cancelledOrders = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal lifetimeSpend = BigDecimal.ZERO;
+
+    private LocalDateTime lastOrderAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "delivery_assignments", indexes = {
     @Index(name = "idx_assignments_order", columnList = "order_id"),
-    @Index(name = "idx_assignments_agent", columnList = "delivery_agent_id, status")
+    @Index(name = "idx_assignments_agent", columnList = "delivery_agent_id, status"),
+    @Index(name = "idx_assignments_agent_assigned", columnList = "delivery_agent_id, assigned_at, id")
 })
 @Data
 @NoArgsConstructor
@@ -19,7 +20,8 @@ import java.time.LocalDateTime;
 public class DeliveryAssignment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_assignments_seq")
+    @SequenceGenerator(name = "delivery_assignments_seq", sequenceName = "delivery_assignments_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
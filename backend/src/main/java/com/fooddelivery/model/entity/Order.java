@@ -17,7 +17,10 @@ import java.util.List;
     @Index(name = "idx_orders_restaurant", columnList = "restaurant_id, status"),
     @Index(name = "idx_orders_delivery", columnList = "delivery_agent_id, status"),
     @Index(name = "idx_orders_status", columnList = "status"),
-    @Index(name = "idx_orders_date", columnList = "placed_at")
+    @Index(name = "idx_orders_date", columnList = "placed_at"),
+    @Index(name = "idx_orders_customer_placed", columnList = "customer_id, placed_at, id"),
+    @Index(name = "idx_orders_restaurant_placed", columnList = "restaurant_id, placed_at, id"),
+    @Index(name = "idx_orders_delivery_placed", columnList = "delivery_agent_id, placed_at, id")
 })
 @Data
 @NoArgsConstructor
@@ -26,7 +29,8 @@ import java.util.List;
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false, length = 50)
@@ -116,6 +120,11 @@ public class Order {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    // Optimistic lock: every update is conditional on the version it was read at
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         if (this.placedAt == null) {
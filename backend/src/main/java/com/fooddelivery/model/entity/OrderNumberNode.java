@@ -0,0 +1,29 @@
+package com.fooddelivery.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on an order number node id. Each running instance without a configured node id holds
+ * one, renewing it well before it expires, so no two instances issue order numbers with the same
+ * node id.
+ */
+@Entity
+@Table(name = "order_number_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderNumberNode {
+
+    @Id
+    private Integer nodeId;
+
+    @Column(nullable = false, length = 200)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,64 @@
+package com.fooddelivery.model.entity;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated order totals per restaurant, time bucket and order status.
+ * Buckets are keyed by the hour or day the orders were placed in.
+ */
+@Entity
+@Table(name = "order_rollups",
+    uniqueConstraints = @UniqueConstraint(name = "uk_order_rollups_bucket",
+        columnNames = {"restaurant_id", "granularity", "bucket_start", "status"}),
+    indexes = {
+        @Index(name = "idx_order_rollups_lookup", columnList = "restaurant_id, granularity, bucket_start")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private OrderStatus status;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long orderCount = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal deliveryFee = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
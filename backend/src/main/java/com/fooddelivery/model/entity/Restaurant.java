@@ -98,4 +98,9 @@ public class Restaurant {
     @UpdateTimestamp
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+    
+    // Bumped on every update; also orders the cache invalidations sent for this row
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,30 @@
+package com.fooddelivery.model.entity;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The status an order is currently counted under in order_rollups. A status change is only
+ * folded in when it starts from this status, so redelivered events are not counted twice.
+ */
+@Entity
+@Table(name = "order_rollup_orders", indexes = {
+    @Index(name = "idx_order_rollup_orders_restaurant", columnList = "restaurant_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RolledUpOrder {
+
+    @Id
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private OrderStatus status;
+}
@@ -62,6 +62,11 @@ public class User {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    // Bumped on every update; also orders the cache invalidations sent for this row
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     // Average rating (calculated from reviews)
     @Column
     @Builder.Default
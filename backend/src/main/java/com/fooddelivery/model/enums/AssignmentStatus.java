@@ -4,6 +4,7 @@ public enum AssignmentStatus {
     PENDING,    // Sent to agent, awaiting acceptance
     ACCEPTED,   // Agent accepted
     REJECTED,   // Agent rejected
+    EXPIRED,    // Agent did not respond before the assignment timeout
     COMPLETED,  // Delivery completed
     CANCELLED   // Assignment cancelled
 }
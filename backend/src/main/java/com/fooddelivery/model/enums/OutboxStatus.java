@@ -0,0 +1,6 @@
+package com.fooddelivery.model.enums;
+
+public enum OutboxStatus {
+    PENDING,    // Waiting to be dispatched (or retried)
+    FAILED      // Gave up after the maximum number of attempts
+}
@@ -0,0 +1,6 @@
+package com.fooddelivery.model.enums;
+
+public enum RollupGranularity {
+    HOUR,
+    DAY
+}
@@ -1,17 +1,24 @@
 package com.fooddelivery.modules.analytics.api;
 
 import com.fooddelivery.modules.analytics.application.AnalyticsService;
+import com.fooddelivery.modules.analytics.application.OrderRollupService;
+import com.fooddelivery.modules.analytics.domain.dto.HourlySalesDTO;
 import com.fooddelivery.modules.analytics.domain.dto.OrderStatisticsDTO;
 import com.fooddelivery.modules.analytics.domain.dto.SalesReportDTO;
 import com.fooddelivery.modules.analytics.domain.dto.TopSellingItemDTO;
+import com.fooddelivery.modules.customer.application.CustomerOrderStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -23,6 +30,8 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final OrderRollupService orderRollupService;
+    private final CustomerOrderStatsService customerOrderStatsService;
 
     /**
      * Get order statistics for restaurant
@@ -51,6 +60,46 @@ public class AnalyticsController {
         return ResponseEntity.ok(analyticsService.getSalesReport(restaurantId, startDate, endDate));
     }
 
+    /**
+     * Export sales report as CSV, streamed day by day for multi-year ranges
+     * GET /api/v1/analytics/sales/export?startDate=2023-01-01&endDate=2025-12-31
+     */
+    @GetMapping(value = "/sales/export", produces = "text/csv")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public void exportSalesReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Authentication authentication,
+            HttpServletResponse response) throws IOException {
+        log.info("Exporting sales report from {} to {}", startDate, endDate);
+        Long restaurantId = extractUserIdFromAuth(authentication);
+
+        response.setContentType("text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"sales-" + startDate + "-" + endDate + ".csv\"");
+        PrintWriter writer = response.getWriter();
+        writer.println("date,totalOrders,completedOrders,cancelledOrders,totalRevenue,averageOrderValue,deliveryFees,taxCollected");
+        analyticsService.streamSalesReport(restaurantId, startDate, endDate, day -> writer.println(
+                day.getDate() + "," + day.getTotalOrders() + "," + day.getCompletedOrders() + ","
+                        + day.getCancelledOrders() + "," + day.getTotalRevenue() + ","
+                        + day.getAverageOrderValue() + "," + day.getDeliveryFees() + "," + day.getTaxCollected()));
+        writer.flush();
+    }
+
+    /**
+     * Get hour-by-hour sales for a day
+     * GET /api/v1/analytics/sales/hourly?date=2025-01-31
+     */
+    @GetMapping("/sales/hourly")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public ResponseEntity<List<HourlySalesDTO>> getHourlySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            Authentication authentication) {
+        log.info("Fetching hourly sales for {}", date);
+        Long restaurantId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(analyticsService.getHourlySales(restaurantId, date));
+    }
+
     /**
      * Get top-selling items
      * GET /api/v1/analytics/top-items?startDate=2025-01-01&endDate=2025-01-31&limit=10
@@ -67,6 +116,30 @@ public class AnalyticsController {
         return ResponseEntity.ok(analyticsService.getTopSellingItems(restaurantId, startDate, endDate, limit));
     }
 
+    /**
+     * Rebuild analytics rollups from order history in the background
+     * POST /api/v1/analytics/rollups/rebuild
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildRollups() {
+        log.info("Triggering order rollup rebuild");
+        orderRollupService.rebuildAsync();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Rebuild per-customer order stats from order history in the background
+     * POST /api/v1/analytics/customer-stats/rebuild
+     */
+    @PostMapping("/customer-stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildCustomerStats() {
+        log.info("Triggering customer order stats rebuild");
+        customerOrderStatsService.rebuildAsync();
+        return ResponseEntity.accepted().build();
+    }
+
     private Long extractUserIdFromAuth(Authentication authentication) {
         if (authentication != null && authentication.getPrincipal() instanceof com.fooddelivery.security.CustomUserDetails) {
             com.fooddelivery.security.CustomUserDetails userDetails =
@@ -1,11 +1,12 @@
 package com.fooddelivery.modules.analytics.application;
 
+import com.fooddelivery.modules.analytics.domain.dto.HourlySalesDTO;
 import com.fooddelivery.modules.analytics.domain.dto.OrderStatisticsDTO;
 import com.fooddelivery.modules.analytics.domain.dto.SalesReportDTO;
 import com.fooddelivery.modules.analytics.domain.dto.TopSellingItemDTO;
-import com.fooddelivery.model.entity.Order;
 import com.fooddelivery.model.enums.OrderStatus;
-import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.model.enums.RollupGranularity;
+import com.fooddelivery.modules.analytics.infra.OrderRollupRepository;
 import com.fooddelivery.repository.OrderItemRepository;
 import com.fooddelivery.modules.restaurant.infra.RestaurantRepository;
 import com.fooddelivery.exception.ResourceNotFoundException;
@@ -20,7 +21,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -28,7 +31,12 @@ import java.util.stream.Collectors;
 @Transactional
 public class AnalyticsService {
 
-    private final OrderRepository orderRepository;
+    private static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            OrderStatus.PLACED, OrderStatus.CONFIRMED, OrderStatus.PREPARING,
+            OrderStatus.READY, OrderStatus.ASSIGNED, OrderStatus.PICKED_UP,
+            OrderStatus.OUT_FOR_DELIVERY);
+
+    private final OrderRollupRepository orderRollupRepository;
     private final OrderItemRepository orderItemRepository;
     private final RestaurantRepository restaurantRepository;
 
@@ -40,50 +48,51 @@ public class AnalyticsService {
         log.info("Generating order statistics for restaurant: {}", restaurantId);
         verifyRestaurantOwnership(restaurantId);
 
-        LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfToday = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
         LocalDateTime startOfWeek = startOfToday.minusDays(7);
         LocalDateTime startOfMonth = LocalDateTime.of(LocalDate.now().withDayOfMonth(1), LocalTime.MIN);
 
-        List<Order> allOrders = orderRepository.findByRestaurantIdAndPlacedAtBetween(
-                restaurantId, LocalDateTime.of(2020, 1, 1, 0, 0), now);
-
-        List<OrderStatus> activeStatuses = Arrays.asList(
-                OrderStatus.PLACED, OrderStatus.CONFIRMED, OrderStatus.PREPARING,
-                OrderStatus.READY, OrderStatus.ASSIGNED, OrderStatus.PICKED_UP,
-                OrderStatus.OUT_FOR_DELIVERY);
-        Long activeOrders = allOrders.stream()
-                .filter(o -> activeStatuses.contains(o.getStatus()))
-                .count();
-
-        Long completedOrders = allOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                .count();
-
-        Long cancelledOrders = allOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.CANCELLED)
-                .count();
-
-        BigDecimal totalRevenue = allOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<Object[]> rows = orderRollupRepository.sumByStatus(
+                restaurantId, RollupGranularity.DAY, startOfToday, startOfWeek, startOfMonth);
+
+        Map<String, Long> ordersByStatus = new HashMap<>();
+        long totalOrders = 0;
+        long activeOrders = 0;
+        long completedOrders = 0;
+        long cancelledOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal todayRevenue = BigDecimal.ZERO;
+        BigDecimal weekRevenue = BigDecimal.ZERO;
+        BigDecimal monthRevenue = BigDecimal.ZERO;
+
+        for (Object[] row : rows) {
+            OrderStatus status = (OrderStatus) row[0];
+            long count = ((Number) row[1]).longValue();
+            if (count == 0) {
+                continue;
+            }
+            totalOrders += count;
+            ordersByStatus.put(status.name(), count);
+
+            if (ACTIVE_STATUSES.contains(status)) {
+                activeOrders += count;
+            } else if (status == OrderStatus.CANCELLED) {
+                cancelledOrders = count;
+            } else if (status == OrderStatus.DELIVERED) {
+                completedOrders = count;
+                totalRevenue = orZero(row[2]);
+                todayRevenue = orZero(row[3]);
+                weekRevenue = orZero(row[4]);
+                monthRevenue = orZero(row[5]);
+            }
+        }
 
         BigDecimal avgOrderValue = completedOrders > 0
                 ? totalRevenue.divide(BigDecimal.valueOf(completedOrders), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
-        BigDecimal todayRevenue = calculateRevenue(restaurantId, startOfToday, now);
-        BigDecimal weekRevenue = calculateRevenue(restaurantId, startOfWeek, now);
-        BigDecimal monthRevenue = calculateRevenue(restaurantId, startOfMonth, now);
-
-        Map<String, Long> ordersByStatus = allOrders.stream()
-                .collect(Collectors.groupingBy(
-                        o -> o.getStatus().name(),
-                        Collectors.counting()));
-
         return OrderStatisticsDTO.builder()
-                .totalOrders((long) allOrders.size())
+                .totalOrders(totalOrders)
                 .activeOrders(activeOrders)
                 .completedOrders(completedOrders)
                 .cancelledOrders(cancelledOrders)
@@ -105,58 +114,58 @@ public class AnalyticsService {
         log.info("Generating sales report for restaurant: {} from {} to {}", restaurantId, startDate, endDate);
         verifyRestaurantOwnership(restaurantId);
 
+        List<Object[]> rows = orderRollupRepository.sumSalesByBucket(
+                restaurantId, RollupGranularity.DAY, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
         List<SalesReportDTO> reports = new ArrayList<>();
-        LocalDate currentDate = startDate;
+        fillSalesReport(rows.stream().map(this::toSalesReport).iterator(), startDate, endDate, reports::add);
+        return reports;
+    }
 
-        while (!currentDate.isAfter(endDate)) {
-            LocalDateTime dayStart = LocalDateTime.of(currentDate, LocalTime.MIN);
-            LocalDateTime dayEnd = LocalDateTime.of(currentDate, LocalTime.MAX);
-
-            List<Order> dayOrders = orderRepository.findByRestaurantIdAndPlacedAtBetween(
-                    restaurantId, dayStart, dayEnd);
-
-            Long totalOrders = (long) dayOrders.size();
-            Long completedOrders = dayOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                    .count();
-            Long cancelledOrders = dayOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.CANCELLED)
-                    .count();
-
-            BigDecimal totalRevenue = dayOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal deliveryFees = dayOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                    .map(Order::getDeliveryFee)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal taxCollected = dayOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                    .map(Order::getTaxAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal avgOrderValue = completedOrders > 0
-                    ? totalRevenue.divide(BigDecimal.valueOf(completedOrders), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
-
-            reports.add(SalesReportDTO.builder()
-                    .date(currentDate)
-                    .totalOrders(totalOrders)
-                    .totalRevenue(totalRevenue)
-                    .averageOrderValue(avgOrderValue)
-                    .completedOrders(completedOrders)
-                    .cancelledOrders(cancelledOrders)
-                    .deliveryFees(deliveryFees)
-                    .taxCollected(taxCollected)
-                    .build());
+    /**
+     * Stream sales report rows for long date ranges without materializing them
+     */
+    @Transactional(readOnly = true)
+    public void streamSalesReport(Long restaurantId, LocalDate startDate, LocalDate endDate,
+                                  Consumer<SalesReportDTO> sink) {
+        log.info("Streaming sales report for restaurant: {} from {} to {}", restaurantId, startDate, endDate);
+        verifyRestaurantOwnership(restaurantId);
 
-            currentDate = currentDate.plusDays(1);
+        try (Stream<Object[]> rows = orderRollupRepository.streamSalesByBucket(
+                restaurantId, RollupGranularity.DAY, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                OrderStatus.DELIVERED, OrderStatus.CANCELLED)) {
+            fillSalesReport(rows.map(this::toSalesReport).iterator(), startDate, endDate, sink);
         }
+    }
 
-        return reports;
+    /**
+     * Get hour-by-hour sales for a single day
+     */
+    @Transactional(readOnly = true)
+    public List<HourlySalesDTO> getHourlySales(Long restaurantId, LocalDate date) {
+        log.info("Generating hourly sales for restaurant: {} on {}", restaurantId, date);
+        verifyRestaurantOwnership(restaurantId);
+
+        List<Object[]> rows = orderRollupRepository.sumSalesByBucket(
+                restaurantId, RollupGranularity.HOUR, date.atStartOfDay(), date.plusDays(1).atStartOfDay(),
+                OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+        Map<LocalDateTime, Object[]> byHour = new HashMap<>();
+        rows.forEach(row -> byHour.put((LocalDateTime) row[0], row));
+
+        List<HourlySalesDTO> hours = new ArrayList<>(24);
+        for (LocalDateTime hour = date.atStartOfDay(); hour.toLocalDate().equals(date); hour = hour.plusHours(1)) {
+            Object[] row = byHour.get(hour);
+            hours.add(HourlySalesDTO.builder()
+                    .hour(hour)
+                    .totalOrders(row != null ? ((Number) row[1]).longValue() : 0L)
+                    .completedOrders(row != null ? ((Number) row[2]).longValue() : 0L)
+                    .cancelledOrders(row != null ? ((Number) row[3]).longValue() : 0L)
+                    .totalRevenue(row != null ? orZero(row[4]) : BigDecimal.ZERO)
+                    .build());
+        }
+        return hours;
     }
 
     /**
@@ -187,11 +196,60 @@ public class AnalyticsService {
     }
 
     /**
-     * Calculate revenue for a date range
+     * Emit one row per day in the range, inserting empty rows for days without orders
      */
-    private BigDecimal calculateRevenue(Long restaurantId, LocalDateTime startDate, LocalDateTime endDate) {
-        BigDecimal revenue = orderRepository.getRevenueByRestaurantAndDateRange(restaurantId, startDate, endDate);
-        return revenue != null ? revenue : BigDecimal.ZERO;
+    private void fillSalesReport(Iterator<SalesReportDTO> days, LocalDate startDate, LocalDate endDate,
+                                 Consumer<SalesReportDTO> sink) {
+        LocalDate currentDate = startDate;
+        while (days.hasNext()) {
+            SalesReportDTO day = days.next();
+            while (currentDate.isBefore(day.getDate())) {
+                sink.accept(emptySalesReport(currentDate));
+                currentDate = currentDate.plusDays(1);
+            }
+            sink.accept(day);
+            currentDate = day.getDate().plusDays(1);
+        }
+        while (!currentDate.isAfter(endDate)) {
+            sink.accept(emptySalesReport(currentDate));
+            currentDate = currentDate.plusDays(1);
+        }
+    }
+
+    private SalesReportDTO toSalesReport(Object[] row) {
+        long completedOrders = ((Number) row[2]).longValue();
+        BigDecimal totalRevenue = orZero(row[4]);
+        BigDecimal avgOrderValue = completedOrders > 0
+                ? totalRevenue.divide(BigDecimal.valueOf(completedOrders), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return SalesReportDTO.builder()
+                .date(((LocalDateTime) row[0]).toLocalDate())
+                .totalOrders(((Number) row[1]).longValue())
+                .totalRevenue(totalRevenue)
+                .averageOrderValue(avgOrderValue)
+                .completedOrders(completedOrders)
+                .cancelledOrders(((Number) row[3]).longValue())
+                .deliveryFees(orZero(row[5]))
+                .taxCollected(orZero(row[6]))
+                .build();
+    }
+
+    private SalesReportDTO emptySalesReport(LocalDate date) {
+        return SalesReportDTO.builder()
+                .date(date)
+                .totalOrders(0L)
+                .totalRevenue(BigDecimal.ZERO)
+                .averageOrderValue(BigDecimal.ZERO)
+                .completedOrders(0L)
+                .cancelledOrders(0L)
+                .deliveryFees(BigDecimal.ZERO)
+                .taxCollected(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static BigDecimal orZero(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
     }
 
     /**
@@ -0,0 +1,284 @@
+package com.fooddelivery.modules.analytics.application;
+
+import com.fooddelivery.model.entity.RolledUpOrder;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.RollupGranularity;
+import com.fooddelivery.modules.analytics.domain.model.OrderRollupDelta;
+import com.fooddelivery.modules.analytics.infra.OrderRollupRepository;
+import com.fooddelivery.modules.analytics.infra.OrderRollupWriter;
+import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
+import com.fooddelivery.modules.order.domain.event.OrderPlacedEvent;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Maintains order_rollups, the per-restaurant hourly and daily order totals behind the analytics endpoints.
+ * Order events are folded in incrementally after their transaction commits; a rebuild recomputes
+ * every row from the orders table in parallel chunks of restaurants.
+ * <p>
+ * order_rollup_orders records the status each order is counted under, and a change is only folded
+ * in when it starts from that status, so events redelivered by the outbox are not counted twice.
+ * Incremental updates share-lock the restaurant row and a rebuild chunk locks its restaurants
+ * exclusively before reading the orders, so a chunk never overwrites a change it did not see.
+ */
+@Slf4j
+@Service
+public class OrderRollupService {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int COUNTED_ORDERS_BATCH_SIZE = 1000;
+    private static final Comparator<OrderRollupDelta> ROW_ORDER = Comparator
+            .comparing(OrderRollupDelta::granularity)
+            .thenComparing(OrderRollupDelta::bucketStart)
+            .thenComparing(OrderRollupDelta::status);
+
+    private final OrderRepository orderRepository;
+    private final OrderRollupRepository orderRollupRepository;
+    private final OrderRollupWriter orderRollupWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final long backfillChunkSize;
+    private final ExecutorService backfillExecutor;
+    private final Executor taskExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public OrderRollupService(OrderRepository orderRepository,
+                              OrderRollupRepository orderRollupRepository,
+                              OrderRollupWriter orderRollupWriter,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                              Executor taskExecutor,
+                              @Value("${app.analytics.rollups.backfill-on-startup:true}") boolean backfillOnStartup,
+                              @Value("${app.analytics.rollups.backfill-chunk-size:200}") long backfillChunkSize,
+                              @Value("${app.analytics.rollups.backfill-parallelism:4}") int backfillParallelism) {
+        this.orderRepository = orderRepository;
+        this.orderRollupRepository = orderRollupRepository;
+        this.orderRollupWriter = orderRollupWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillChunkSize = Math.max(backfillChunkSize, 1);
+        this.backfillExecutor = Executors.newFixedThreadPool(Math.max(backfillParallelism, 1));
+        this.taskExecutor = taskExecutor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        applyOrderChange(event.getOrderId(), null, OrderStatus.PLACED);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOldStatus() != event.getNewStatus()) {
+            applyOrderChange(event.getOrderId(), event.getOldStatus(), event.getNewStatus());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        if (event.getPreviousStatus() != OrderStatus.CANCELLED) {
+            applyOrderChange(event.getOrderId(), event.getPreviousStatus(), OrderStatus.CANCELLED);
+        }
+    }
+
+    /**
+     * Populate the rollups from history while no order is counted yet, which includes rollups
+     * built before counted orders were recorded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && !orderRollupWriter.hasOrders()) {
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * Start a full rebuild on the application task executor; no-op if one is already running
+     */
+    public void rebuildAsync() {
+        taskExecutor.execute(this::rebuildAll);
+    }
+
+    /**
+     * Recompute all rollups from the orders table, one chunk of restaurant ids per task
+     */
+    public void rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Order rollup rebuild already in progress");
+            return;
+        }
+        try {
+            List<Object[]> range = orderRepository.findRestaurantIdRange();
+            if (range.isEmpty() || range.get(0)[0] == null) {
+                log.info("No orders to roll up");
+                return;
+            }
+            long minId = ((Number) range.get(0)[0]).longValue();
+            long maxId = ((Number) range.get(0)[1]).longValue();
+            long startedAt = System.currentTimeMillis();
+
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += backfillChunkSize) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + backfillChunkSize - 1, maxId);
+                chunks.add(CompletableFuture.supplyAsync(() -> rebuildChunk(chunkFrom, chunkTo), backfillExecutor));
+            }
+            int rows = chunks.stream().mapToInt(CompletableFuture::join).sum();
+            log.info("Rebuilt {} order rollup rows for restaurants {}..{} in {} chunks ({} ms)",
+                    rows, minId, maxId, chunks.size(), System.currentTimeMillis() - startedAt);
+        } catch (Exception ex) {
+            log.error("Order rollup rebuild failed", ex);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    private int rebuildChunk(long fromRestaurantId, long toRestaurantId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            // Order changes of these restaurants wait until the chunk commits, and it waits for theirs
+            orderRollupRepository.lockRestaurantsForRebuild(fromRestaurantId, toRestaurantId);
+            orderRollupWriter.deleteRestaurantRange(fromRestaurantId, toRestaurantId);
+
+            Map<RowKey, Accumulator> totals = new HashMap<>();
+            List<RolledUpOrder> counted = new ArrayList<>(COUNTED_ORDERS_BATCH_SIZE);
+            try (Stream<Object[]> orders = orderRepository.streamRollupFactsByRestaurantIdBetween(
+                    fromRestaurantId, toRestaurantId)) {
+                orders.forEach(order -> {
+                    Long restaurantId = (Long) order[0];
+                    LocalDateTime placedAt = (LocalDateTime) order[1];
+                    OrderStatus orderStatus = (OrderStatus) order[2];
+                    for (RollupGranularity granularity : RollupGranularity.values()) {
+                        totals.computeIfAbsent(
+                                new RowKey(restaurantId, granularity, bucketStart(granularity, placedAt), orderStatus),
+                                key -> new Accumulator())
+                              .add(orZero(order[3]), orZero(order[4]), orZero(order[5]));
+                    }
+                    counted.add(new RolledUpOrder((Long) order[6], restaurantId, orderStatus));
+                    if (counted.size() == COUNTED_ORDERS_BATCH_SIZE) {
+                        orderRollupWriter.insertOrders(counted);
+                        counted.clear();
+                    }
+                });
+            }
+            orderRollupWriter.insertOrders(counted);
+
+            List<OrderRollupDelta> rollups = new ArrayList<>(totals.size());
+            totals.forEach((key, sum) -> rollups.add(new OrderRollupDelta(key.restaurantId(), key.granularity(),
+                    key.bucketStart(), key.status(), sum.orderCount, sum.totalAmount, sum.deliveryFee, sum.taxAmount)));
+            orderRollupWriter.insertRollups(rollups);
+            return rollups.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Move one order from its old status bucket to the new one, unless that move is already
+     * counted. Failures are logged rather than propagated: the order change has already committed,
+     * and a rebuild repairs any drift.
+     */
+    private void applyOrderChange(Long orderId, OrderStatus from, OrderStatus to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Object[]> facts = orderRepository.findRollupFactsById(orderId);
+                    if (facts.isEmpty()) {
+                        return;
+                    }
+                    Long restaurantId = (Long) facts.get(0)[0];
+                    orderRollupRepository.lockRestaurantForDelta(restaurantId);
+                    if (orderRollupWriter.moveOrder(orderId, restaurantId, from, to)) {
+                        orderRollupWriter.applyDeltas(deltasFor(facts.get(0), from, to));
+                    }
+                });
+                return;
+            } catch (DuplicateKeyException ex) {
+                // Another transaction created the same row first; the retry updates it instead
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Failed to update order rollups for order {}", orderId, ex);
+                    return;
+                }
+            } catch (Exception ex) {
+                log.error("Failed to update order rollups for order {}", orderId, ex);
+                return;
+            }
+        }
+    }
+
+    private List<OrderRollupDelta> deltasFor(Object[] order, OrderStatus from, OrderStatus to) {
+        Long restaurantId = (Long) order[0];
+        LocalDateTime placedAt = (LocalDateTime) order[1];
+        BigDecimal totalAmount = orZero(order[2]);
+        BigDecimal deliveryFee = orZero(order[3]);
+        BigDecimal taxAmount = orZero(order[4]);
+
+        List<OrderRollupDelta> deltas = new ArrayList<>(4);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = bucketStart(granularity, placedAt);
+            if (from != null) {
+                deltas.add(new OrderRollupDelta(restaurantId, granularity, bucket, from, -1,
+                        totalAmount.negate(), deliveryFee.negate(), taxAmount.negate()));
+            }
+            deltas.add(new OrderRollupDelta(restaurantId, granularity, bucket, to, 1,
+                    totalAmount, deliveryFee, taxAmount));
+        }
+        // Lock rows in a fixed order so concurrent updates of the same buckets cannot deadlock
+        deltas.sort(ROW_ORDER);
+        return deltas;
+    }
+
+    private static LocalDateTime bucketStart(RollupGranularity granularity, LocalDateTime time) {
+        return time.truncatedTo(granularity == RollupGranularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static BigDecimal orZero(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    private record RowKey(Long restaurantId, RollupGranularity granularity, LocalDateTime bucketStart,
+                          OrderStatus status) {
+    }
+
+    private static final class Accumulator {
+        private long orderCount;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+        private BigDecimal deliveryFee = BigDecimal.ZERO;
+        private BigDecimal taxAmount = BigDecimal.ZERO;
+
+        private void add(BigDecimal total, BigDecimal fee, BigDecimal tax) {
+            orderCount++;
+            totalAmount = totalAmount.add(total);
+            deliveryFee = deliveryFee.add(fee);
+            taxAmount = taxAmount.add(tax);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.fooddelivery.modules.analytics.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlySalesDTO {
+    private LocalDateTime hour;
+    private Long totalOrders;
+    private Long completedOrders;
+    private Long cancelledOrders;
+    private BigDecimal totalRevenue;
+}
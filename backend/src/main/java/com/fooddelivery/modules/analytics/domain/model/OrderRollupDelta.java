@@ -0,0 +1,20 @@
+package com.fooddelivery.modules.analytics.domain.model;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.RollupGranularity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Change to apply to one order_rollups row, or the full row contents during a rebuild
+ */
+public record OrderRollupDelta(Long restaurantId,
+                               RollupGranularity granularity,
+                               LocalDateTime bucketStart,
+                               OrderStatus status,
+                               long orderCount,
+                               BigDecimal totalAmount,
+                               BigDecimal deliveryFee,
+                               BigDecimal taxAmount) {
+}
@@ -0,0 +1,90 @@
+package com.fooddelivery.modules.analytics.infra;
+
+import com.fooddelivery.model.entity.OrderRollup;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.RollupGranularity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, Long> {
+
+    String SALES_BY_BUCKET_QUERY = "SELECT r.bucketStart, SUM(r.orderCount), " +
+           "SUM(CASE WHEN r.status = :delivered THEN r.orderCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.status = :cancelled THEN r.orderCount ELSE 0 END), " +
+           "SUM(CASE WHEN r.status = :delivered THEN r.totalAmount END), " +
+           "SUM(CASE WHEN r.status = :delivered THEN r.deliveryFee END), " +
+           "SUM(CASE WHEN r.status = :delivered THEN r.taxAmount END) " +
+           "FROM OrderRollup r WHERE r.restaurantId = :restaurantId AND r.granularity = :granularity " +
+           "AND r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart";
+
+    /**
+     * One row per status: [status, order count, revenue, today, week and month revenue].
+     * Windowed sums are null when no bucket falls in the window.
+     */
+    @Query("SELECT r.status, SUM(r.orderCount), SUM(r.totalAmount), " +
+           "SUM(CASE WHEN r.bucketStart >= :startOfToday THEN r.totalAmount END), " +
+           "SUM(CASE WHEN r.bucketStart >= :startOfWeek THEN r.totalAmount END), " +
+           "SUM(CASE WHEN r.bucketStart >= :startOfMonth THEN r.totalAmount END) " +
+           "FROM OrderRollup r WHERE r.restaurantId = :restaurantId AND r.granularity = :granularity " +
+           "GROUP BY r.status")
+    List<Object[]> sumByStatus(@Param("restaurantId") Long restaurantId,
+                               @Param("granularity") RollupGranularity granularity,
+                               @Param("startOfToday") LocalDateTime startOfToday,
+                               @Param("startOfWeek") LocalDateTime startOfWeek,
+                               @Param("startOfMonth") LocalDateTime startOfMonth);
+
+    /**
+     * One row per bucket with orders: [bucket start, orders, delivered, cancelled, revenue, delivery fees, tax].
+     * Sums are null for buckets without delivered orders.
+     */
+    @Query(SALES_BY_BUCKET_QUERY)
+    List<Object[]> sumSalesByBucket(@Param("restaurantId") Long restaurantId,
+                                    @Param("granularity") RollupGranularity granularity,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end,
+                                    @Param("delivered") OrderStatus delivered,
+                                    @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Same rows as sumSalesByBucket, fetched incrementally; must be consumed and closed
+     * inside a transaction
+     */
+    @Query(SALES_BY_BUCKET_QUERY)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Object[]> streamSalesByBucket(@Param("restaurantId") Long restaurantId,
+                                         @Param("granularity") RollupGranularity granularity,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end,
+                                         @Param("delivered") OrderStatus delivered,
+                                         @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Share-lock the restaurant row while an order change is folded into its rollups; a rebuild of
+     * the restaurant waits for the change to commit and vice versa
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id = :restaurantId")
+    List<Long> lockRestaurantForDelta(@Param("restaurantId") Long restaurantId);
+
+    /**
+     * Lock the restaurant rows of a rebuild chunk against concurrent order changes, in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id BETWEEN :fromRestaurantId AND :toRestaurantId ORDER BY r.id")
+    List<Long> lockRestaurantsForRebuild(@Param("fromRestaurantId") Long fromRestaurantId,
+                                         @Param("toRestaurantId") Long toRestaurantId);
+}
@@ -0,0 +1,141 @@
+package com.fooddelivery.modules.analytics.infra;
+
+import com.fooddelivery.model.entity.RolledUpOrder;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.analytics.domain.model.OrderRollupDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC writer for order_rollups and order_rollup_orders.
+ * Increments are applied as batched relative UPDATEs so concurrent writers never lose
+ * each other's changes; rows that do not exist yet are inserted afterwards.
+ * Callers run inside a transaction and retry it on DuplicateKeyException.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderRollupWriter {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE order_rollups SET order_count = order_count + ?, total_amount = total_amount + ?, " +
+            "delivery_fee = delivery_fee + ?, tax_amount = tax_amount + ?, updated_at = ? " +
+            "WHERE restaurant_id = ? AND granularity = ? AND bucket_start = ? AND status = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_rollups (restaurant_id, granularity, bucket_start, status, order_count, " +
+            "total_amount, delivery_fee, tax_amount, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM order_rollups WHERE restaurant_id BETWEEN ? AND ?";
+
+    private static final String ADD_ORDER_SQL =
+            "INSERT INTO order_rollup_orders (order_id, restaurant_id, status) SELECT " +
+            "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(50)) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM order_rollup_orders WHERE order_id = ?)";
+
+    private static final String MOVE_ORDER_SQL =
+            "UPDATE order_rollup_orders SET status = ? WHERE order_id = ? AND status = ?";
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO order_rollup_orders (order_id, restaurant_id, status) VALUES (?, ?, ?)";
+
+    private static final String DELETE_ORDERS_RANGE_SQL =
+            "DELETE FROM order_rollup_orders WHERE restaurant_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add the deltas to their rows, creating missing rows
+     */
+    public void applyDeltas(List<OrderRollupDelta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] updated = jdbcTemplate.batchUpdate(INCREMENT_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setLong(1, delta.orderCount());
+            ps.setBigDecimal(2, delta.totalAmount());
+            ps.setBigDecimal(3, delta.deliveryFee());
+            ps.setBigDecimal(4, delta.taxAmount());
+            ps.setTimestamp(5, now);
+            ps.setLong(6, delta.restaurantId());
+            ps.setString(7, delta.granularity().name());
+            ps.setTimestamp(8, Timestamp.valueOf(delta.bucketStart()));
+            ps.setString(9, delta.status().name());
+        });
+
+        List<OrderRollupDelta> missing = new ArrayList<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (updated[0][i] == 0) {
+                missing.add(deltas.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            insert(missing, now);
+        }
+    }
+
+    /**
+     * Record that the order moved from one status to another (from null when it was placed);
+     * false if the move was already counted, so its deltas must not be applied again
+     */
+    public boolean moveOrder(long orderId, long restaurantId, OrderStatus from, OrderStatus to) {
+        int updated = from == null
+                ? jdbcTemplate.update(ADD_ORDER_SQL, orderId, restaurantId, to.name(), orderId)
+                : jdbcTemplate.update(MOVE_ORDER_SQL, to.name(), orderId, from.name());
+        return updated == 1;
+    }
+
+    /**
+     * Drop all rollups and counted orders of the restaurants in [fromRestaurantId, toRestaurantId]
+     * ahead of rebuilding them
+     */
+    public void deleteRestaurantRange(long fromRestaurantId, long toRestaurantId) {
+        jdbcTemplate.update(DELETE_RANGE_SQL, fromRestaurantId, toRestaurantId);
+        jdbcTemplate.update(DELETE_ORDERS_RANGE_SQL, fromRestaurantId, toRestaurantId);
+    }
+
+    /**
+     * Record the status each order is counted under
+     */
+    public void insertOrders(List<RolledUpOrder> orders) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders, 1000, (ps, order) -> {
+            ps.setLong(1, order.getOrderId());
+            ps.setLong(2, order.getRestaurantId());
+            ps.setString(3, order.getStatus().name());
+        });
+    }
+
+    /**
+     * Whether any order is counted yet, i.e. the rollups were built at least once
+     */
+    public boolean hasOrders() {
+        return !jdbcTemplate.queryForList("SELECT order_id FROM order_rollup_orders LIMIT 1").isEmpty();
+    }
+
+    /**
+     * Insert rollup rows, e.g. the totals of a rebuilt chunk
+     */
+    public void insertRollups(List<OrderRollupDelta> rows) {
+        if (!rows.isEmpty()) {
+            insert(rows, Timestamp.valueOf(LocalDateTime.now()));
+        }
+    }
+
+    private void insert(List<OrderRollupDelta> rows, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, 1000, (ps, row) -> {
+            ps.setLong(1, row.restaurantId());
+            ps.setString(2, row.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(row.bucketStart()));
+            ps.setString(4, row.status().name());
+            ps.setLong(5, row.orderCount());
+            ps.setBigDecimal(6, row.totalAmount());
+            ps.setBigDecimal(7, row.deliveryFee());
+            ps.setBigDecimal(8, row.taxAmount());
+            ps.setTimestamp(9, now);
+        });
+    }
+}
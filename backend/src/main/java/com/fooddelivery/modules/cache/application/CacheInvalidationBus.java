@@ -0,0 +1,203 @@
+package com.fooddelivery.modules.cache.application;
+
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-process caches of all nodes coherent. A node that changes a row publishes
+ * (entity type, id, version) on a Redis channel after commit; every node drops its local entries
+ * for that row. The last version seen per row is remembered, so a message overtaken by a newer
+ * one (or a node's own message echoed back) is ignored. Messages missed while disconnected from
+ * Redis are not replayed; the local TTLs bound how long such entries can stay stale.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final String channel;
+    private final Map<EntityType, List<Consumer<CacheInvalidation>>> handlers = new EnumMap<>(EntityType.class);
+    // Row key -> highest version applied or published by this node
+    private final Cache<String, Long> seenVersions;
+    private volatile boolean publishFailing;
+    private volatile boolean subscribed;
+    private boolean subscribeFailing;
+
+    private final Timer latencyTimer;
+    private final Counter publishedCounter;
+    private final Counter appliedCounter;
+    private final Counter staleCounter;
+
+    public CacheInvalidationBus(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.invalidation.channel:fd:cache-invalidation}") String channel,
+                                @Value("${app.cache.invalidation.tracked-rows:100000}") long trackedRows) {
+        this.channel = channel;
+        for (EntityType type : EntityType.values()) {
+            handlers.put(type, new CopyOnWriteArrayList<>());
+        }
+        this.seenVersions = CacheBuilder.newBuilder()
+                .maximumSize(trackedRows)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+
+        this.latencyTimer = Timer.builder("cache.invalidation.latency")
+                .description("Time from a node publishing an invalidation to this node applying it")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("cache.invalidation.published")
+                .description("Cache invalidations sent to the other nodes")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("cache.invalidation.applied")
+                .description("Cache invalidations from other nodes applied to the local caches")
+                .register(meterRegistry);
+        this.staleCounter = Counter.builder("cache.invalidation.stale")
+                .description("Cache invalidations ignored because a newer version was already seen")
+                .register(meterRegistry);
+
+        this.container = listenerContainer.getIfAvailable();
+        this.redisTemplate = container != null ? redisTemplate.getIfAvailable() : null;
+        if (container != null) {
+            container.addMessageListener(this, new ChannelTopic(channel));
+        } else {
+            log.info("Cache invalidation bus disabled, local caches rely on their TTLs across nodes");
+        }
+    }
+
+    /**
+     * Subscribe once Redis is reachable; from then on the container itself re-subscribes after
+     * connection loss
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.recovery-interval-ms:5000}")
+    public void ensureSubscribed() {
+        if (container == null || redisTemplate == null || subscribed) {
+            return;
+        }
+        try {
+            // Probe first: a container start against a dead server logs a stack trace per attempt
+            redisTemplate.execute(RedisConnection::ping);
+            container.start();
+            subscribed = true;
+            log.info("Subscribed to cache invalidations on {}", channel);
+        } catch (Exception ex) {
+            // A failed start leaves the container marked as started; reset it for the next attempt
+            container.stop();
+            if (!subscribeFailing) {
+                subscribeFailing = true;
+                log.warn("Could not subscribe to cache invalidations, retrying in the background: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run the handler for every invalidation of the entity type received from another node
+     */
+    public void subscribe(EntityType entityType, Consumer<CacheInvalidation> handler) {
+        handlers.get(entityType).add(handler);
+    }
+
+    /**
+     * Tell the other nodes that the row changed, once the surrounding transaction (if any) commits
+     */
+    public void publish(EntityType entityType, Long id, Long version, Long parentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(CacheInvalidation.of(entityType, id, version, parentId));
+                }
+            });
+        } else {
+            send(CacheInvalidation.of(entityType, id, version, parentId));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = CacheInvalidation.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring cache invalidation: {}", ex.getMessage());
+            return;
+        }
+        if (!advance(invalidation)) {
+            staleCounter.increment();
+            return;
+        }
+
+        for (Consumer<CacheInvalidation> handler : handlers.get(invalidation.entityType())) {
+            try {
+                handler.accept(invalidation);
+            } catch (Exception ex) {
+                log.error("Cache invalidation handler failed for {}", invalidation, ex);
+            }
+        }
+        appliedCounter.increment();
+        latencyTimer.record(Duration.ofMillis(Math.max(System.currentTimeMillis() - invalidation.sentAtMs(), 0)));
+    }
+
+    private void send(CacheInvalidation invalidation) {
+        advance(invalidation);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, invalidation.encode());
+            publishedCounter.increment();
+            if (publishFailing) {
+                publishFailing = false;
+                log.info("Cache invalidations are being published again");
+            }
+        } catch (Exception ex) {
+            if (!publishFailing) {
+                publishFailing = true;
+                log.warn("Could not publish cache invalidation {}, other nodes will serve cached entries until they expire: {}",
+                        invalidation, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record the invalidation's version for its row; false if an equal or newer one was already seen
+     */
+    private boolean advance(CacheInvalidation invalidation) {
+        boolean[] advanced = {false};
+        seenVersions.asMap().compute(invalidation.rowKey(), (key, seen) -> {
+            if (seen != null && seen >= invalidation.version()) {
+                return seen;
+            }
+            advanced[0] = true;
+            return invalidation.version();
+        });
+        return advanced[0];
+    }
+}
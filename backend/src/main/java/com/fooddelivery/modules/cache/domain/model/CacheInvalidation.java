@@ -0,0 +1,58 @@
+package com.fooddelivery.modules.cache.domain.model;
+
+/**
+ * One row changed: entity type, id and the row version after the change. parentId scopes the
+ * entry where caches are keyed by the owner (a product's restaurant), otherwise null. On the wire
+ * it is a short pipe-separated string, e.g. P|42|7|3|1760680200000.
+ */
+public record CacheInvalidation(EntityType entityType, long id, long version, Long parentId, long sentAtMs) {
+
+    public enum EntityType {
+        RESTAURANT('R'),
+        PRODUCT('P'),
+        USER('U');
+
+        private final char code;
+
+        EntityType(char code) {
+            this.code = code;
+        }
+
+        static EntityType fromCode(char code) {
+            for (EntityType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cache entity type: " + code);
+        }
+    }
+
+    public static CacheInvalidation of(EntityType entityType, Long id, Long version, Long parentId) {
+        return new CacheInvalidation(entityType, id, version != null ? version : 0L, parentId, System.currentTimeMillis());
+    }
+
+    /**
+     * Key of the row this invalidation is about, for per-row version tracking
+     */
+    public String rowKey() {
+        return entityType.code + ":" + id;
+    }
+
+    public String encode() {
+        return entityType.code + "|" + id + "|" + version + "|" + (parentId != null ? parentId : "") + "|" + sentAtMs;
+    }
+
+    public static CacheInvalidation decode(String message) {
+        String[] parts = message.split("\\|", -1);
+        if (parts.length != 5 || parts[0].length() != 1) {
+            throw new IllegalArgumentException("Malformed cache invalidation: " + message);
+        }
+        return new CacheInvalidation(
+                EntityType.fromCode(parts[0].charAt(0)),
+                Long.parseLong(parts[1]),
+                Long.parseLong(parts[2]),
+                parts[3].isEmpty() ? null : Long.parseLong(parts[3]),
+                Long.parseLong(parts[4]));
+    }
+}
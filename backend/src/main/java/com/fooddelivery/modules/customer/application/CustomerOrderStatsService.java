@@ -0,0 +1,225 @@
+package com.fooddelivery.modules.customer.application;
+
+import com.fooddelivery.model.entity.CustomerOrderStats;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.customer.domain.model.CustomerOrderStatsDelta;
+import com.fooddelivery.modules.customer.infra.CustomerOrderStatsRepository;
+import com.fooddelivery.modules.customer.infra.CustomerOrderStatsWriter;
+import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
+import com.fooddelivery.modules.order.domain.event.OrderPlacedEvent;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains customer_order_stats, the per-customer order counters shown on the profile.
+ * Order events are folded in incrementally after their transaction commits; a rebuild recomputes
+ * every row from the orders table in chunks of customer ids.
+ * <p>
+ * customer_order_stats_orders records the status each order is counted under, and a change is only
+ * folded in when it starts from that status, so events redelivered by the outbox are not counted
+ * twice. Incremental updates share-lock the customer row and a rebuild chunk locks its customers
+ * exclusively before reading the orders, so a chunk never overwrites a change it did not see.
+ */
+@Slf4j
+@Service
+public class CustomerOrderStatsService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final OrderRepository orderRepository;
+    private final CustomerOrderStatsRepository customerOrderStatsRepository;
+    private final CustomerOrderStatsWriter customerOrderStatsWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final long backfillChunkSize;
+    private final Executor taskExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public CustomerOrderStatsService(OrderRepository orderRepository,
+                                     CustomerOrderStatsRepository customerOrderStatsRepository,
+                                     CustomerOrderStatsWriter customerOrderStatsWriter,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                     Executor taskExecutor,
+                                     @Value("${app.customer.order-stats.backfill-on-startup:true}") boolean backfillOnStartup,
+                                     @Value("${app.customer.order-stats.backfill-chunk-size:1000}") long backfillChunkSize) {
+        this.orderRepository = orderRepository;
+        this.customerOrderStatsRepository = customerOrderStatsRepository;
+        this.customerOrderStatsWriter = customerOrderStatsWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillChunkSize = Math.max(backfillChunkSize, 1);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Stats of the customer; all zero for a customer without orders
+     */
+    public CustomerOrderStats getStats(Long customerId) {
+        return customerOrderStatsRepository.findById(customerId)
+                .orElseGet(() -> CustomerOrderStats.builder().customerId(customerId).build());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        applyOrderChange(event.getOrderId(), null, OrderStatus.PLACED);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOldStatus() != event.getNewStatus()) {
+            applyOrderChange(event.getOrderId(), event.getOldStatus(), event.getNewStatus());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        if (event.getPreviousStatus() != OrderStatus.CANCELLED) {
+            applyOrderChange(event.getOrderId(), event.getPreviousStatus(), OrderStatus.CANCELLED);
+        }
+    }
+
+    /**
+     * Populate the stats from history while no order is counted yet, which includes stats built
+     * before counted orders were recorded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && !customerOrderStatsWriter.hasOrders()) {
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * Start a full rebuild on the application task executor; no-op if one is already running
+     */
+    public void rebuildAsync() {
+        taskExecutor.execute(this::rebuildAll);
+    }
+
+    /**
+     * Recompute all stats from the orders table, one transaction per chunk of customer ids
+     */
+    public void rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Customer order stats rebuild already in progress");
+            return;
+        }
+        try {
+            List<Object[]> range = orderRepository.findCustomerIdRange();
+            if (range.isEmpty() || range.get(0)[0] == null) {
+                log.info("No orders to count for customer order stats");
+                return;
+            }
+            long minId = ((Number) range.get(0)[0]).longValue();
+            long maxId = ((Number) range.get(0)[1]).longValue();
+            long startedAt = System.currentTimeMillis();
+
+            int rows = 0;
+            for (long from = minId; from <= maxId; from += backfillChunkSize) {
+                rows += rebuildChunk(from, Math.min(from + backfillChunkSize - 1, maxId));
+            }
+            log.info("Rebuilt order stats of {} customers in {} ms", rows, System.currentTimeMillis() - startedAt);
+        } catch (Exception ex) {
+            log.error("Customer order stats rebuild failed", ex);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildChunk(long fromCustomerId, long toCustomerId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            // Order changes of these customers wait until the chunk commits, and it waits for theirs
+            customerOrderStatsRepository.lockCustomersForRebuild(fromCustomerId, toCustomerId);
+            customerOrderStatsWriter.recountCustomerRange(fromCustomerId, toCustomerId);
+            List<Object[]> totals = customerOrderStatsRepository.sumCountedOrdersByCustomerIdBetween(
+                    fromCustomerId, toCustomerId, OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+            List<CustomerOrderStatsDelta> stats = new ArrayList<>(totals.size());
+            for (Object[] row : totals) {
+                stats.add(new CustomerOrderStatsDelta((Long) row[0], ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(), ((Number) row[3]).longValue(),
+                        orZero(row[4]), (LocalDateTime) row[5]));
+            }
+            customerOrderStatsWriter.insertStats(stats);
+            return stats.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Move one order between the counters of its old and new status, unless that move is already
+     * counted. Failures are logged rather than propagated: the order change has already committed,
+     * and a rebuild repairs any drift.
+     */
+    private void applyOrderChange(Long orderId, OrderStatus from, OrderStatus to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Object[]> facts = orderRepository.findCustomerStatsFactsById(orderId);
+                    if (facts.isEmpty()) {
+                        return;
+                    }
+                    Long customerId = (Long) facts.get(0)[0];
+                    customerOrderStatsRepository.lockCustomerForDelta(customerId);
+                    if (customerOrderStatsWriter.moveOrder(orderId, customerId, from, to)) {
+                        CustomerOrderStatsDelta delta = deltaFor(facts.get(0), from, to);
+                        if (delta != null) {
+                            customerOrderStatsWriter.applyDelta(delta);
+                        }
+                    }
+                });
+                return;
+            } catch (DuplicateKeyException ex) {
+                // The customer's first two orders raced to create the row; the retry updates it instead
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Failed to update customer order stats for order {}", orderId, ex);
+                    return;
+                }
+            } catch (Exception ex) {
+                log.error("Failed to update customer order stats for order {}", orderId, ex);
+                return;
+            }
+        }
+    }
+
+    private static CustomerOrderStatsDelta deltaFor(Object[] order, OrderStatus from, OrderStatus to) {
+        long placed = from == null ? 1 : 0;
+        long delivered = countChange(OrderStatus.DELIVERED, from, to);
+        long cancelled = countChange(OrderStatus.CANCELLED, from, to);
+        if (placed == 0 && delivered == 0 && cancelled == 0) {
+            return null;
+        }
+        BigDecimal spend = orZero(order[2]).multiply(BigDecimal.valueOf(delivered));
+        return new CustomerOrderStatsDelta((Long) order[0], placed, delivered, cancelled, spend,
+                placed == 1 ? (LocalDateTime) order[1] : null);
+    }
+
+    private static long countChange(OrderStatus counted, OrderStatus from, OrderStatus to) {
+        return (to == counted ? 1 : 0) - (from == counted ? 1 : 0);
+    }
+
+    private static BigDecimal orZero(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+}
@@ -6,14 +6,14 @@ import com.fooddelivery.modules.customer.domain.dto.ChangePasswordRequest;
 import com.fooddelivery.modules.customer.domain.dto.AddressDTO;
 import com.fooddelivery.modules.customer.domain.dto.CreateAddressRequest;
 import com.fooddelivery.modules.customer.domain.dto.UpdateAddressRequest;
+import com.fooddelivery.model.entity.CustomerOrderStats;
 import com.fooddelivery.model.entity.User;
 import com.fooddelivery.model.entity.UserAddress;
-import com.fooddelivery.model.enums.OrderStatus;
 import com.fooddelivery.repository.UserRepository;
 import com.fooddelivery.repository.UserAddressRepository;
-import com.fooddelivery.modules.order.infra.OrderRepository;
 import com.fooddelivery.exception.ResourceNotFoundException;
 import com.fooddelivery.exception.UnauthorizedAccessException;
+import com.fooddelivery.security.UserStateCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,8 +31,9 @@ public class CustomerService {
 
     private final UserRepository userRepository;
     private final UserAddressRepository addressRepository;
-    private final OrderRepository orderRepository;
+    private final CustomerOrderStatsService customerOrderStatsService;
     private final PasswordEncoder passwordEncoder;
+    private final UserStateCache userStateCache;
 
     /**
      * Get customer profile
@@ -44,12 +45,7 @@ public class CustomerService {
         User user = userRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Long totalOrders = (long) orderRepository.findByCustomerIdOrderByPlacedAtDesc(customerId, null)
-                .getNumberOfElements();
-        Long completedOrders = (long) orderRepository.findByCustomerIdOrderByPlacedAtDesc(customerId, null)
-                .getContent().stream()
-                .filter(order -> order.getStatus() == OrderStatus.DELIVERED)
-                .count();
+        CustomerOrderStats stats = customerOrderStatsService.getStats(customerId);
 
         return ProfileDTO.builder()
                 .id(user.getId())
@@ -62,8 +58,11 @@ public class CustomerService {
                 .isVerified(user.getIsVerified())
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
-                .totalOrders(totalOrders)
-                .totalCompletedOrders(completedOrders)
+                .totalOrders(stats.getTotalOrders())
+                .totalCompletedOrders(stats.getDeliveredOrders())
+                .totalCancelledOrders(stats.getCancelledOrders())
+                .lifetimeSpend(stats.getLifetimeSpend())
+                .lastOrderAt(stats.getLastOrderAt())
                 .build();
     }
 
@@ -89,7 +88,8 @@ public class CustomerService {
             user.setProfileImageUrl(request.getProfileImageUrl());
         }
 
-        userRepository.save(user);
+        user = userRepository.saveAndFlush(user);
+        userStateCache.invalidate(customerId, user.getVersion());
         log.info("Profile updated successfully");
 
         return getProfile(customerId);
@@ -109,7 +109,8 @@ public class CustomerService {
         }
 
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        user = userRepository.saveAndFlush(user);
+        userStateCache.invalidate(customerId, user.getVersion());
 
         log.info("Password changed successfully");
     }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -24,4 +25,7 @@ public class ProfileDTO {
     private LocalDateTime updatedAt;
     private Long totalOrders;
     private Long totalCompletedOrders;
+    private Long totalCancelledOrders;
+    private BigDecimal lifetimeSpend; // total of delivered orders
+    private LocalDateTime lastOrderAt;
 }
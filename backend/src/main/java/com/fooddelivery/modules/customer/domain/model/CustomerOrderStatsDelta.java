@@ -0,0 +1,16 @@
+package com.fooddelivery.modules.customer.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Change to apply to one customer_order_stats row, or the full row contents during a rebuild.
+ * lastOrderAt only ever moves the stored value forward; null leaves it unchanged.
+ */
+public record CustomerOrderStatsDelta(Long customerId,
+                                      long totalOrders,
+                                      long deliveredOrders,
+                                      long cancelledOrders,
+                                      BigDecimal lifetimeSpend,
+                                      LocalDateTime lastOrderAt) {
+}
@@ -0,0 +1,51 @@
+package com.fooddelivery.modules.customer.infra;
+
+import com.fooddelivery.model.entity.CustomerOrderStats;
+import com.fooddelivery.model.enums.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CustomerOrderStatsRepository extends JpaRepository<CustomerOrderStats, Long> {
+
+    /**
+     * One row per customer in the id range with counted orders:
+     * [customerId, orders, delivered, cancelled, delivered amount, last placedAt];
+     * the delivered amount is null for customers without delivered orders. Statuses are the
+     * counted ones, so the totals agree with customer_order_stats_orders.
+     */
+    @Query("SELECT c.customerId, COUNT(c), " +
+           "SUM(CASE WHEN c.status = :delivered THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.status = :cancelled THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN c.status = :delivered THEN o.totalAmount END), " +
+           "MAX(o.placedAt) " +
+           "FROM CountedCustomerOrder c JOIN Order o ON o.id = c.orderId " +
+           "WHERE c.customerId BETWEEN :fromCustomerId AND :toCustomerId " +
+           "GROUP BY c.customerId")
+    List<Object[]> sumCountedOrdersByCustomerIdBetween(@Param("fromCustomerId") Long fromCustomerId,
+                                                       @Param("toCustomerId") Long toCustomerId,
+                                                       @Param("delivered") OrderStatus delivered,
+                                                       @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Share-lock the customer row while an order change is folded into their stats; a rebuild of
+     * the customer waits for the change to commit and vice versa
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT u.id FROM User u WHERE u.id = :customerId")
+    List<Long> lockCustomerForDelta(@Param("customerId") Long customerId);
+
+    /**
+     * Lock the customer rows of a rebuild chunk against concurrent order changes, in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.id FROM User u WHERE u.id BETWEEN :fromCustomerId AND :toCustomerId ORDER BY u.id")
+    List<Long> lockCustomersForRebuild(@Param("fromCustomerId") Long fromCustomerId,
+                                       @Param("toCustomerId") Long toCustomerId);
+}
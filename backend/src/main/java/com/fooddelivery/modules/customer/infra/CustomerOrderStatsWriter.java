@@ -0,0 +1,124 @@
+package com.fooddelivery.modules.customer.infra;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.customer.domain.model.CustomerOrderStatsDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC writer for customer_order_stats and customer_order_stats_orders.
+ * Increments are applied as relative UPDATEs so concurrent writers never lose each other's
+ * changes; a missing row is inserted afterwards. Callers run inside a transaction and retry it
+ * on DuplicateKeyException.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerOrderStatsWriter {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE customer_order_stats SET total_orders = total_orders + ?, " +
+            "delivered_orders = delivered_orders + ?, cancelled_orders = cancelled_orders + ?, " +
+            "lifetime_spend = lifetime_spend + ?, " +
+            "last_order_at = CASE WHEN last_order_at IS NULL OR last_order_at < ? THEN ? ELSE last_order_at END, " +
+            "updated_at = ? WHERE customer_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO customer_order_stats (customer_id, total_orders, delivered_orders, cancelled_orders, " +
+            "lifetime_spend, last_order_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM customer_order_stats WHERE customer_id BETWEEN ? AND ?";
+
+    private static final String ADD_ORDER_SQL =
+            "INSERT INTO customer_order_stats_orders (order_id, customer_id, status) SELECT " +
+            "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(50)) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM customer_order_stats_orders WHERE order_id = ?)";
+
+    private static final String MOVE_ORDER_SQL =
+            "UPDATE customer_order_stats_orders SET status = ? WHERE order_id = ? AND status = ?";
+
+    private static final String COPY_ORDERS_RANGE_SQL =
+            "INSERT INTO customer_order_stats_orders (order_id, customer_id, status) " +
+            "SELECT id, customer_id, status FROM orders WHERE customer_id BETWEEN ? AND ?";
+
+    private static final String DELETE_ORDERS_RANGE_SQL =
+            "DELETE FROM customer_order_stats_orders WHERE customer_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add the delta to the customer's row, creating the row if missing
+     */
+    public void applyDelta(CustomerOrderStatsDelta delta) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp lastOrderAt = delta.lastOrderAt() != null ? Timestamp.valueOf(delta.lastOrderAt()) : null;
+        int updated = jdbcTemplate.update(INCREMENT_SQL, ps -> {
+            ps.setLong(1, delta.totalOrders());
+            ps.setLong(2, delta.deliveredOrders());
+            ps.setLong(3, delta.cancelledOrders());
+            ps.setBigDecimal(4, delta.lifetimeSpend());
+            // Typed even when null, so the server can infer the parameter type
+            ps.setTimestamp(5, lastOrderAt);
+            ps.setTimestamp(6, lastOrderAt);
+            ps.setTimestamp(7, now);
+            ps.setLong(8, delta.customerId());
+        });
+        if (updated == 0) {
+            insert(List.of(delta), now);
+        }
+    }
+
+    /**
+     * Record that the order moved from one status to another (from null when it was placed);
+     * false if the move was already counted, so its delta must not be applied again
+     */
+    public boolean moveOrder(long orderId, long customerId, OrderStatus from, OrderStatus to) {
+        int updated = from == null
+                ? jdbcTemplate.update(ADD_ORDER_SQL, orderId, customerId, to.name(), orderId)
+                : jdbcTemplate.update(MOVE_ORDER_SQL, to.name(), orderId, from.name());
+        return updated == 1;
+    }
+
+    /**
+     * Drop the stats of all customers in [fromCustomerId, toCustomerId] and count their orders
+     * afresh under the status the orders table has now
+     */
+    public void recountCustomerRange(long fromCustomerId, long toCustomerId) {
+        jdbcTemplate.update(DELETE_RANGE_SQL, fromCustomerId, toCustomerId);
+        jdbcTemplate.update(DELETE_ORDERS_RANGE_SQL, fromCustomerId, toCustomerId);
+        jdbcTemplate.update(COPY_ORDERS_RANGE_SQL, fromCustomerId, toCustomerId);
+    }
+
+    /**
+     * Whether any order is counted yet, i.e. the stats were built at least once
+     */
+    public boolean hasOrders() {
+        return !jdbcTemplate.queryForList("SELECT order_id FROM customer_order_stats_orders LIMIT 1").isEmpty();
+    }
+
+    /**
+     * Insert stats rows, e.g. the totals of a rebuilt chunk
+     */
+    public void insertStats(List<CustomerOrderStatsDelta> rows) {
+        if (!rows.isEmpty()) {
+            insert(rows, Timestamp.valueOf(LocalDateTime.now()));
+        }
+    }
+
+    private void insert(List<CustomerOrderStatsDelta> rows, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, 1000, (ps, row) -> {
+            ps.setLong(1, row.customerId());
+            ps.setLong(2, row.totalOrders());
+            ps.setLong(3, row.deliveredOrders());
+            ps.setLong(4, row.cancelledOrders());
+            ps.setBigDecimal(5, row.lifetimeSpend());
+            ps.setTimestamp(6, row.lastOrderAt() != null ? Timestamp.valueOf(row.lastOrderAt()) : null);
+            ps.setTimestamp(7, now);
+        });
+    }
+}
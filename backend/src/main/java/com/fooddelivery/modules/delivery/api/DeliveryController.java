@@ -1,5 +1,6 @@
 package com.fooddelivery.modules.delivery.api;
 
+import com.fooddelivery.dto.response.CursorPage;
 import com.fooddelivery.modules.delivery.application.DeliveryService;
 import com.fooddelivery.modules.delivery.domain.dto.DeliveryAssignmentDTO;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,21 @@ public class DeliveryController {
         return ResponseEntity.ok(deliveryService.getAgentOrders(agentId, pageable));
     }
 
+    /**
+     * Get delivery agent's assigned orders, keyset-paginated without a total count
+     * GET /api/v1/delivery/my-orders/cursor?size=20&cursor=...
+     */
+    @GetMapping("/my-orders/cursor")
+    @PreAuthorize("hasRole('DELIVERY_AGENT')")
+    public ResponseEntity<CursorPage<DeliveryAssignmentDTO>> getMyOrdersByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching delivery orders for agent by cursor");
+        Long agentId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(deliveryService.getAgentOrders(agentId, cursor, size));
+    }
+
     /**
      * Accept delivery assignment
      * POST /api/v1/delivery/assignments/{assignmentId}/accept
@@ -75,7 +91,7 @@ public class DeliveryController {
             @RequestParam Double latitude,
             @RequestParam Double longitude,
             Authentication authentication) {
-        log.info("Updating delivery agent location: ({}, {})", latitude, longitude);
+        log.debug("Updating delivery agent location: ({}, {})", latitude, longitude);
         Long agentId = extractUserIdFromAuth(authentication);
         deliveryService.updateAgentLocation(agentId, latitude, longitude);
         return ResponseEntity.ok().build();
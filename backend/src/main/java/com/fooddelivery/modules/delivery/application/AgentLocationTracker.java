@@ -0,0 +1,165 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.modules.delivery.domain.model.AgentLocationFix;
+import com.fooddelivery.model.entity.AgentPosition;
+import com.fooddelivery.modules.delivery.infra.AgentLocationBatchWriter;
+import com.fooddelivery.modules.delivery.infra.AgentPositionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * High-rate agent location ingestion.
+ * Keeps the latest fix per agent plus a bounded ring of recent fixes in memory,
+ * and hands fixes to a background writer that batch-inserts them into agent_locations.
+ * Each flush also moves the shared agent_positions rows, so every node sees agents
+ * that report to another node (up to one flush interval late).
+ */
+@Slf4j
+@Component
+public class AgentLocationTracker {
+
+    private final AgentLocationBatchWriter batchWriter;
+    private final AgentPositionRepository agentPositionRepository;
+    private final int historySize;
+    private final int flushBatchSize;
+
+    private final Map<Long, AgentTrack> tracks = new ConcurrentHashMap<>();
+    private final BlockingQueue<AgentLocationFix> pendingWrites;
+    private final AtomicLong droppedWrites = new AtomicLong();
+
+    public AgentLocationTracker(AgentLocationBatchWriter batchWriter,
+                                AgentPositionRepository agentPositionRepository,
+                                @Value("${app.delivery.location.history-size:32}") int historySize,
+                                @Value("${app.delivery.location.max-pending-writes:100000}") int maxPendingWrites,
+                                @Value("${app.delivery.location.flush-batch-size:1000}") int flushBatchSize) {
+        this.batchWriter = batchWriter;
+        this.agentPositionRepository = agentPositionRepository;
+        this.historySize = historySize;
+        this.flushBatchSize = flushBatchSize;
+        this.pendingWrites = new ArrayBlockingQueue<>(maxPendingWrites);
+    }
+
+    /**
+     * Record a location report; never touches the database on the caller's thread
+     */
+    public void record(Long agentId, double latitude, double longitude, Double accuracyMeters) {
+        AgentLocationFix fix = new AgentLocationFix(agentId, latitude, longitude, accuracyMeters, LocalDateTime.now());
+        tracks.computeIfAbsent(agentId, id -> new AgentTrack(historySize)).append(fix);
+
+        if (!pendingWrites.offer(fix)) {
+            long dropped = droppedWrites.incrementAndGet();
+            if (dropped % 10_000 == 1) {
+                log.warn("Agent location write queue full, {} fixes dropped so far", dropped);
+            }
+        }
+    }
+
+    /**
+     * Latest known position of an agent
+     */
+    public Optional<AgentLocationFix> getLatest(Long agentId) {
+        AgentTrack track = tracks.get(agentId);
+        return track == null ? Optional.empty() : Optional.ofNullable(track.latest);
+    }
+
+    /**
+     * Recent positions of an agent, oldest first
+     */
+    public List<AgentLocationFix> getRecent(Long agentId) {
+        AgentTrack track = tracks.get(agentId);
+        return track == null ? List.of() : track.snapshot();
+    }
+
+    /**
+     * Latest positions of all agents that reported after the given time, to any node. Fixes
+     * this node has not flushed yet win over the shared rows.
+     */
+    public List<AgentLocationFix> getActiveSince(LocalDateTime since) {
+        Map<Long, AgentLocationFix> active = new HashMap<>();
+        for (AgentPosition position : agentPositionRepository.findByRecordedAtAfter(since)) {
+            active.put(position.getAgentId(), new AgentLocationFix(position.getAgentId(), position.getLatitude(),
+                    position.getLongitude(), position.getAccuracyMeters(), position.getRecordedAt()));
+        }
+        for (AgentTrack track : tracks.values()) {
+            AgentLocationFix latest = track.latest;
+            if (latest != null && latest.recordedAt().isAfter(since)) {
+                active.merge(latest.agentId(), latest, (shared, local) ->
+                        local.recordedAt().isAfter(shared.recordedAt()) ? local : shared);
+            }
+        }
+        return new ArrayList<>(active.values());
+    }
+
+    /**
+     * Drain queued fixes into agent_locations in batches
+     */
+    @Scheduled(fixedDelayString = "${app.delivery.location.flush-interval-ms:2000}")
+    public void flush() {
+        List<AgentLocationFix> batch = new ArrayList<>(Math.min(flushBatchSize, pendingWrites.size()));
+        while (pendingWrites.drainTo(batch, flushBatchSize) > 0) {
+            try {
+                batchWriter.insertBatch(batch);
+            } catch (Exception ex) {
+                log.error("Failed to persist {} agent location fixes", batch.size(), ex);
+            }
+            try {
+                batchWriter.upsertPositions(batch);
+            } catch (Exception ex) {
+                log.error("Failed to update shared positions from {} agent location fixes", batch.size(), ex);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Per-agent state. The latest fix is read without locking; the ring buffer
+     * is guarded by the track itself so contention is limited to a single agent.
+     */
+    private static final class AgentTrack {
+        private final AgentLocationFix[] ring;
+        private int next;
+        private int count;
+        private volatile AgentLocationFix latest;
+
+        private AgentTrack(int capacity) {
+            this.ring = new AgentLocationFix[Math.max(capacity, 1)];
+        }
+
+        private synchronized void append(AgentLocationFix fix) {
+            ring[next] = fix;
+            next = (next + 1) % ring.length;
+            if (count < ring.length) {
+                count++;
+            }
+            latest = fix;
+        }
+
+        private synchronized List<AgentLocationFix> snapshot() {
+            List<AgentLocationFix> fixes = new ArrayList<>(count);
+            int start = (next - count + ring.length) % ring.length;
+            for (int i = 0; i < count; i++) {
+                fixes.add(ring[(start + i) % ring.length]);
+            }
+            return fixes;
+        }
+    }
+}
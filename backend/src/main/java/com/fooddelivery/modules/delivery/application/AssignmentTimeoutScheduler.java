@@ -0,0 +1,136 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.model.enums.AssignmentStatus;
+import com.fooddelivery.modules.delivery.domain.event.AssignmentExpiredEvent;
+import com.fooddelivery.modules.delivery.infra.DeliveryAssignmentRepository;
+import com.fooddelivery.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces app.delivery.assignment-timeout-minutes on PENDING assignments.
+ * Every pending assignment holds one timer in a hierarchical timing wheel; a single
+ * ticker advances the wheel, expires due assignments with one conditional UPDATE and
+ * re-offers their orders through the dispatch engine.
+ */
+@Slf4j
+@Component
+public class AssignmentTimeoutScheduler {
+
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long timeoutMs;
+
+    private final HierarchicalTimingWheel<PendingAssignment> wheel;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<PendingAssignment>> timers = new ConcurrentHashMap<>();
+
+    public AssignmentTimeoutScheduler(DeliveryAssignmentRepository deliveryAssignmentRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.delivery.assignment-timeout-minutes:2}") long timeoutMinutes,
+                                      @Value("${app.delivery.timeout-wheel.tick-ms:1000}") long tickMs,
+                                      @Value("${app.delivery.timeout-wheel.wheel-size:64}") int wheelSize) {
+        this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeoutMs = timeoutMinutes * 60_000L;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Rebuild timers for assignments that were still pending when the node stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingAssignments() {
+        List<Object[]> pending = deliveryAssignmentRepository.findTimeoutsByStatus(AssignmentStatus.PENDING);
+        List<PendingAssignment> overdue = new ArrayList<>();
+        for (Object[] row : pending) {
+            PendingAssignment assignment = new PendingAssignment((Long) row[0], (Long) row[1]);
+            if (!schedule(assignment, (LocalDateTime) row[2])) {
+                overdue.add(assignment);
+            }
+        }
+        if (!overdue.isEmpty()) {
+            expire(overdue);
+        }
+        log.info("Recovered {} pending assignment timers ({} already overdue)", pending.size(), overdue.size());
+    }
+
+    /**
+     * Start the timeout clock for a newly offered assignment
+     */
+    public void track(Long assignmentId, Long orderId, LocalDateTime assignedAt) {
+        PendingAssignment pending = new PendingAssignment(assignmentId, orderId);
+        if (!schedule(pending, assignedAt)) {
+            expire(List.of(pending));
+        }
+    }
+
+    /**
+     * Stop the clock once an agent has answered
+     */
+    public void cancel(Long assignmentId) {
+        HierarchicalTimingWheel.Timeout<PendingAssignment> timeout = timers.remove(assignmentId);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    public int getPendingTimerCount() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.delivery.timeout-wheel.tick-ms:1000}")
+    public void tick() {
+        List<PendingAssignment> expired = wheel.advanceTo(System.currentTimeMillis());
+        if (!expired.isEmpty()) {
+            expired.forEach(p -> timers.remove(p.assignmentId()));
+            expire(expired);
+        }
+    }
+
+    private boolean schedule(PendingAssignment pending, LocalDateTime assignedAt) {
+        LocalDateTime offeredAt = assignedAt != null ? assignedAt : LocalDateTime.now();
+        long deadline = offeredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + timeoutMs;
+        HierarchicalTimingWheel.Timeout<PendingAssignment> timeout = wheel.schedule(pending, deadline);
+        if (timeout == null) {
+            return false;
+        }
+        timers.put(pending.assignmentId(), timeout);
+        return true;
+    }
+
+    private void expire(List<PendingAssignment> expired) {
+        List<Long> ids = new ArrayList<>(expired.size());
+        expired.forEach(p -> ids.add(p.assignmentId()));
+        try {
+            Integer updated = transactionTemplate.execute(status -> deliveryAssignmentRepository.updateStatusWhereStatus(
+                    ids, AssignmentStatus.PENDING, AssignmentStatus.EXPIRED, LocalDateTime.now()));
+            log.info("Expired {} of {} timed-out delivery assignments", updated, ids.size());
+        } catch (Exception ex) {
+            log.error("Failed to expire {} delivery assignments", ids.size(), ex);
+            return;
+        }
+        // Assignments answered in the meantime were left untouched by the PENDING guard;
+        // re-offering their orders is a no-op because dispatch skips orders with open assignments.
+        expired.forEach(p -> eventPublisher.publishEvent(new AssignmentExpiredEvent(p.assignmentId(), p.orderId())));
+    }
+
+    private record PendingAssignment(Long assignmentId, Long orderId) {
+    }
+}
@@ -1,22 +1,35 @@
 package com.fooddelivery.modules.delivery.application;
 
+import com.fooddelivery.dto.response.CursorPage;
 import com.fooddelivery.modules.delivery.domain.dto.DeliveryAssignmentDTO;
+import com.fooddelivery.modules.delivery.domain.event.AssignmentRejectedEvent;
 import com.fooddelivery.modules.delivery.infra.DeliveryAssignmentRepository;
 import com.fooddelivery.model.entity.DeliveryAssignment;
 import com.fooddelivery.model.entity.Order;
 import com.fooddelivery.model.enums.AssignmentStatus;
 import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.order.application.EtaEngine;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.domain.model.OrderStatusTransitions;
 import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.modules.outbox.application.OutboxPublisher;
+import com.fooddelivery.exception.InvalidStatusTransitionException;
 import com.fooddelivery.exception.ResourceNotFoundException;
 import com.fooddelivery.exception.UnauthorizedAccessException;
+import com.fooddelivery.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,8 +37,15 @@ import java.time.LocalDateTime;
 @Transactional
 public class DeliveryService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
     private final OrderRepository orderRepository;
+    private final AgentLocationTracker agentLocationTracker;
+    private final AssignmentTimeoutScheduler assignmentTimeoutScheduler;
+    private final OutboxPublisher outboxPublisher;
+    private final EtaEngine etaEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get delivery agent's assigned orders
@@ -38,36 +58,68 @@ public class DeliveryService {
     }
 
     /**
-     * Accept delivery assignment
+     * Get delivery agent's assigned orders, keyset-paginated from a cursor without a total count
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<DeliveryAssignmentDTO> getAgentOrders(Long agentId, String cursor, int size) {
+        log.info("Fetching orders for delivery agent: {} after cursor", agentId);
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // One extra row tells whether another page follows
+        Pageable window = PageRequest.of(0, limit + 1);
+        List<DeliveryAssignment> rows = after == null
+                ? deliveryAssignmentRepository.findFirstAgentAssignments(agentId, window)
+                : deliveryAssignmentRepository.findAgentAssignmentsBefore(agentId, after.timestamp(), after.id(), window);
+
+        boolean hasNext = rows.size() > limit;
+        List<DeliveryAssignment> page = hasNext ? rows.subList(0, limit) : rows;
+        DeliveryAssignment last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return CursorPage.<DeliveryAssignmentDTO>builder()
+                .content(page.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .nextCursor(hasNext ? new KeysetCursor(last.getAssignedAt(), last.getId()).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    /**
+     * Accept delivery assignment. The PENDING guard lives in the UPDATE itself, so of several
+     * answers for the same assignment (or an answer racing its timeout) exactly one wins.
      */
     public DeliveryAssignmentDTO acceptAssignment(Long assignmentId, Long agentId) {
         log.info("Accepting delivery assignment: {} by agent: {}", assignmentId, agentId);
 
-        DeliveryAssignment assignment = deliveryAssignmentRepository.findById(assignmentId)
+        Long orderId = deliveryAssignmentRepository.findOrderIdById(assignmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
 
-        // Verify agent owns this assignment
-        if (!assignment.getDeliveryAgent().getId().equals(agentId)) {
-            throw new UnauthorizedAccessException("You cannot accept this assignment");
-        }
+        // Accepts of sibling offers for the same order queue up on the order row lock,
+        // so they settle one after another instead of deadlocking on each other's rows
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
 
-        // Verify assignment is still pending
-        if (assignment.getStatus() != AssignmentStatus.PENDING) {
-            throw new IllegalStateException("Assignment is not in PENDING status");
+        LocalDateTime now = LocalDateTime.now();
+        if (deliveryAssignmentRepository.acceptWhereStatus(assignmentId, agentId,
+                AssignmentStatus.PENDING, AssignmentStatus.ACCEPTED, now) == 0) {
+            throw notAnswerable(assignmentId, agentId, "accept");
         }
+        // Withdraw the other open offers for this order; their timers fire later as no-ops
+        int withdrawn = deliveryAssignmentRepository.updateSiblingStatusWhereStatus(
+                orderId, assignmentId, AssignmentStatus.PENDING, AssignmentStatus.CANCELLED);
 
-        assignment.setStatus(AssignmentStatus.ACCEPTED);
-        assignment.setAcceptedAt(LocalDateTime.now());
+        DeliveryAssignment assignment = deliveryAssignmentRepository.findWithDetailsById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
 
-        Order order = assignment.getOrder();
+        OrderStatus oldStatus = order.getStatus();
+        OrderStatusTransitions.check(oldStatus, OrderStatus.ASSIGNED);
         order.setStatus(OrderStatus.ASSIGNED);
         order.setDeliveryAgent(assignment.getDeliveryAgent());
+        etaEngine.refresh(order);
         orderRepository.save(order);
+        outboxPublisher.append(order.getId(), new OrderStatusChangedEvent(order.getId(), oldStatus, OrderStatus.ASSIGNED, agentId));
 
-        DeliveryAssignment updated = deliveryAssignmentRepository.save(assignment);
-        log.info("Assignment {} accepted by agent {}", assignmentId, agentId);
+        assignmentTimeoutScheduler.cancel(assignmentId);
+        log.info("Assignment {} accepted by agent {}, {} sibling offers withdrawn", assignmentId, agentId, withdrawn);
 
-        return mapToDTO(updated);
+        return mapToDTO(assignment);
     }
 
     /**
@@ -76,30 +128,40 @@ public class DeliveryService {
     public void rejectAssignment(Long assignmentId, Long agentId) {
         log.info("Rejecting delivery assignment: {} by agent: {}", assignmentId, agentId);
 
-        DeliveryAssignment assignment = deliveryAssignmentRepository.findById(assignmentId)
+        if (deliveryAssignmentRepository.rejectWhereStatus(assignmentId, agentId,
+                AssignmentStatus.PENDING, AssignmentStatus.REJECTED, LocalDateTime.now()) == 0) {
+            throw notAnswerable(assignmentId, agentId, "reject");
+        }
+        assignmentTimeoutScheduler.cancel(assignmentId);
+        // The timer that would have re-offered the order is gone; re-offer it once the reject commits
+        Long orderId = deliveryAssignmentRepository.findOrderIdById(assignmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+        eventPublisher.publishEvent(new AssignmentRejectedEvent(assignmentId, orderId));
 
-        if (!assignment.getDeliveryAgent().getId().equals(agentId)) {
-            throw new UnauthorizedAccessException("You cannot reject this assignment");
-        }
+        log.info("Assignment {} rejected by agent {}", assignmentId, agentId);
+    }
 
-        if (assignment.getStatus() != AssignmentStatus.PENDING) {
-            throw new IllegalStateException("Assignment is not in PENDING status");
+    /**
+     * Explain why a guarded accept/reject matched no row
+     */
+    private RuntimeException notAnswerable(Long assignmentId, Long agentId, String action) {
+        DeliveryAssignment assignment = deliveryAssignmentRepository.findById(assignmentId).orElse(null);
+        if (assignment == null) {
+            return new ResourceNotFoundException("Assignment not found");
         }
-
-        assignment.setStatus(AssignmentStatus.REJECTED);
-        assignment.setRejectedAt(LocalDateTime.now());
-        deliveryAssignmentRepository.save(assignment);
-
-        log.info("Assignment {} rejected by agent {}", assignmentId, agentId);
+        if (!assignment.getDeliveryAgent().getId().equals(agentId)) {
+            return new UnauthorizedAccessException("You cannot " + action + " this assignment");
+        }
+        return new InvalidStatusTransitionException("Assignment is not in PENDING status");
     }
 
     /**
-     * Update agent location
+     * Update agent location (buffered in memory, persisted in batches)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateAgentLocation(Long agentId, Double latitude, Double longitude) {
-        log.info("Updating location for delivery agent: {} at ({}, {})", agentId, latitude, longitude);
-        // Location tracking service removed - implement if needed
+        log.debug("Updating location for delivery agent: {} at ({}, {})", agentId, latitude, longitude);
+        agentLocationTracker.record(agentId, latitude, longitude, null);
     }
 
     /**
@@ -115,13 +177,13 @@ public class DeliveryService {
             throw new UnauthorizedAccessException("You are not assigned to this order");
         }
 
-        if (order.getStatus() != OrderStatus.READY) {
-            throw new IllegalStateException("Order is not ready for pickup");
-        }
-
+        OrderStatus oldStatus = order.getStatus();
+        OrderStatusTransitions.checkPickup(oldStatus, order.getReadyAt());
         order.setStatus(OrderStatus.PICKED_UP);
         order.setPickedUpAt(LocalDateTime.now());
+        etaEngine.refresh(order);
         orderRepository.save(order);
+        outboxPublisher.append(orderId, new OrderStatusChangedEvent(orderId, oldStatus, OrderStatus.PICKED_UP, agentId));
 
         log.info("Order {} marked as picked up", orderId);
     }
@@ -139,13 +201,13 @@ public class DeliveryService {
             throw new UnauthorizedAccessException("You are not assigned to this order");
         }
 
-        if (order.getStatus() != OrderStatus.OUT_FOR_DELIVERY && order.getStatus() != OrderStatus.PICKED_UP) {
-            throw new IllegalStateException("Order is not in delivery status");
-        }
-
+        OrderStatus oldStatus = order.getStatus();
+        OrderStatusTransitions.check(oldStatus, OrderStatus.DELIVERED);
         order.setStatus(OrderStatus.DELIVERED);
         order.setDeliveredAt(LocalDateTime.now());
+        etaEngine.refresh(order);
         orderRepository.save(order);
+        outboxPublisher.append(orderId, new OrderStatusChangedEvent(orderId, oldStatus, OrderStatus.DELIVERED, agentId));
 
         log.info("Order {} marked as delivered", orderId);
     }
@@ -156,13 +218,14 @@ public class DeliveryService {
     @Transactional(readOnly = true)
     public DeliveryAssignmentDTO getAssignmentDetails(Long assignmentId) {
         log.info("Fetching delivery assignment details: {}", assignmentId);
-        DeliveryAssignment assignment = deliveryAssignmentRepository.findById(assignmentId)
+        DeliveryAssignment assignment = deliveryAssignmentRepository.findWithDetailsById(assignmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
         return mapToDTO(assignment);
     }
 
     /**
-     * Convert DeliveryAssignment entity to DTO
+     * Convert DeliveryAssignment entity to DTO. The pickup estimate reads the order's restaurant,
+     * so assignments mapped here are loaded with order.restaurant fetched.
      */
     private DeliveryAssignmentDTO mapToDTO(DeliveryAssignment assignment) {
         return DeliveryAssignmentDTO.builder()
@@ -175,6 +238,8 @@ public class DeliveryService {
                 .assignedAt(assignment.getAssignedAt())
                 .acceptedAt(assignment.getAcceptedAt())
                 .rejectedAt(assignment.getRejectedAt())
+                .estimatedPickupTime(etaEngine.estimatePickup(assignment.getOrder()))
+                .estimatedDeliveryTime(assignment.getOrder().getEstimatedDeliveryTime())
                 .build();
     }
 }
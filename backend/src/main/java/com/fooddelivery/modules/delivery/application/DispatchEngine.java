@@ -0,0 +1,332 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.model.entity.DeliveryAssignment;
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.AssignmentStatus;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.delivery.domain.event.AssignmentExpiredEvent;
+import com.fooddelivery.modules.delivery.domain.event.AssignmentRejectedEvent;
+import com.fooddelivery.modules.delivery.domain.model.AgentLocationFix;
+import com.fooddelivery.modules.delivery.infra.DeliveryAssignmentRepository;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Automatic dispatch of orders to delivery agents.
+ * Orders that become READY (or CONFIRMED, once they are within the prep-time
+ * lookahead) are collected over a short window and matched to online agents in
+ * one pass using a distance + load cost. Assignments are written in one transaction.
+ * The queue is in memory only; it is refilled from the orders table at startup and periodically.
+ * Every node runs rounds, so a round first claims its orders with FOR UPDATE SKIP LOCKED and
+ * orders held by another node's round are left to it. Agents come from the shared position
+ * table and are claimed the same way before their load is counted, so two rounds never fill
+ * the same agent's remaining capacity.
+ */
+@Slf4j
+@Component
+public class DispatchEngine {
+
+    private static final List<OrderStatus> DISPATCHABLE_STATUSES = List.of(
+            OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY);
+    private static final List<OrderStatus> AGENT_ACTIVE_STATUSES = List.of(
+            OrderStatus.ASSIGNED, OrderStatus.PICKED_UP, OrderStatus.OUT_FOR_DELIVERY);
+    private static final List<AssignmentStatus> OPEN_ASSIGNMENT_STATUSES = List.of(
+            AssignmentStatus.PENDING, AssignmentStatus.ACCEPTED);
+    private static final List<AssignmentStatus> DECLINED_ASSIGNMENT_STATUSES = List.of(
+            AssignmentStatus.REJECTED, AssignmentStatus.EXPIRED);
+
+    private final OrderRepository orderRepository;
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private final UserRepository userRepository;
+    private final AgentLocationTracker agentLocationTracker;
+    private final AssignmentTimeoutScheduler assignmentTimeoutScheduler;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxConcurrentDeliveries;
+    private final int lookaheadMinutes;
+    private final int agentStaleMinutes;
+    private final double maxPickupDistanceKm;
+    private final double loadPenaltyKm;
+
+    private final Map<Long, LocalDateTime> pendingOrders = new ConcurrentHashMap<>();
+
+    private final Timer matchTimer;
+    private final Counter assignmentsCounter;
+
+    public DispatchEngine(OrderRepository orderRepository,
+                          DeliveryAssignmentRepository deliveryAssignmentRepository,
+                          UserRepository userRepository,
+                          AgentLocationTracker agentLocationTracker,
+                          AssignmentTimeoutScheduler assignmentTimeoutScheduler,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.delivery.max-concurrent-deliveries:3}") int maxConcurrentDeliveries,
+                          @Value("${app.delivery.dispatch.lookahead-minutes:5}") int lookaheadMinutes,
+                          @Value("${app.delivery.dispatch.agent-stale-minutes:5}") int agentStaleMinutes,
+                          @Value("${app.delivery.dispatch.max-pickup-distance-km:10}") double maxPickupDistanceKm,
+                          @Value("${app.delivery.dispatch.load-penalty-km:2}") double loadPenaltyKm) {
+        this.orderRepository = orderRepository;
+        this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+        this.userRepository = userRepository;
+        this.agentLocationTracker = agentLocationTracker;
+        this.assignmentTimeoutScheduler = assignmentTimeoutScheduler;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxConcurrentDeliveries = maxConcurrentDeliveries;
+        this.lookaheadMinutes = lookaheadMinutes;
+        this.agentStaleMinutes = agentStaleMinutes;
+        this.maxPickupDistanceKm = maxPickupDistanceKm;
+        this.loadPenaltyKm = loadPenaltyKm;
+        this.matchTimer = Timer.builder("dispatch.match.latency")
+                .description("Time to match one batch of orders to agents")
+                .register(meterRegistry);
+        this.assignmentsCounter = Counter.builder("dispatch.assignments.created")
+                .description("Delivery assignments created by the dispatch engine")
+                .register(meterRegistry);
+        meterRegistry.gauge("dispatch.orders.pending", pendingOrders, Map::size);
+    }
+
+    /**
+     * Queue orders for dispatch once their status change is committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        OrderStatus newStatus = event.getNewStatus();
+        if (newStatus == OrderStatus.READY || newStatus == OrderStatus.CONFIRMED) {
+            submit(event.getOrderId());
+        } else if (!DISPATCHABLE_STATUSES.contains(newStatus)) {
+            pendingOrders.remove(event.getOrderId());
+        }
+    }
+
+    /**
+     * Re-offer orders whose assignment timed out to the next-best agent
+     */
+    @EventListener
+    public void onAssignmentExpired(AssignmentExpiredEvent event) {
+        submit(event.getOrderId());
+    }
+
+    /**
+     * Offer orders whose assignment was declined to the next-best agent, once the reject commits
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAssignmentRejected(AssignmentRejectedEvent event) {
+        submit(event.getOrderId());
+    }
+
+    /**
+     * Re-queue dispatchable orders that have no open offer. The queue only lives in memory, so
+     * orders queued on a node that stopped, or whose status event was lost, are picked up here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.delivery.dispatch.recovery-interval-ms:60000}",
+            fixedDelayString = "${app.delivery.dispatch.recovery-interval-ms:60000}")
+    public void recoverPendingOrders() {
+        try {
+            List<Long> orderIds = orderRepository.findUndispatchedIds(DISPATCHABLE_STATUSES, OPEN_ASSIGNMENT_STATUSES);
+            int before = pendingOrders.size();
+            orderIds.forEach(this::submit);
+            if (pendingOrders.size() > before) {
+                log.info("Re-queued {} undispatched orders for dispatch", pendingOrders.size() - before);
+            }
+        } catch (Exception ex) {
+            log.error("Failed to recover undispatched orders", ex);
+        }
+    }
+
+    /**
+     * Queue an order for the next dispatch round
+     */
+    public void submit(Long orderId) {
+        pendingOrders.putIfAbsent(orderId, LocalDateTime.now());
+    }
+
+    /**
+     * Match all due orders to agents
+     */
+    @Scheduled(fixedDelayString = "${app.delivery.dispatch.batch-window-ms:2000}")
+    public void dispatchPending() {
+        if (pendingOrders.isEmpty()) {
+            return;
+        }
+        Set<Long> orderIds = new HashSet<>(pendingOrders.keySet());
+        try {
+            Set<Long> matched = matchTimer.record(() -> transactionTemplate.execute(status -> dispatch(orderIds)));
+            if (matched != null && !matched.isEmpty()) {
+                // Only drop matched orders once their assignments are committed
+                matched.forEach(pendingOrders::remove);
+                assignmentsCounter.increment(matched.size());
+            }
+        } catch (Exception ex) {
+            log.error("Dispatch round for {} orders failed", orderIds.size(), ex);
+        }
+    }
+
+    private Set<Long> dispatch(Set<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Orders that are gone, no longer dispatchable or held by another node's round leave the
+        // queue; the recovery sweep re-queues any that other round fails to place
+        Set<Long> claimed = new HashSet<>(orderRepository.claimUndispatchedIds(orderIds, DISPATCHABLE_STATUSES));
+        orderIds.stream().filter(id -> !claimed.contains(id)).forEach(pendingOrders::remove);
+        if (claimed.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Order> candidates = new ArrayList<>();
+        for (Order order : orderRepository.findAllWithRestaurantByIdIn(claimed)) {
+            if (isDue(order, now)) {
+                candidates.add(order);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Long> candidateIds = candidates.stream().map(Order::getId).toList();
+        Set<Long> alreadyOffered = new HashSet<>(
+                deliveryAssignmentRepository.findOrderIdsWithStatusIn(candidateIds, OPEN_ASSIGNMENT_STATUSES));
+        candidates.removeIf(order -> {
+            if (alreadyOffered.contains(order.getId())) {
+                pendingOrders.remove(order.getId());
+                return true;
+            }
+            return false;
+        });
+
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        List<AgentLocationFix> agents = claimAgents(agentLocationTracker.getActiveSince(
+                now.minusMinutes(agentStaleMinutes)));
+        if (agents.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<Long, Integer> remainingCapacity = remainingCapacity(agents);
+        Map<Long, Set<Long>> declinedAgents = declinedAgentsByOrder(candidates);
+
+        List<Match> options = new ArrayList<>();
+        for (Order order : candidates) {
+            Restaurant restaurant = order.getRestaurant();
+            Set<Long> declined = declinedAgents.getOrDefault(order.getId(), Set.of());
+            for (AgentLocationFix agent : agents) {
+                int capacity = remainingCapacity.getOrDefault(agent.agentId(), 0);
+                if (capacity <= 0 || declined.contains(agent.agentId())) {
+                    continue;
+                }
+                double distance = GeoUtils.haversineDistance(agent.latitude(), agent.longitude(),
+                        restaurant.getLatitude(), restaurant.getLongitude());
+                if (distance <= maxPickupDistanceKm) {
+                    int load = maxConcurrentDeliveries - capacity;
+                    options.add(new Match(order.getId(), agent.agentId(), distance + load * loadPenaltyKm));
+                }
+            }
+        }
+
+        // Greedy min-cost matching: cheapest pairs first, each order once, agents up to capacity
+        options.sort(Comparator.comparingDouble(Match::cost));
+        Set<Long> matchedOrders = new HashSet<>();
+        List<DeliveryAssignment> assignments = new ArrayList<>();
+        for (Match match : options) {
+            if (matchedOrders.contains(match.orderId())) {
+                continue;
+            }
+            int capacity = remainingCapacity.getOrDefault(match.agentId(), 0);
+            if (capacity <= 0) {
+                continue;
+            }
+            remainingCapacity.put(match.agentId(), capacity - 1);
+            matchedOrders.add(match.orderId());
+            assignments.add(DeliveryAssignment.builder()
+                    .order(entityManager.getReference(Order.class, match.orderId()))
+                    .deliveryAgent(entityManager.getReference(User.class, match.agentId()))
+                    .status(AssignmentStatus.PENDING)
+                    .build());
+        }
+
+        deliveryAssignmentRepository.saveAll(assignments).forEach(a -> assignmentTimeoutScheduler.track(
+                a.getId(), a.getOrder().getId(), a.getAssignedAt()));
+
+        log.info("Dispatch round matched {} of {} orders across {} agents",
+                assignments.size(), candidates.size(), agents.size());
+        return matchedOrders;
+    }
+
+    private boolean isDue(Order order, LocalDateTime now) {
+        if (order.getStatus() == OrderStatus.READY) {
+            return true;
+        }
+        LocalDateTime confirmedAt = order.getConfirmedAt() != null ? order.getConfirmedAt() : order.getPlacedAt();
+        int prepMinutes = order.getRestaurant().getPrepTimeMinutes() != null
+                ? order.getRestaurant().getPrepTimeMinutes() : 30;
+        return !confirmedAt.plusMinutes(prepMinutes - lookaheadMinutes).isAfter(now);
+    }
+
+    /**
+     * Lock the reporting agents for the rest of the round; agents held by another node's round
+     * sit this one out
+     */
+    private List<AgentLocationFix> claimAgents(List<AgentLocationFix> reporting) {
+        if (reporting.isEmpty()) {
+            return reporting;
+        }
+        Set<Long> claimed = new HashSet<>(userRepository.claimActiveIdsWithRole(
+                reporting.stream().map(AgentLocationFix::agentId).toList(), UserRole.DELIVERY_AGENT));
+        return reporting.stream().filter(agent -> claimed.contains(agent.agentId())).toList();
+    }
+
+    private Map<Long, Integer> remainingCapacity(List<AgentLocationFix> agents) {
+        List<Long> agentIds = agents.stream().map(AgentLocationFix::agentId).toList();
+        Map<Long, Integer> capacity = new HashMap<>();
+        agentIds.forEach(id -> capacity.put(id, maxConcurrentDeliveries));
+
+        for (Object[] row : orderRepository.countByDeliveryAgentIdInAndStatusIn(agentIds, AGENT_ACTIVE_STATUSES)) {
+            capacity.merge((Long) row[0], -((Number) row[1]).intValue(), Integer::sum);
+        }
+        for (Object[] row : deliveryAssignmentRepository.countByDeliveryAgentIdInAndStatus(
+                agentIds, AssignmentStatus.PENDING)) {
+            capacity.merge((Long) row[0], -((Number) row[1]).intValue(), Integer::sum);
+        }
+        return capacity;
+    }
+
+    private Map<Long, Set<Long>> declinedAgentsByOrder(List<Order> orders) {
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, Set<Long>> declined = new HashMap<>();
+        for (Object[] row : deliveryAssignmentRepository.findOrderAgentPairsWithStatusIn(
+                orderIds, DECLINED_ASSIGNMENT_STATUSES)) {
+            declined.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        return declined;
+    }
+
+    private record Match(Long orderId, Long agentId, double cost) {
+    }
+}
@@ -21,4 +21,6 @@ public class DeliveryAssignmentDTO {
     private LocalDateTime assignedAt;
     private LocalDateTime acceptedAt;
     private LocalDateTime rejectedAt;
+    private LocalDateTime estimatedPickupTime;
+    private LocalDateTime estimatedDeliveryTime;
 }
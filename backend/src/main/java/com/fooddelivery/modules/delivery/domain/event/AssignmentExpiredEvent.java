@@ -0,0 +1,13 @@
+package com.fooddelivery.modules.delivery.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentExpiredEvent {
+    private Long assignmentId;
+    private Long orderId;
+}
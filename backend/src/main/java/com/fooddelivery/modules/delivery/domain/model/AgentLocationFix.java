@@ -0,0 +1,10 @@
+package com.fooddelivery.modules.delivery.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single position report from a delivery agent
+ */
+public record AgentLocationFix(Long agentId, double latitude, double longitude,
+                               Double accuracyMeters, LocalDateTime recordedAt) {
+}
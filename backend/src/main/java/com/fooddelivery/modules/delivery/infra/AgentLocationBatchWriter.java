@@ -0,0 +1,97 @@
+package com.fooddelivery.modules.delivery.infra;
+
+import com.fooddelivery.modules.delivery.domain.model.AgentLocationFix;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch writer for agent_locations and agent_positions.
+ * AgentLocation uses IDENTITY keys, which disables Hibernate insert batching,
+ * so fixes are written with a single multi-row batch instead. The latest fix
+ * per agent is then upserted into agent_positions for the dispatch engine.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AgentLocationBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO agent_locations (agent_id, latitude, longitude, accuracy_meters, is_online, recorded_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Only moves a position forward, so a node flushing an older fix cannot overwrite a newer one
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE agent_positions SET latitude = ?, longitude = ?, accuracy_meters = ?, recorded_at = ? " +
+            "WHERE agent_id = ? AND recorded_at < ?";
+
+    private static final String INSERT_POSITION_SQL =
+            "INSERT INTO agent_positions (agent_id, latitude, longitude, accuracy_meters, recorded_at) " +
+            "SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM agent_positions WHERE agent_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertBatch(List<AgentLocationFix> fixes) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, fixes, fixes.size(), (ps, fix) -> {
+            ps.setLong(1, fix.agentId());
+            ps.setDouble(2, fix.latitude());
+            ps.setDouble(3, fix.longitude());
+            setAccuracy(ps, 4, fix);
+            ps.setBoolean(5, true);
+            ps.setTimestamp(6, Timestamp.valueOf(fix.recordedAt()));
+        });
+    }
+
+    /**
+     * Move each agent's shared position to its latest fix in the batch
+     */
+    public void upsertPositions(List<AgentLocationFix> fixes) {
+        Map<Long, AgentLocationFix> latest = new HashMap<>();
+        for (AgentLocationFix fix : fixes) {
+            latest.merge(fix.agentId(), fix, (a, b) -> b.recordedAt().isAfter(a.recordedAt()) ? b : a);
+        }
+        List<AgentLocationFix> positions = new ArrayList<>(latest.values());
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, positions, positions.size(), (ps, fix) -> {
+            ps.setDouble(1, fix.latitude());
+            ps.setDouble(2, fix.longitude());
+            setAccuracy(ps, 3, fix);
+            ps.setTimestamp(4, Timestamp.valueOf(fix.recordedAt()));
+            ps.setLong(5, fix.agentId());
+            ps.setTimestamp(6, Timestamp.valueOf(fix.recordedAt()));
+        });
+        // Agents without a row yet; an agent whose row holds a newer fix is skipped by NOT EXISTS
+        List<AgentLocationFix> missing = new ArrayList<>();
+        for (int i = 0; i < positions.size(); i++) {
+            if (updated[0][i] == 0) {
+                missing.add(positions.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_POSITION_SQL, missing, missing.size(), (ps, fix) -> {
+            ps.setLong(1, fix.agentId());
+            ps.setDouble(2, fix.latitude());
+            ps.setDouble(3, fix.longitude());
+            setAccuracy(ps, 4, fix);
+            ps.setTimestamp(5, Timestamp.valueOf(fix.recordedAt()));
+            ps.setLong(6, fix.agentId());
+        });
+    }
+
+    private static void setAccuracy(PreparedStatement ps, int index, AgentLocationFix fix) throws SQLException {
+        if (fix.accuracyMeters() != null) {
+            ps.setDouble(index, fix.accuracyMeters());
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+}
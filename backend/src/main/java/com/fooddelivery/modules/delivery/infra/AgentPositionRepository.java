@@ -0,0 +1,14 @@
+package com.fooddelivery.modules.delivery.infra;
+
+import com.fooddelivery.model.entity.AgentPosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AgentPositionRepository extends JpaRepository<AgentPosition, Long> {
+
+    List<AgentPosition> findByRecordedAtAfter(LocalDateTime since);
+}
@@ -4,17 +4,102 @@ import com.fooddelivery.model.entity.DeliveryAssignment;
 import com.fooddelivery.model.enums.AssignmentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssignment, Long> {
     
+    @EntityGraph(attributePaths = {"order", "order.restaurant", "deliveryAgent"})
     Page<DeliveryAssignment> findByDeliveryAgentIdOrderByAssignedAtDesc(Long agentId, Pageable pageable);
     
+    // Keyset listing in (assignedAt DESC, id DESC) order; the Pageable only carries the limit, no count is run
+    @EntityGraph(attributePaths = {"order", "order.restaurant", "deliveryAgent"})
+    @Query("SELECT a FROM DeliveryAssignment a WHERE a.deliveryAgent.id = :agentId " +
+           "ORDER BY a.assignedAt DESC, a.id DESC")
+    List<DeliveryAssignment> findFirstAgentAssignments(@Param("agentId") Long agentId, Pageable limit);
+    
+    @EntityGraph(attributePaths = {"order", "order.restaurant", "deliveryAgent"})
+    @Query("SELECT a FROM DeliveryAssignment a WHERE a.deliveryAgent.id = :agentId " +
+           "AND (a.assignedAt < :assignedAt OR (a.assignedAt = :assignedAt AND a.id < :id)) " +
+           "ORDER BY a.assignedAt DESC, a.id DESC")
+    List<DeliveryAssignment> findAgentAssignmentsBefore(@Param("agentId") Long agentId,
+                                                        @Param("assignedAt") LocalDateTime assignedAt,
+                                                        @Param("id") Long id,
+                                                        Pageable limit);
+    
     List<DeliveryAssignment> findByOrderIdAndStatus(Long orderId, AssignmentStatus status);
     
     List<DeliveryAssignment> findByDeliveryAgentIdAndStatus(Long agentId, AssignmentStatus status);
+
+    // Dispatch queries
+    @Query("SELECT DISTINCT a.order.id FROM DeliveryAssignment a " +
+           "WHERE a.order.id IN :orderIds AND a.status IN :statuses")
+    List<Long> findOrderIdsWithStatusIn(@Param("orderIds") Collection<Long> orderIds,
+                                        @Param("statuses") Collection<AssignmentStatus> statuses);
+
+    @Query("SELECT a.order.id, a.deliveryAgent.id FROM DeliveryAssignment a " +
+           "WHERE a.order.id IN :orderIds AND a.status IN :statuses")
+    List<Object[]> findOrderAgentPairsWithStatusIn(@Param("orderIds") Collection<Long> orderIds,
+                                                   @Param("statuses") Collection<AssignmentStatus> statuses);
+
+    @Query("SELECT a.deliveryAgent.id, COUNT(a) FROM DeliveryAssignment a " +
+           "WHERE a.deliveryAgent.id IN :agentIds AND a.status = :status GROUP BY a.deliveryAgent.id")
+    List<Object[]> countByDeliveryAgentIdInAndStatus(@Param("agentIds") Collection<Long> agentIds,
+                                                     @Param("status") AssignmentStatus status);
+
+    // Timeout queries
+    @Query("SELECT a.id, a.order.id, a.assignedAt FROM DeliveryAssignment a WHERE a.status = :status")
+    List<Object[]> findTimeoutsByStatus(@Param("status") AssignmentStatus status);
+
+    @Modifying
+    @Query("UPDATE DeliveryAssignment a SET a.status = :newStatus, a.rejectedAt = :now " +
+           "WHERE a.id IN :ids AND a.status = :expectedStatus")
+    int updateStatusWhereStatus(@Param("ids") Collection<Long> ids,
+                                @Param("expectedStatus") AssignmentStatus expectedStatus,
+                                @Param("newStatus") AssignmentStatus newStatus,
+                                @Param("now") LocalDateTime now);
+
+    // Accept/reject queries: each answer is one conditional update, so only one of several
+    // concurrent answers (or a timeout) can move an assignment out of PENDING
+    @Query("SELECT a.order.id FROM DeliveryAssignment a WHERE a.id = :id")
+    Optional<Long> findOrderIdById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE DeliveryAssignment a SET a.status = :newStatus, a.acceptedAt = :now " +
+           "WHERE a.id = :id AND a.deliveryAgent.id = :agentId AND a.status = :expectedStatus")
+    int acceptWhereStatus(@Param("id") Long id,
+                          @Param("agentId") Long agentId,
+                          @Param("expectedStatus") AssignmentStatus expectedStatus,
+                          @Param("newStatus") AssignmentStatus newStatus,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE DeliveryAssignment a SET a.status = :newStatus, a.rejectedAt = :now " +
+           "WHERE a.id = :id AND a.deliveryAgent.id = :agentId AND a.status = :expectedStatus")
+    int rejectWhereStatus(@Param("id") Long id,
+                          @Param("agentId") Long agentId,
+                          @Param("expectedStatus") AssignmentStatus expectedStatus,
+                          @Param("newStatus") AssignmentStatus newStatus,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE DeliveryAssignment a SET a.status = :newStatus " +
+           "WHERE a.order.id = :orderId AND a.id <> :keptId AND a.status = :expectedStatus")
+    int updateSiblingStatusWhereStatus(@Param("orderId") Long orderId,
+                                       @Param("keptId") Long keptId,
+                                       @Param("expectedStatus") AssignmentStatus expectedStatus,
+                                       @Param("newStatus") AssignmentStatus newStatus);
+
+    @EntityGraph(attributePaths = {"order", "order.restaurant", "deliveryAgent"})
+    Optional<DeliveryAssignment> findWithDetailsById(Long id);
 }
@@ -0,0 +1,45 @@
+package com.fooddelivery.modules.delivery.infra;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the partial unique index that allows at most one PENDING offer per order. Dispatch
+ * rounds claim their orders with row locks, so the index is only a backstop; the schema update
+ * cannot express partial indexes, hence the explicit DDL. Skipped on databases other than
+ * PostgreSQL.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class PendingAssignmentIndexInitializer implements InitializingBean {
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS uq_assignments_pending_order " +
+            "ON delivery_assignments(order_id) WHERE status = 'PENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PendingAssignmentIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(CREATE_INDEX_SQL);
+        } catch (Exception ex) {
+            // Existing duplicates block the index; dispatch still works without it
+            log.warn("Could not create uq_assignments_pending_order, orders with several PENDING offers exist", ex);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.fooddelivery.modules.order.api;
 
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.modules.order.application.IdempotencyKeyStore;
 import com.fooddelivery.modules.order.application.OrderService;
+import com.fooddelivery.modules.order.domain.dto.BulkOrderStatusUpdateRequest;
+import com.fooddelivery.modules.order.domain.dto.BulkOrderStatusUpdateResultDTO;
 import com.fooddelivery.modules.order.domain.dto.OrderDTO;
 import com.fooddelivery.modules.order.domain.dto.CreateOrderRequest;
 import com.fooddelivery.model.enums.OrderStatus;
@@ -24,21 +28,34 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final IdempotencyKeyStore idempotencyKeyStore;
 
     /**
-     * Create a new order
+     * Create a new order; with an Idempotency-Key header, retries of the request return the order
+     * created by the first attempt
      * POST /api/v1/orders
      */
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<OrderDTO> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         log.info("Creating order for customer");
         Long customerId = extractUserIdFromAuth(authentication);
-        OrderDTO order = orderService.createOrder(request, customerId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        if (idempotencyKey == null) {
+            OrderDTO order = orderService.createOrder(request, customerId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        }
+        IdempotencyKeyStore.Result result = idempotencyKeyStore.execute(customerId, idempotencyKey, request,
+                () -> orderService.createOrder(request, customerId));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.order());
     }
 
     /**
@@ -66,6 +83,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getCustomerOrders(customerId, pageable));
     }
 
+    /**
+     * Get customer's orders, keyset-paginated without a total count
+     * GET /api/v1/orders/customer/my-orders/cursor?size=20&cursor=...
+     */
+    @GetMapping("/customer/my-orders/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<CursorPage<OrderDTO>> getCustomerOrdersByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching customer orders by cursor");
+        Long customerId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(orderService.getCustomerOrders(customerId, cursor, size));
+    }
+
     /**
      * Get filtered customer orders
      * GET /api/v1/orders/customer/filtered
@@ -83,6 +115,24 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getCustomerOrdersFiltered(customerId, status, fromDate, toDate, pageable));
     }
 
+    /**
+     * Get filtered customer orders, keyset-paginated without a total count
+     * GET /api/v1/orders/customer/filtered/cursor?status=DELIVERED&size=20&cursor=...
+     */
+    @GetMapping("/customer/filtered/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<CursorPage<OrderDTO>> getFilteredOrdersByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String fromDate,
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching filtered orders by cursor");
+        Long customerId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(orderService.getCustomerOrdersFiltered(customerId, status, fromDate, toDate, cursor, size));
+    }
+
     /**
      * Update order status
      * PATCH /api/v1/orders/{orderId}/status
@@ -98,6 +148,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.updateOrderStatus(orderId, status, userId));
     }
 
+    /**
+     * Update the status of many orders of one restaurant, with a result per order
+     * PATCH /api/v1/orders/restaurant/{restaurantId}/status
+     */
+    @PatchMapping("/restaurant/{restaurantId}/status")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public ResponseEntity<BulkOrderStatusUpdateResultDTO> updateOrderStatuses(
+            @PathVariable Long restaurantId,
+            @Valid @RequestBody BulkOrderStatusUpdateRequest request,
+            Authentication authentication) {
+        log.info("Updating status of {} orders of restaurant {}", request.getUpdates().size(), restaurantId);
+        Long ownerId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(orderService.updateOrderStatuses(restaurantId, request.getUpdates(), ownerId));
+    }
+
     /**
      * Cancel order
      * POST /api/v1/orders/{orderId}/cancel
@@ -143,6 +208,22 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getRestaurantOrders(restaurantId, status, pageable));
     }
 
+    /**
+     * Get restaurant orders, keyset-paginated without a total count
+     * GET /api/v1/orders/restaurant/my-orders/cursor?status=PLACED&size=20&cursor=...
+     */
+    @GetMapping("/restaurant/my-orders/cursor")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public ResponseEntity<CursorPage<OrderDTO>> getRestaurantOrdersByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching restaurant orders by cursor");
+        Long restaurantId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(orderService.getRestaurantOrders(restaurantId, status, cursor, size));
+    }
+
     /**
      * Get delivery agent orders
      * GET /api/v1/orders/delivery/my-orders
@@ -157,6 +238,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getDeliveryAgentOrders(agentId, pageable));
     }
 
+    /**
+     * Get delivery agent orders, keyset-paginated without a total count
+     * GET /api/v1/orders/delivery/my-orders/cursor?size=20&cursor=...
+     */
+    @GetMapping("/delivery/my-orders/cursor")
+    @PreAuthorize("hasRole('DELIVERY_AGENT')")
+    public ResponseEntity<CursorPage<OrderDTO>> getDeliveryAgentOrdersByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        log.info("Fetching delivery agent orders by cursor");
+        Long agentId = extractUserIdFromAuth(authentication);
+        return ResponseEntity.ok(orderService.getDeliveryAgentOrders(agentId, cursor, size));
+    }
+
     private Long extractUserIdFromAuth(Authentication authentication) {
         if (authentication != null && authentication.getPrincipal() instanceof com.fooddelivery.security.CustomUserDetails) {
             com.fooddelivery.security.CustomUserDetails userDetails = 
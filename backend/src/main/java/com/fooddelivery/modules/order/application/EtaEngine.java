@@ -0,0 +1,375 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.order.domain.dto.EtaReplayReportDTO;
+import com.fooddelivery.modules.order.domain.model.EtaModel;
+import com.fooddelivery.modules.order.domain.model.EtaModel.Stage;
+import com.fooddelivery.modules.order.domain.model.OrderTimeline;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.util.GeoUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Predicts pickup and delivery times from stage durations learned online (see EtaModel).
+ * Orders get an ETA at placement and a fresh one on every status change; the stage the change
+ * completed is learned once the change commits. Predictions run entirely in memory: restaurant
+ * location and prep time are remembered from placement. On startup the model is warmed up by
+ * replaying recent order history, which doubles as a benchmark of prediction error and cost.
+ * Stages learned live while the warm-up runs are replayed into the warmed model before it
+ * replaces the live one.
+ */
+@Slf4j
+@Component
+public class EtaEngine {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor taskExecutor;
+    private final double halfLifeSamples;
+    private final int minSamples;
+    private final double defaultConfirmSeconds;
+    private final double defaultHandoffSeconds;
+    private final double defaultSpeedKmh;
+    private final int warmupDays;
+    private final int defaultPrepMinutes;
+
+    private volatile EtaModel model;
+    private final Object modelLock = new Object();
+    // Stages learned while a warm-up runs, in order; null otherwise. Guarded by modelLock.
+    private List<Observation> warmupBacklog;
+    private final Map<Long, RestaurantProfile> restaurants = new ConcurrentHashMap<>();
+
+    private final DistributionSummary errorSummary;
+
+    public EtaEngine(OrderRepository orderRepository,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                     Executor taskExecutor,
+                     @Value("${app.order.eta.half-life-samples:200}") double halfLifeSamples,
+                     @Value("${app.order.eta.min-samples:20}") int minSamples,
+                     @Value("${app.order.eta.default-confirm-minutes:3}") double defaultConfirmMinutes,
+                     @Value("${app.order.eta.default-handoff-minutes:8}") double defaultHandoffMinutes,
+                     @Value("${app.order.eta.default-speed-kmh:20}") double defaultSpeedKmh,
+                     @Value("${app.order.eta.warmup-days:30}") int warmupDays,
+                     @Value("${app.order.preparation-time-default-minutes:30}") int defaultPrepMinutes) {
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.halfLifeSamples = Math.max(halfLifeSamples, 1);
+        this.minSamples = Math.max(minSamples, 1);
+        this.defaultConfirmSeconds = defaultConfirmMinutes * 60;
+        this.defaultHandoffSeconds = defaultHandoffMinutes * 60;
+        this.defaultSpeedKmh = defaultSpeedKmh;
+        this.warmupDays = warmupDays;
+        this.defaultPrepMinutes = Math.max(defaultPrepMinutes, 1);
+        this.model = newModel();
+
+        this.errorSummary = DistributionSummary.builder("eta.delivery.error")
+                .description("Absolute error of the last ETA given before delivery")
+                .baseUnit("minutes")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stamp the order with a fresh ETA for its current status; call after the status and its
+     * timestamp are set. The stage the status completes is learned after commit.
+     */
+    public void refresh(Order order) {
+        OrderStatus status = order.getStatus();
+        if (status == OrderStatus.CANCELLED) {
+            order.setEstimatedDeliveryTime(null);
+            return;
+        }
+        if (status == OrderStatus.PLACED) {
+            // The restaurant is loaded at placement; keep what later predictions need from it
+            restaurants.put(order.getRestaurant().getId(), profile(order.getRestaurant()));
+        }
+
+        OrderTimeline timeline = timeline(order);
+        if (status == OrderStatus.DELIVERED && order.getEstimatedDeliveryTime() != null && order.getDeliveredAt() != null) {
+            errorSummary.record(Math.abs(minutesBetween(order.getEstimatedDeliveryTime(), order.getDeliveredAt())));
+        }
+        order.setEstimatedDeliveryTime(model.predict(timeline, LocalDateTime.now()).deliveryAt());
+
+        Stage completed = completedStage(status);
+        if (completed == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    learn(timeline, completed);
+                }
+            });
+        } else {
+            learn(timeline, completed);
+        }
+    }
+
+    /**
+     * Expected pickup time of the order; the actual one once picked up, null if cancelled
+     */
+    public LocalDateTime estimatePickup(Order order) {
+        if (order.getPickedUpAt() != null || order.getStatus() == OrderStatus.CANCELLED) {
+            return order.getPickedUpAt();
+        }
+        return model.predict(timeline(order), LocalDateTime.now()).pickupAt();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpAsync() {
+        if (warmupDays <= 0) {
+            return;
+        }
+        synchronized (modelLock) {
+            warmupBacklog = new ArrayList<>();
+        }
+        taskExecutor.execute(() -> {
+            try {
+                EtaModel warmed = newModel();
+                EtaReplayReportDTO report = replay(warmed, warmupDays);
+                synchronized (modelLock) {
+                    warmupBacklog.forEach(observation -> warmed.observe(observation.timeline(), observation.stage()));
+                    model = warmed;
+                }
+                log.info("ETA model warmed up from {} orders of the last {} days in {} ms: placement MAE {} min " +
+                                "(p90 {} min, bias {} min), pickup MAE {} min, {} us per prediction",
+                        report.getOrders(), warmupDays, report.getDurationMs(), report.getPlacementMaeMinutes(),
+                        report.getPlacementP90ErrorMinutes(), report.getPlacementBiasMinutes(),
+                        report.getPickupMaeMinutes(), report.getMeanPredictionMicros());
+            } catch (Exception ex) {
+                log.error("ETA model warm-up failed, keeping the live model", ex);
+            } finally {
+                synchronized (modelLock) {
+                    warmupBacklog = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Replay the last days of orders through a fresh model and report how well it would have
+     * predicted them; the live model is not touched. Used by EtaReplayBenchmark.
+     */
+    EtaReplayReportDTO replay(int days) {
+        return replay(newModel(), days);
+    }
+
+    /**
+     * Feed the orders placed in the last days to the model in time order, predicting each order at
+     * placement and at pickup from what had been learned by then, and learning every stage when it
+     * completed (prequential evaluation)
+     */
+    private EtaReplayReportDTO replay(EtaModel target, int days) {
+        long startedAt = System.currentTimeMillis();
+        Replay replay = new Replay(target);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = orderRepository.streamTimelinesPlacedSince(LocalDateTime.now().minusDays(days))) {
+                rows.forEach(row -> replay.place(timeline(row)));
+            }
+        });
+        replay.drain(null);
+        return replay.report(days, System.currentTimeMillis() - startedAt);
+    }
+
+    private void learn(OrderTimeline timeline, Stage stage) {
+        synchronized (modelLock) {
+            model.observe(timeline, stage);
+            if (warmupBacklog != null) {
+                warmupBacklog.add(new Observation(timeline, stage));
+            }
+        }
+    }
+
+    private EtaModel newModel() {
+        return new EtaModel(halfLifeSamples, minSamples, defaultConfirmSeconds, defaultHandoffSeconds, defaultSpeedKmh);
+    }
+
+    private OrderTimeline timeline(Order order) {
+        Restaurant restaurant = order.getRestaurant();
+        RestaurantProfile profile = restaurants.computeIfAbsent(restaurant.getId(), id -> profile(restaurant));
+        return new OrderTimeline(restaurant.getId(), profile.prepTimeMinutes(),
+                distanceKm(profile.latitude(), profile.longitude(), order.getDeliveryLatitude(), order.getDeliveryLongitude()),
+                order.getPlacedAt(), order.getConfirmedAt(), order.getReadyAt(), order.getPickedUpAt(), order.getDeliveredAt());
+    }
+
+    private OrderTimeline timeline(Object[] row) {
+        return new OrderTimeline((Long) row[0], prepMinutes((Integer) row[1]),
+                distanceKm((Double) row[2], (Double) row[3], (Double) row[4], (Double) row[5]),
+                (LocalDateTime) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8],
+                (LocalDateTime) row[9], (LocalDateTime) row[10]);
+    }
+
+    private static double distanceKm(Double fromLatitude, Double fromLongitude, Double toLatitude, Double toLongitude) {
+        if (fromLatitude == null || fromLongitude == null || toLatitude == null || toLongitude == null) {
+            return 0;
+        }
+        return GeoUtils.haversineDistance(fromLatitude, fromLongitude, toLatitude, toLongitude);
+    }
+
+    private static Stage completedStage(OrderStatus status) {
+        return switch (status) {
+            case CONFIRMED -> Stage.CONFIRM;
+            case READY -> Stage.PREP;
+            case PICKED_UP -> Stage.HANDOFF;
+            case DELIVERED -> Stage.TRAVEL;
+            default -> null;
+        };
+    }
+
+    private static double minutesBetween(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 60000.0;
+    }
+
+    private RestaurantProfile profile(Restaurant restaurant) {
+        return new RestaurantProfile(restaurant.getLatitude(), restaurant.getLongitude(),
+                prepMinutes(restaurant.getPrepTimeMinutes()));
+    }
+
+    private int prepMinutes(Integer prepTimeMinutes) {
+        return prepTimeMinutes != null && prepTimeMinutes > 0 ? prepTimeMinutes : defaultPrepMinutes;
+    }
+
+    private record RestaurantProfile(Double latitude, Double longitude, int prepTimeMinutes) {
+    }
+
+    private record Observation(OrderTimeline timeline, Stage stage) {
+    }
+
+    /**
+     * Replay state: stage completions and pickup-time predictions still ahead of the replay clock
+     */
+    private static final class Replay {
+
+        private record Event(LocalDateTime at, long sequence, OrderTimeline order, Stage stage) {
+        }
+
+        private final EtaModel model;
+        private final PriorityQueue<Event> pending = new PriorityQueue<>(
+                Comparator.comparing(Event::at).thenComparingLong(Event::sequence));
+        private final List<Double> placementErrors = new ArrayList<>();
+        private long sequence;
+        private long orders;
+        private long predictions;
+        private long predictionNanos;
+        private double pickupAbsErrorSum;
+        private long pickupPredictions;
+
+        private Replay(EtaModel model) {
+            this.model = model;
+        }
+
+        private void place(OrderTimeline order) {
+            orders++;
+            drain(order.placedAt());
+
+            OrderTimeline atPlacement = new OrderTimeline(order.restaurantId(), order.prepTimeMinutes(),
+                    order.distanceKm(), order.placedAt(), null, null, null, null);
+            LocalDateTime predicted = predict(atPlacement, order.placedAt());
+            if (order.deliveredAt() != null) {
+                placementErrors.add(minutesBetween(predicted, order.deliveredAt()));
+            }
+
+            schedule(order.confirmedAt(), order, Stage.CONFIRM);
+            schedule(order.readyAt(), order, Stage.PREP);
+            schedule(order.pickedUpAt(), order, Stage.HANDOFF);
+            if (order.deliveredAt() != null) {
+                // A null stage marks the prediction made at pickup
+                schedule(order.pickedUpAt(), order, null);
+                schedule(order.deliveredAt(), order, Stage.TRAVEL);
+            }
+        }
+
+        /**
+         * Process the pending events up to the time (all of them if null)
+         */
+        private void drain(LocalDateTime until) {
+            while (!pending.isEmpty() && (until == null || !pending.peek().at().isAfter(until))) {
+                Event event = pending.poll();
+                if (event.stage() != null) {
+                    model.observe(event.order(), event.stage());
+                    continue;
+                }
+                OrderTimeline order = event.order();
+                OrderTimeline atPickup = new OrderTimeline(order.restaurantId(), order.prepTimeMinutes(),
+                        order.distanceKm(), order.placedAt(), order.confirmedAt(), order.readyAt(),
+                        order.pickedUpAt(), null);
+                pickupAbsErrorSum += Math.abs(minutesBetween(order.deliveredAt(), predict(atPickup, event.at())));
+                pickupPredictions++;
+            }
+        }
+
+        private LocalDateTime predict(OrderTimeline order, LocalDateTime now) {
+            long started = System.nanoTime();
+            LocalDateTime deliveryAt = model.predict(order, now).deliveryAt();
+            predictionNanos += System.nanoTime() - started;
+            predictions++;
+            return deliveryAt;
+        }
+
+        private void schedule(LocalDateTime at, OrderTimeline order, Stage stage) {
+            if (at != null) {
+                pending.add(new Event(at, sequence++, order, stage));
+            }
+        }
+
+        private EtaReplayReportDTO report(int days, long durationMs) {
+            List<Double> absErrors = new ArrayList<>(placementErrors.size());
+            double absSum = 0;
+            double sum = 0;
+            for (double error : placementErrors) {
+                absErrors.add(Math.abs(error));
+                absSum += Math.abs(error);
+                sum += error;
+            }
+            Collections.sort(absErrors);
+            int delivered = placementErrors.size();
+            return EtaReplayReportDTO.builder()
+                    .days(days)
+                    .orders(orders)
+                    .deliveredOrders((long) delivered)
+                    .restaurantsLearned(model.restaurantCount())
+                    .placementMaeMinutes(delivered > 0 ? round(absSum / delivered) : null)
+                    .placementP90ErrorMinutes(delivered > 0 ? round(absErrors.get((int) Math.ceil(0.9 * delivered) - 1)) : null)
+                    .placementBiasMinutes(delivered > 0 ? round(sum / delivered) : null)
+                    .pickupMaeMinutes(pickupPredictions > 0 ? round(pickupAbsErrorSum / pickupPredictions) : null)
+                    .meanPredictionMicros(predictions > 0 ? round(predictionNanos / 1000.0 / predictions) : null)
+                    .durationMs(durationMs)
+                    .build();
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
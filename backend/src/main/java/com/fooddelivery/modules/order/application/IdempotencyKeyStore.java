@@ -0,0 +1,276 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.exception.BadRequestException;
+import com.fooddelivery.exception.IdempotencyKeyInUseException;
+import com.fooddelivery.modules.order.domain.dto.OrderDTO;
+import com.fooddelivery.modules.order.domain.model.IdempotencyRecord;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes order placement safe to retry. The first request with a given Idempotency-Key runs the
+ * placement; later requests with the same key get the order it created without running it again,
+ * and concurrent duplicates wait for the first one to finish instead of racing it. Keys are scoped
+ * per customer and bound to a fingerprint of the request body, so reusing a key for a different
+ * order is rejected.
+ * <p>
+ * Keys live in a bounded in-process LRU and, for requests retried against another node, in Redis:
+ * the first node claims the key with SET NX, other nodes poll until the result is stored. A failed
+ * placement releases the key so it can be retried. Redis is optional; after a failure it is
+ * skipped for a while and duplicates are only caught within one node.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyStore {
+
+    private static final String PREFIX = "fd:v1:idempotency:order:";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration inFlightTtl;
+    private final Duration completedTtl;
+    private final long waitTimeoutMs;
+    private final long pollIntervalMs;
+    private final long remoteRetryMs;
+    private volatile long remoteDisabledUntilMs;
+
+    // Customer-scoped key -> the placement that claimed it on this node, pending or done
+    private final Cache<String, Execution> local;
+
+    private final Counter localReplays;
+    private final Counter remoteReplays;
+    private final Counter conflicts;
+    private final Counter remoteErrors;
+
+    public IdempotencyKeyStore(ObjectMapper objectMapper,
+                               ObjectProvider<StringRedisTemplate> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.order.idempotency.redis-enabled:true}") boolean remoteEnabled,
+                               @Value("${app.order.idempotency.local-max-entries:10000}") long localMaxEntries,
+                               @Value("${app.order.idempotency.ttl-hours:24}") long ttlHours,
+                               @Value("${app.order.idempotency.in-flight-ttl-seconds:60}") long inFlightTtlSeconds,
+                               @Value("${app.order.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+                               @Value("${app.order.idempotency.poll-interval-ms:50}") long pollIntervalMs,
+                               @Value("${app.order.idempotency.redis-retry-ms:30000}") long remoteRetryMs) {
+        this.objectMapper = objectMapper;
+        this.redisTemplate = remoteEnabled ? redisTemplate.getIfAvailable() : null;
+        this.inFlightTtl = Duration.ofSeconds(inFlightTtlSeconds);
+        this.completedTtl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.remoteRetryMs = remoteRetryMs;
+        this.local = CacheBuilder.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterWrite(ttlHours, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+
+        GuavaCacheMetrics.monitor(meterRegistry, local, "order.idempotency");
+        this.localReplays = Counter.builder("order.idempotency.replays")
+                .description("Retried placements answered with the stored order")
+                .tags("source", "local")
+                .register(meterRegistry);
+        this.remoteReplays = Counter.builder("order.idempotency.replays")
+                .description("Retried placements answered with the stored order")
+                .tags("source", "redis")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("order.idempotency.conflicts")
+                .description("Retried placements rejected because the first request was still running")
+                .register(meterRegistry);
+        this.remoteErrors = Counter.builder("order.idempotency.redis.errors")
+                .description("Redis calls that failed and were served from this node only")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Order placed for the key: the stored one when the key was already used for the same request,
+     * otherwise the one created by running the placement. A placement exception propagates and
+     * leaves the key free for a retry.
+     */
+    public Result execute(Long customerId, String idempotencyKey, Object request, Supplier<OrderDTO> placement) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = customerId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        Execution execution = new Execution(fingerprint, new CompletableFuture<>());
+        Execution existing = local.asMap().putIfAbsent(scopedKey, execution);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint(), fingerprint);
+            OrderDTO order = await(existing.result());
+            localReplays.increment();
+            return new Result(order, true);
+        }
+
+        try {
+            Result result = claimAndRun(PREFIX + scopedKey, fingerprint, placement);
+            execution.result().complete(result.order());
+            return result;
+        } catch (RuntimeException ex) {
+            local.asMap().remove(scopedKey, execution);
+            execution.result().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private Result claimAndRun(String remoteKey, String fingerprint, Supplier<OrderDTO> placement) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        IdempotencyRecord holder;
+        while ((holder = claimRemote(remoteKey, fingerprint)) != null) {
+            checkFingerprint(holder.fingerprint(), fingerprint);
+            if (holder.completed()) {
+                remoteReplays.increment();
+                return new Result(holder.order(), true);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw inUse();
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw inUse();
+            }
+        }
+
+        OrderDTO order;
+        try {
+            order = placement.get();
+        } catch (RuntimeException ex) {
+            releaseRemote(remoteKey);
+            throw ex;
+        }
+        storeRemote(remoteKey, new IdempotencyRecord(fingerprint, order));
+        return new Result(order, false);
+    }
+
+    /**
+     * Claim the key in Redis; null when this request owns it (or Redis is unavailable), otherwise
+     * the record of the request holding it
+     */
+    private IdempotencyRecord claimRemote(String remoteKey, String fingerprint) {
+        if (!remoteAvailable()) {
+            return null;
+        }
+        IdempotencyRecord claim = new IdempotencyRecord(fingerprint, null);
+        try {
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(remoteKey, write(claim), inFlightTtl);
+            if (Boolean.TRUE.equals(claimed)) {
+                return null;
+            }
+            String stored = redisTemplate.opsForValue().get(remoteKey);
+            // Released or expired between the two calls: poll again and claim it then
+            return stored != null ? objectMapper.readValue(stored, IdempotencyRecord.class) : claim;
+        } catch (Exception ex) {
+            remoteFailed("claim", ex);
+            return null;
+        }
+    }
+
+    private void storeRemote(String remoteKey, IdempotencyRecord completed) {
+        if (!remoteAvailable()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(remoteKey, write(completed), completedTtl);
+        } catch (Exception ex) {
+            remoteFailed("store", ex);
+        }
+    }
+
+    private void releaseRemote(String remoteKey) {
+        if (!remoteAvailable()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(remoteKey);
+        } catch (Exception ex) {
+            remoteFailed("release", ex);
+        }
+    }
+
+    private OrderDTO await(CompletableFuture<OrderDTO> result) {
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw inUse();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw inUse();
+        } catch (ExecutionException ex) {
+            // The duplicate fails the way the request it waited on failed
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private IdempotencyKeyInUseException inUse() {
+        conflicts.increment();
+        return new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed",
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitTimeoutMs)));
+    }
+
+    private static void checkFingerprint(String stored, String fingerprint) {
+        if (!stored.equals(fingerprint)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        return Hashing.sha256().hashString(write(request), StandardCharsets.UTF_8).toString();
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private boolean remoteAvailable() {
+        return redisTemplate != null && System.currentTimeMillis() >= remoteDisabledUntilMs;
+    }
+
+    private void remoteFailed(String operation, Exception ex) {
+        remoteErrors.increment();
+        boolean firstFailure = System.currentTimeMillis() >= remoteDisabledUntilMs;
+        remoteDisabledUntilMs = System.currentTimeMillis() + remoteRetryMs;
+        if (firstFailure) {
+            log.warn("Redis {} failed for idempotency keys, deduplicating on this node only for {} ms: {}",
+                    operation, remoteRetryMs, ex.getMessage());
+        }
+    }
+
+    /**
+     * The order for the key and whether it was stored by an earlier request rather than created now
+     */
+    public record Result(OrderDTO order, boolean replayed) {
+    }
+
+    private record Execution(String fingerprint, CompletableFuture<OrderDTO> result) {
+    }
+}
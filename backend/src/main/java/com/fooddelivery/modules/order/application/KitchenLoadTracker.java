@@ -0,0 +1,316 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.exception.RestaurantOverloadedException;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
+import com.fooddelivery.modules.order.domain.event.OrderPlacedEvent;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how many orders each restaurant's kitchen still has to prepare and throttles placement
+ * when that queue outgrows what the kitchen can turn around. Capacity follows from the
+ * restaurant's prep time: the kitchen works on parallel-orders at once, and admits orders while the
+ * queued work fits in max-queue-minutes. A full kitchen is paused until its queue drains to
+ * resume-ratio of capacity, so admission does not flap around the limit.
+ * <p>
+ * Queues are fed by order events plus reservations held by placements still in flight, and are
+ * periodically reconciled with the orders table, which also covers orders handled by other nodes.
+ */
+@Slf4j
+@Component
+public class KitchenLoadTracker {
+
+    // Statuses in which an order still occupies the kitchen
+    private static final Set<OrderStatus> KITCHEN_STATUSES =
+            EnumSet.of(OrderStatus.PLACED, OrderStatus.CONFIRMED, OrderStatus.PREPARING);
+    private static final long MIN_RETRY_AFTER_SECONDS = 60;
+
+    private final OrderRepository orderRepository;
+    private final MeterRegistry meterRegistry;
+    private final int parallelOrders;
+    private final int maxQueueMinutes;
+    private final int minCapacity;
+    private final double resumeRatio;
+    private final int defaultPrepMinutes;
+
+    // Order id -> restaurant id of every order known to be in the kitchen
+    private final Map<Long, Long> inKitchen = new ConcurrentHashMap<>();
+    private final Map<Long, KitchenQueue> queues = new ConcurrentHashMap<>();
+
+    private final Counter rejectedCounter;
+
+    public KitchenLoadTracker(OrderRepository orderRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.order.kitchen.parallel-orders:4}") int parallelOrders,
+                              @Value("${app.order.kitchen.max-queue-minutes:60}") int maxQueueMinutes,
+                              @Value("${app.order.kitchen.min-capacity:5}") int minCapacity,
+                              @Value("${app.order.kitchen.resume-ratio:0.7}") double resumeRatio,
+                              @Value("${app.order.preparation-time-default-minutes:30}") int defaultPrepMinutes) {
+        this.orderRepository = orderRepository;
+        this.meterRegistry = meterRegistry;
+        this.parallelOrders = Math.max(parallelOrders, 1);
+        this.maxQueueMinutes = Math.max(maxQueueMinutes, 1);
+        this.minCapacity = Math.max(minCapacity, 1);
+        this.resumeRatio = Math.min(Math.max(resumeRatio, 0), 1);
+        this.defaultPrepMinutes = Math.max(defaultPrepMinutes, 1);
+
+        this.rejectedCounter = Counter.builder("kitchen.orders.rejected")
+                .description("Order placements rejected because the restaurant's kitchen was at capacity")
+                .register(meterRegistry);
+        Gauge.builder("kitchen.restaurants.paused", queues,
+                        q -> q.values().stream().filter(queue -> queue.paused).count())
+                .description("Restaurants currently paused because their kitchen is at capacity")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hold a kitchen slot for an order about to be placed in the current transaction; the slot
+     * becomes the order's once attached and committed, and is released if the transaction rolls back
+     *
+     * @throws RestaurantOverloadedException if the kitchen is full or still draining after a pause
+     */
+    public Reservation reserve(Restaurant restaurant) {
+        KitchenQueue queue = queue(restaurant.getId());
+        queue.prepMinutes = prepMinutes(restaurant.getPrepTimeMinutes());
+        int capacity = capacity(queue.prepMinutes);
+
+        if (queue.paused && !resumeIfDrained(queue)) {
+            throw reject(queue);
+        }
+        while (true) {
+            int reserved = queue.reserved.get();
+            if (queue.inKitchen.get() + reserved >= capacity) {
+                // Only committed orders pause the kitchen; slots held by placements still in
+                // flight may yet roll back, so those just turn this one away
+                if (queue.inKitchen.get() >= capacity) {
+                    pause(queue, capacity);
+                }
+                throw reject(queue);
+            }
+            if (queue.reserved.compareAndSet(reserved, reserved + 1)) {
+                break;
+            }
+        }
+
+        Reservation reservation = new Reservation(queue);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reservation.complete(status == STATUS_COMMITTED);
+                }
+            });
+        }
+        return reservation;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        enter(event.getOrderId(), event.getRestaurantId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!KITCHEN_STATUSES.contains(event.getNewStatus())) {
+            leave(event.getOrderId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        leave(event.getOrderId());
+    }
+
+    /**
+     * Replace the tracked orders with the ones the orders table has in the kitchen
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.order.kitchen.reconcile-interval-ms:10000}",
+            fixedDelayString = "${app.order.kitchen.reconcile-interval-ms:10000}")
+    public void reconcile() {
+        List<Object[]> rows;
+        try {
+            rows = orderRepository.findKitchenLoadByStatusIn(KITCHEN_STATUSES);
+        } catch (Exception ex) {
+            log.error("Failed to reconcile kitchen load", ex);
+            return;
+        }
+
+        Map<Long, Long> orders = new HashMap<>(rows.size() * 2);
+        Map<Long, Integer> depths = new HashMap<>();
+        for (Object[] row : rows) {
+            Long restaurantId = (Long) row[1];
+            orders.put((Long) row[0], restaurantId);
+            depths.merge(restaurantId, 1, Integer::sum);
+            queue(restaurantId).prepMinutes = prepMinutes((Integer) row[2]);
+        }
+
+        inKitchen.keySet().retainAll(orders.keySet());
+        inKitchen.putAll(orders);
+        queues.forEach((restaurantId, queue) -> {
+            queue.inKitchen.set(depths.getOrDefault(restaurantId, 0));
+            if (queue.paused) {
+                resumeIfDrained(queue);
+            }
+        });
+    }
+
+    /**
+     * Orders the restaurant's kitchen holds or has reserved on this node
+     */
+    public int queueDepth(Long restaurantId) {
+        KitchenQueue queue = queues.get(restaurantId);
+        return queue != null ? queue.depth() : 0;
+    }
+
+    private void enter(Long orderId, Long restaurantId) {
+        if (inKitchen.putIfAbsent(orderId, restaurantId) == null) {
+            queue(restaurantId).inKitchen.incrementAndGet();
+        }
+    }
+
+    private void leave(Long orderId) {
+        Long restaurantId = inKitchen.remove(orderId);
+        if (restaurantId != null) {
+            KitchenQueue queue = queue(restaurantId);
+            queue.inKitchen.decrementAndGet();
+            if (queue.paused) {
+                resumeIfDrained(queue);
+            }
+        }
+    }
+
+    private KitchenQueue queue(Long restaurantId) {
+        return queues.computeIfAbsent(restaurantId, id -> {
+            KitchenQueue queue = new KitchenQueue(id, defaultPrepMinutes);
+            Gauge.builder("kitchen.queue.depth", queue, KitchenQueue::depth)
+                    .description("Orders waiting for or being prepared in the restaurant's kitchen")
+                    .tag("restaurant", String.valueOf(id))
+                    .register(meterRegistry);
+            return queue;
+        });
+    }
+
+    private int capacity(int prepMinutes) {
+        return Math.max(minCapacity, parallelOrders * maxQueueMinutes / prepMinutes);
+    }
+
+    private int resumeDepth(KitchenQueue queue) {
+        return (int) (capacity(queue.prepMinutes) * resumeRatio);
+    }
+
+    private void pause(KitchenQueue queue, int capacity) {
+        if (!queue.paused) {
+            queue.paused = true;
+            log.warn("Pausing orders for restaurant {}: {} orders in the kitchen (capacity {})",
+                    queue.restaurantId, queue.depth(), capacity);
+        }
+    }
+
+    private boolean resumeIfDrained(KitchenQueue queue) {
+        if (queue.depth() > resumeDepth(queue)) {
+            return false;
+        }
+        if (queue.paused) {
+            queue.paused = false;
+            log.info("Resuming orders for restaurant {}: {} orders in the kitchen", queue.restaurantId, queue.depth());
+        }
+        return true;
+    }
+
+    private RestaurantOverloadedException reject(KitchenQueue queue) {
+        rejectedCounter.increment();
+        // Time for the kitchen to work its queue down to the resume threshold
+        int excess = Math.max(queue.depth() - resumeDepth(queue), 1);
+        long retryAfterSeconds = Math.max(MIN_RETRY_AFTER_SECONDS,
+                (long) Math.ceil((double) excess / parallelOrders * queue.prepMinutes * 60));
+        return new RestaurantOverloadedException("Restaurant is too busy to take new orders, please try again in "
+                + Math.max(retryAfterSeconds / 60, 1) + " minutes", retryAfterSeconds);
+    }
+
+    private int prepMinutes(Integer prepTimeMinutes) {
+        return prepTimeMinutes != null && prepTimeMinutes > 0 ? prepTimeMinutes : defaultPrepMinutes;
+    }
+
+    /**
+     * A kitchen slot held for one order placement
+     */
+    public final class Reservation {
+
+        private final KitchenQueue queue;
+        private Long orderId;
+        private boolean completed;
+
+        private Reservation(KitchenQueue queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * Bind the slot to the placed order; without a transaction the order counts immediately
+         */
+        public void attach(Long orderId) {
+            this.orderId = orderId;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                complete(true);
+            }
+        }
+
+        private void complete(boolean committed) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            if (committed && orderId != null) {
+                enter(orderId, queue.restaurantId);
+            }
+            queue.reserved.decrementAndGet();
+            int capacity = capacity(queue.prepMinutes);
+            if (committed && queue.inKitchen.get() >= capacity) {
+                // This order filled the kitchen; later ones wait for the queue to drain
+                pause(queue, capacity);
+            } else if (queue.paused) {
+                resumeIfDrained(queue);
+            }
+        }
+    }
+
+    private static final class KitchenQueue {
+        private final Long restaurantId;
+        private final AtomicInteger inKitchen = new AtomicInteger();
+        private final AtomicInteger reserved = new AtomicInteger();
+        private volatile int prepMinutes;
+        private volatile boolean paused;
+
+        private KitchenQueue(Long restaurantId, int prepMinutes) {
+            this.restaurantId = restaurantId;
+            this.prepMinutes = prepMinutes;
+        }
+
+        private int depth() {
+            return inKitchen.get() + reserved.get();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.modules.order.infra.OrderNumberNodeLeases;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, a 10 bit node id and a
+ * 12 bit per-node sequence, rendered as fixed-width base 36 so the strings sort like the ids.
+ * Numbers are unique across nodes as long as every instance runs with its own node id.
+ * <p>
+ * The node id is either configured per instance or leased from order_number_nodes at startup. A
+ * lease is renewed periodically; numbers are only issued while the last renewal is recent enough
+ * that no other instance can have taken the id over, and an instance that lost its id leases a
+ * new one.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD-";
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // 36^13 > 2^63, so 13 digits hold any positive id
+    private static final int DIGITS = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final OrderNumberNodeLeases leases;
+    private final Duration leaseTtl;
+    private final String owner;
+    // Wall clock in epoch millis; injectable so tests can stall it or move it backwards
+    private final LongSupplier clock;
+    private volatile Lease lease;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(OrderNumberNodeLeases leases,
+                                @Value("${app.order.number.node-id:-1}") long nodeId,
+                                @Value("${app.order.number.lease-ttl-seconds:300}") long leaseTtlSeconds) {
+        this(leases, nodeId, leaseTtlSeconds, System::currentTimeMillis);
+    }
+
+    /**
+     * Generator with a fixed node id, without leasing
+     */
+    OrderNumberGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Generator with a fixed node id reading the given clock
+     */
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        this(null, nodeId, 0, clock);
+    }
+
+    private OrderNumberGenerator(OrderNumberNodeLeases leases, long nodeId, long leaseTtlSeconds, LongSupplier clock) {
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order number node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.leaseTtl = Duration.ofSeconds(Math.max(leaseTtlSeconds, 10));
+        this.owner = hostName() + "/" + UUID.randomUUID();
+        this.clock = clock;
+        if (nodeId >= 0) {
+            this.leases = null;
+            this.lease = new Lease((int) nodeId, Long.MAX_VALUE);
+            log.info("Order number generator using configured node id {}", nodeId);
+        } else {
+            this.leases = leases;
+            this.lease = acquire(preferredNodeId());
+        }
+    }
+
+    /**
+     * Next order number, e.g. ORD-02T4KTZ6V7Y80
+     */
+    public String next() {
+        return format(nextId());
+    }
+
+    /**
+     * Next raw id. Lock-free: concurrent callers race on one CAS. When the sequence of the current
+     * millisecond is exhausted, or the wall clock moves backwards, the sequence carries into the
+     * timestamp, so ids keep increasing without waiting for the clock to catch up.
+     */
+    public long nextId() {
+        Lease current = lease;
+        long nowMillis = clock.getAsLong();
+        if (nowMillis >= current.validUntilMillis()) {
+            throw new IllegalStateException("Order number node lease " + current.nodeId() + " was not renewed in time");
+        }
+        long now = nowMillis - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+
+        return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                | ((long) current.nodeId() << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Extend the node id lease, or lease another id if this one was taken over after it ran out
+     */
+    @Scheduled(initialDelayString = "${app.order.number.lease-renew-interval-ms:60000}",
+            fixedDelayString = "${app.order.number.lease-renew-interval-ms:60000}")
+    public void renewLease() {
+        if (leases == null) {
+            return;
+        }
+        Lease current = lease;
+        try {
+            long validUntil = validUntil();
+            if (leases.renew(current.nodeId(), owner, LocalDateTime.now().plus(leaseTtl))) {
+                lease = new Lease(current.nodeId(), validUntil);
+                return;
+            }
+            log.warn("Order number node id {} was taken over by another instance", current.nodeId());
+            lease = acquire(current.nodeId() + 1);
+        } catch (Exception ex) {
+            log.error("Failed to renew order number node id {}", current.nodeId(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (leases != null) {
+            try {
+                leases.release(lease.nodeId(), owner);
+            } catch (Exception ex) {
+                log.warn("Failed to release order number node id {}: {}", lease.nodeId(), ex.getMessage());
+            }
+        }
+    }
+
+    static String format(long id) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id % 36)];
+            id /= 36;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Lease the first free node id, probing upwards from the preferred one
+     */
+    private Lease acquire(int preferred) {
+        for (int i = 0; i <= MAX_NODE_ID; i++) {
+            int nodeId = (int) ((preferred + i) & MAX_NODE_ID);
+            long validUntil = validUntil();
+            LocalDateTime now = LocalDateTime.now();
+            if (leases.acquire(nodeId, owner, now, now.plus(leaseTtl))) {
+                log.info("Order number generator leased node id {} as {}", nodeId, owner);
+                return new Lease(nodeId, validUntil);
+            }
+        }
+        throw new IllegalStateException("All " + (MAX_NODE_ID + 1) + " order number node ids are leased");
+    }
+
+    /**
+     * Issue numbers for half the lease TTL after a successful (re)lease; the other half is slack for
+     * clock skew between instances and a slow renewal
+     */
+    private long validUntil() {
+        return clock.getAsLong() + leaseTtl.toMillis() / 2;
+    }
+
+    /**
+     * Start from a host-derived id so a restarted instance usually gets its old one back
+     */
+    private static int preferredNodeId() {
+        return (int) ((hostName().hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception ex) {
+            return "unknown";
+        }
+    }
+
+    private record Lease(int nodeId, long validUntilMillis) {
+    }
+}
@@ -1,13 +1,21 @@
 package com.fooddelivery.modules.order.application;
 
+import com.fooddelivery.modules.order.domain.dto.BulkOrderStatusUpdateResultDTO;
 import com.fooddelivery.modules.order.domain.dto.CreateOrderRequest;
 import com.fooddelivery.modules.order.domain.dto.OrderDTO;
 import com.fooddelivery.modules.order.domain.dto.OrderItemRequest;
 import com.fooddelivery.modules.order.domain.dto.OrderItemDTO;
+import com.fooddelivery.modules.order.domain.dto.OrderStatusUpdateRequest;
+import com.fooddelivery.modules.order.domain.dto.OrderStatusUpdateResultDTO;
 import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
 import com.fooddelivery.modules.order.domain.event.OrderPlacedEvent;
 import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.order.domain.model.OrderStatusTransitions;
+import com.fooddelivery.modules.order.infra.OrderStatusBatchWriter;
 import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.modules.outbox.application.OutboxPublisher;
+import com.fooddelivery.modules.order.infra.OrderSpecifications;
+import com.fooddelivery.dto.response.CursorPage;
 import com.fooddelivery.model.entity.*;
 import com.fooddelivery.model.enums.OrderStatus;
 import com.fooddelivery.repository.ProductRepository;
@@ -15,18 +23,23 @@ import com.fooddelivery.repository.UserAddressRepository;
 import com.fooddelivery.repository.UserRepository;
 import com.fooddelivery.modules.restaurant.infra.RestaurantRepository;
 import com.fooddelivery.util.GeoUtils;
+import com.fooddelivery.util.KeysetCursor;
+import com.fooddelivery.exception.BadRequestException;
 import com.fooddelivery.exception.ResourceNotFoundException;
+import com.fooddelivery.exception.UnauthorizedAccessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -36,12 +49,23 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("placedAt"), Sort.Order.desc("id"));
+    // Statuses a restaurant may move its orders to in bulk; pickup and delivery belong to the agent
+    private static final Set<OrderStatus> RESTAURANT_BULK_STATUSES = EnumSet.of(
+            OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.CANCELLED);
+    private static final String RESTAURANT_CANCELLATION_REASON = "Cancelled by restaurant";
+
     private final OrderRepository orderRepository;
+    private final OrderStatusBatchWriter orderStatusBatchWriter;
     private final RestaurantRepository restaurantRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final UserAddressRepository userAddressRepository;
-    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxPublisher outboxPublisher;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final KitchenLoadTracker kitchenLoadTracker;
+    private final EtaEngine etaEngine;
 
     /**
      * Create a new order with validation and calculation
@@ -72,7 +96,7 @@ public class OrderService {
 
         // 5. Create order
         Order order = new Order();
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setCustomer(customer);
         order.setRestaurant(restaurant);
         order.setStatus(OrderStatus.PLACED);
@@ -81,13 +105,25 @@ public class OrderService {
         order.setDeliveryLongitude(deliveryAddress.getLongitude());
         order.setDeliveryAddress(deliveryAddress);
 
-        // 6. Add order items and calculate totals
+        // 6. Resolve all products in one query, then add order items and calculate totals
+        Map<Long, Product> products = productRepository.findAllById(request.getItems().stream()
+                        .map(OrderItemRequest::getProductId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
         BigDecimal itemsTotal = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
 
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + itemRequest.getProductId()));
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found with ID: " + itemRequest.getProductId());
+            }
+
+            if (!product.getRestaurant().getId().equals(restaurant.getId())) {
+                throw new BadRequestException("Product " + product.getId() + " does not belong to restaurant " + restaurant.getId());
+            }
 
             if (!product.getIsAvailable()) {
                 throw new ResourceNotFoundException("Product is not available: " + product.getName());
@@ -123,13 +159,16 @@ public class OrderService {
         // 9. Calculate total
         BigDecimal totalAmount = itemsTotal.add(deliveryFee).add(taxAmount);
         order.setTotalAmount(totalAmount);
+        etaEngine.refresh(order);
 
-        // 10. Save order
+        // 10. Hold a kitchen slot and save; rejects with a retry hint while the kitchen is at capacity
+        KitchenLoadTracker.Reservation kitchenSlot = kitchenLoadTracker.reserve(restaurant);
         Order savedOrder = orderRepository.save(order);
+        kitchenSlot.attach(savedOrder.getId());
         log.info("Order created successfully with ID: {} and total: {}", savedOrder.getId(), totalAmount);
 
         // 11. Publish event for async processing
-        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(), customerId, restaurant.getId()));
+        outboxPublisher.append(savedOrder.getId(), new OrderPlacedEvent(savedOrder.getId(), customerId, restaurant.getId()));
 
         return mapToDTO(savedOrder);
     }
@@ -144,6 +183,11 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
 
         OrderStatus oldStatus = order.getStatus();
+        if (newStatus == OrderStatus.PICKED_UP) {
+            OrderStatusTransitions.checkPickup(oldStatus, order.getReadyAt());
+        } else {
+            OrderStatusTransitions.check(oldStatus, newStatus);
+        }
 
         // Update timestamps based on status
         switch (newStatus) {
@@ -171,26 +215,144 @@ public class OrderService {
                 break;
             case CANCELLED:
                 order.setStatus(OrderStatus.CANCELLED);
+                order.setCancelledAt(LocalDateTime.now());
                 break;
             default:
+                // ASSIGNED is only reachable by an agent accepting an assignment
                 throw new IllegalArgumentException("Invalid order status: " + newStatus);
         }
+        etaEngine.refresh(order);
 
         Order updatedOrder = orderRepository.save(order);
         log.info("Order {} status updated from {} to {}", orderId, oldStatus, newStatus);
 
         // Publish status change event
-        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, oldStatus, newStatus, userId));
+        outboxPublisher.append(orderId, new OrderStatusChangedEvent(orderId, oldStatus, newStatus, userId));
 
         return mapToDTO(updatedOrder);
     }
 
+    /**
+     * Apply many status changes to one restaurant's orders at once, e.g. from a kitchen board.
+     * Ownership is checked once; the orders are read and row-locked in one query, checked against
+     * the lifecycle, moved with one UPDATE per target status, and their events appended in one
+     * batch. Cancellations record their reason and publish OrderCancelledEvent like a single
+     * cancel does. Each update succeeds or fails on its own and gets its own result.
+     */
+    public BulkOrderStatusUpdateResultDTO updateOrderStatuses(Long restaurantId,
+                                                              List<OrderStatusUpdateRequest> updates,
+                                                              Long ownerId) {
+        log.info("Updating status of {} orders of restaurant {}", updates.size(), restaurantId);
+
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with ID: " + restaurantId));
+        if (!restaurant.getOwner().getId().equals(ownerId)) {
+            throw new UnauthorizedAccessException("You do not own this restaurant");
+        }
+
+        Set<Long> orderIds = updates.stream().map(OrderStatusUpdateRequest::getOrderId).collect(Collectors.toSet());
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : orderRepository.findStatusRowsForUpdate(restaurantId, orderIds)) {
+            rows.put((Long) row[0], row);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderStatusUpdateResultDTO> results = new ArrayList<>(updates.size());
+        Map<OrderStatus, List<Long>> idsByStatus = new EnumMap<>(OrderStatus.class);
+        Map<Long, LocalDateTime> etas = new LinkedHashMap<>();
+        Map<Long, String> cancellationReasons = new LinkedHashMap<>();
+        Map<Long, Object> events = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (OrderStatusUpdateRequest update : updates) {
+            Long orderId = update.getOrderId();
+            OrderStatus newStatus = update.getStatus();
+            Object[] row = rows.get(orderId);
+            if (!seen.add(orderId)) {
+                results.add(failedUpdate(orderId, "DUPLICATE", null, "Order appears more than once in the batch"));
+                continue;
+            }
+            if (row == null) {
+                results.add(failedUpdate(orderId, "NOT_FOUND", null, "Order not found for this restaurant"));
+                continue;
+            }
+            OrderStatus oldStatus = (OrderStatus) row[1];
+            if (!RESTAURANT_BULK_STATUSES.contains(newStatus)) {
+                results.add(failedUpdate(orderId, "INVALID_TRANSITION", oldStatus,
+                        "Restaurants can only confirm, prepare, mark ready or cancel orders"));
+                continue;
+            }
+            if (!OrderStatusTransitions.isAllowed(oldStatus, newStatus)) {
+                results.add(failedUpdate(orderId, "INVALID_TRANSITION", oldStatus,
+                        "Cannot change order status from " + oldStatus + " to " + newStatus));
+                continue;
+            }
+
+            // The order is never loaded; the ETA is computed on a detached view with the new status applied
+            Order view = Order.builder()
+                    .id(orderId)
+                    .restaurant(restaurant)
+                    .status(newStatus)
+                    .deliveryLatitude((Double) row[2])
+                    .deliveryLongitude((Double) row[3])
+                    .placedAt((LocalDateTime) row[4])
+                    .confirmedAt(newStatus == OrderStatus.CONFIRMED ? now : (LocalDateTime) row[5])
+                    .readyAt(newStatus == OrderStatus.READY ? now : (LocalDateTime) row[6])
+                    .build();
+            etaEngine.refresh(view);
+
+            idsByStatus.computeIfAbsent(newStatus, status -> new ArrayList<>()).add(orderId);
+            etas.put(orderId, view.getEstimatedDeliveryTime());
+            if (newStatus == OrderStatus.CANCELLED) {
+                String reason = StringUtils.hasText(update.getCancellationReason())
+                        ? update.getCancellationReason() : RESTAURANT_CANCELLATION_REASON;
+                cancellationReasons.put(orderId, reason);
+                events.put(orderId, new OrderCancelledEvent(orderId, ownerId, reason, oldStatus));
+            } else {
+                events.put(orderId, new OrderStatusChangedEvent(orderId, oldStatus, newStatus, ownerId));
+            }
+            results.add(OrderStatusUpdateResultDTO.builder()
+                    .orderId(orderId)
+                    .result("UPDATED")
+                    .previousStatus(oldStatus.name())
+                    .status(newStatus.name())
+                    .estimatedDeliveryTime(view.getEstimatedDeliveryTime())
+                    .build());
+        }
+
+        idsByStatus.forEach((status, ids) -> orderStatusBatchWriter.updateStatus(ids, status, now));
+        if (!etas.isEmpty()) {
+            orderStatusBatchWriter.updateEstimatedDeliveryTimes(etas);
+        }
+        if (!cancellationReasons.isEmpty()) {
+            orderStatusBatchWriter.updateCancellationReasons(cancellationReasons);
+        }
+        outboxPublisher.appendAll(events);
+
+        log.info("Updated status of {} of {} orders of restaurant {}", events.size(), updates.size(), restaurantId);
+        return BulkOrderStatusUpdateResultDTO.builder()
+                .restaurantId(restaurantId)
+                .requested(updates.size())
+                .updated(events.size())
+                .failed(updates.size() - events.size())
+                .results(results)
+                .build();
+    }
+
+    private OrderStatusUpdateResultDTO failedUpdate(Long orderId, String result, OrderStatus status, String message) {
+        return OrderStatusUpdateResultDTO.builder()
+                .orderId(orderId)
+                .result(result)
+                .status(status != null ? status.name() : null)
+                .message(message)
+                .build();
+    }
+
     /**
      * Get order by ID
      */
     @Transactional(readOnly = true)
     public OrderDTO getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
         return mapToDTO(order);
     }
@@ -201,8 +363,16 @@ public class OrderService {
     @Transactional(readOnly = true)
     public Page<OrderDTO> getCustomerOrders(Long customerId, Pageable pageable) {
         log.info("Fetching orders for customer: {}", customerId);
-        return orderRepository.findByCustomerIdOrderByPlacedAtDesc(customerId, pageable)
-                .map(this::mapToDTO);
+        return mapPageToDTO(orderRepository.findByCustomerIdOrderByPlacedAtDesc(customerId, pageable));
+    }
+
+    /**
+     * Get orders for a customer, keyset-paginated from a cursor
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getCustomerOrders(Long customerId, String cursor, int size) {
+        log.info("Fetching orders for customer: {} after cursor", customerId);
+        return seek(OrderSpecifications.forCustomer(customerId), cursor, size);
     }
 
     /**
@@ -213,12 +383,21 @@ public class OrderService {
         log.info("Fetching orders for restaurant: {} with status: {}", restaurantId, status);
 
         if (status != null) {
-            return orderRepository.findByRestaurantIdAndStatusOrderByPlacedAtDesc(restaurantId, status, pageable)
-                    .map(this::mapToDTO);
+            return mapPageToDTO(orderRepository.findByRestaurantIdAndStatusOrderByPlacedAtDesc(
+                    restaurantId, status, pageable));
         }
 
-        return orderRepository.findByRestaurantIdOrderByPlacedAtDesc(restaurantId, pageable)
-                .map(this::mapToDTO);
+        return mapPageToDTO(orderRepository.findByRestaurantIdOrderByPlacedAtDesc(restaurantId, pageable));
+    }
+
+    /**
+     * Get orders for a restaurant, keyset-paginated from a cursor
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getRestaurantOrders(Long restaurantId, OrderStatus status, String cursor, int size) {
+        log.info("Fetching orders for restaurant: {} with status: {} after cursor", restaurantId, status);
+        return seek(OrderSpecifications.forRestaurant(restaurantId)
+                .and(OrderSpecifications.hasStatus(status)), cursor, size);
     }
 
     /**
@@ -227,8 +406,16 @@ public class OrderService {
     @Transactional(readOnly = true)
     public Page<OrderDTO> getDeliveryAgentOrders(Long agentId, Pageable pageable) {
         log.info("Fetching orders for delivery agent: {}", agentId);
-        return orderRepository.findByDeliveryAgentIdOrderByPlacedAtDesc(agentId, pageable)
-                .map(this::mapToDTO);
+        return mapPageToDTO(orderRepository.findByDeliveryAgentIdOrderByPlacedAtDesc(agentId, pageable));
+    }
+
+    /**
+     * Get orders for a delivery agent, keyset-paginated from a cursor
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getDeliveryAgentOrders(Long agentId, String cursor, int size) {
+        log.info("Fetching orders for delivery agent: {} after cursor", agentId);
+        return seek(OrderSpecifications.forDeliveryAgent(agentId), cursor, size);
     }
 
     /**
@@ -241,20 +428,19 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
 
         // Only allow cancellation if order hasn't been picked up
-        if (order.getStatus() == OrderStatus.PICKED_UP ||
-            order.getStatus() == OrderStatus.OUT_FOR_DELIVERY ||
-            order.getStatus() == OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Cannot cancel order in status: " + order.getStatus());
-        }
+        OrderStatus previousStatus = order.getStatus();
+        OrderStatusTransitions.check(previousStatus, OrderStatus.CANCELLED);
 
         order.setStatus(OrderStatus.CANCELLED);
+        order.setCancelledAt(LocalDateTime.now());
         order.setCancellationReason(cancellationReason);
+        etaEngine.refresh(order);
 
         Order cancelledOrder = orderRepository.save(order);
         log.info("Order {} cancelled successfully", orderId);
 
         // Publish cancellation event
-        eventPublisher.publishEvent(new OrderCancelledEvent(orderId, userId, cancellationReason));
+        outboxPublisher.append(orderId, new OrderCancelledEvent(orderId, userId, cancellationReason, previousStatus));
 
         return mapToDTO(cancelledOrder);
     }
@@ -266,30 +452,17 @@ public class OrderService {
     public Page<OrderDTO> getCustomerOrdersFiltered(Long customerId, OrderStatus status, 
                                                       String fromDate, String toDate, Pageable pageable) {
         log.info("Fetching filtered orders for customer: {} with status: {}", customerId, status);
-        
-        Page<Order> orders = orderRepository.findByCustomerIdOrderByPlacedAtDesc(customerId, pageable);
-        
-        // Apply filters
-        List<Order> filtered = orders.getContent().stream()
-                .filter(order -> status == null || order.getStatus() == status)
-                .filter(order -> {
-                    if (fromDate != null && !fromDate.isEmpty()) {
-                        LocalDateTime from = LocalDateTime.parse(fromDate);
-                        if (order.getPlacedAt().isBefore(from)) return false;
-                    }
-                    if (toDate != null && !toDate.isEmpty()) {
-                        LocalDateTime to = LocalDateTime.parse(toDate);
-                        if (order.getPlacedAt().isAfter(to)) return false;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-        
-        List<OrderDTO> filteredDtos = filtered.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return mapPageToDTO(orderRepository.findAll(customerFilter(customerId, status, fromDate, toDate), pageable));
+    }
 
-        return new PageImpl<>(filteredDtos, pageable, filteredDtos.size());
+    /**
+     * Get customer orders with filtering, keyset-paginated from a cursor
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getCustomerOrdersFiltered(Long customerId, OrderStatus status,
+                                                          String fromDate, String toDate, String cursor, int size) {
+        log.info("Fetching filtered orders for customer: {} with status: {} after cursor", customerId, status);
+        return seek(customerFilter(customerId, status, fromDate, toDate), cursor, size);
     }
 
     /**
@@ -365,14 +538,61 @@ public class OrderService {
         return GeoUtils.haversineDistance(lat1, lon1, lat2, lon2);
     }
 
+    private Specification<Order> customerFilter(Long customerId, OrderStatus status, String fromDate, String toDate) {
+        return OrderSpecifications.forCustomer(customerId)
+                .and(OrderSpecifications.hasStatus(status))
+                .and(OrderSpecifications.placedFrom(parseDateTime(fromDate, "fromDate")))
+                .and(OrderSpecifications.placedTo(parseDateTime(toDate, "toDate")));
+    }
+
+    private LocalDateTime parseDateTime(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid " + name + ": " + value);
+        }
+    }
+
     /**
-     * Generate unique order number
+     * Fetch the next keyset page in (placedAt DESC, id DESC) order; reads limit + 1 rows
+     * to detect whether another page follows, and never counts
      */
-    private String generateOrderNumber() {
-        long timestamp = System.currentTimeMillis();
-        Random random = new Random();
-        int randomNum = random.nextInt(10000);
-        return "ORD-" + timestamp + "-" + String.format("%04d", randomNum);
+    private CursorPage<OrderDTO> seek(Specification<Order> filter, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        List<Order> rows = orderRepository.findBy(
+                filter.and(OrderSpecifications.placedBefore(KeysetCursor.decode(cursor))),
+                query -> query.sortBy(KEYSET_SORT)
+                        .limit(limit + 1)
+                        .project("customer", "restaurant", "deliveryAgent")
+                        .all());
+
+        boolean hasNext = rows.size() > limit;
+        List<Order> page = hasNext ? rows.subList(0, limit) : rows;
+        fetchItems(page);
+
+        Order last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return CursorPage.<OrderDTO>builder()
+                .content(page.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .nextCursor(hasNext ? new KeysetCursor(last.getPlacedAt(), last.getId()).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    /**
+     * Convert a page of orders to DTOs, loading the items of the whole page in one query
+     */
+    private Page<OrderDTO> mapPageToDTO(Page<Order> orders) {
+        fetchItems(orders.getContent());
+        return orders.map(this::mapToDTO);
+    }
+
+    private void fetchItems(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            orderRepository.fetchItems(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        }
     }
 
     /**
@@ -0,0 +1,23 @@
+package com.fooddelivery.modules.order.domain.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusUpdateRequest {
+
+    @NotEmpty(message = "At least one status update is required")
+    @Size(max = 200, message = "At most 200 orders can be updated at once")
+    @Valid
+    private List<OrderStatusUpdateRequest> updates;
+}
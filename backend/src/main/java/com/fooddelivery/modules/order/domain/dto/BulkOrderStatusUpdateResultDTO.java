@@ -0,0 +1,21 @@
+package com.fooddelivery.modules.order.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusUpdateResultDTO {
+    private Long restaurantId;
+    private Integer requested;
+    private Integer updated;
+    private Integer failed;
+    // One entry per requested update, in request order
+    private List<OrderStatusUpdateResultDTO> results;
+}
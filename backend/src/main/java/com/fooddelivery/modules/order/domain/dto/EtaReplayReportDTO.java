@@ -0,0 +1,25 @@
+package com.fooddelivery.modules.order.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtaReplayReportDTO {
+    private Integer days;
+    private Long orders;
+    private Long deliveredOrders;
+    private Integer restaurantsLearned;
+    // Error of the ETA given at placement against the actual delivery time; positive bias means late
+    private Double placementMaeMinutes;
+    private Double placementP90ErrorMinutes;
+    private Double placementBiasMinutes;
+    // Error of the ETA given at pickup
+    private Double pickupMaeMinutes;
+    private Double meanPredictionMicros;
+    private Long durationMs;
+}
@@ -0,0 +1,26 @@
+package com.fooddelivery.modules.order.domain.dto;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateRequest {
+
+    @NotNull(message = "Order ID is required")
+    private Long orderId;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+
+    // Recorded on the order when status is CANCELLED; a default reason is used when omitted
+    @Size(max = 500, message = "Cancellation reason must not exceed 500 characters")
+    private String cancellationReason;
+}
@@ -0,0 +1,22 @@
+package com.fooddelivery.modules.order.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateResultDTO {
+    private Long orderId;
+    // UPDATED, NOT_FOUND, INVALID_TRANSITION or DUPLICATE
+    private String result;
+    private String previousStatus;
+    private String status;
+    private LocalDateTime estimatedDeliveryTime;
+    private String message;
+}
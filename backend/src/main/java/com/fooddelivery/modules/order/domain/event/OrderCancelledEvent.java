@@ -1,5 +1,6 @@
 package com.fooddelivery.modules.order.domain.event;
 
+import com.fooddelivery.model.enums.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,4 +12,5 @@ public class OrderCancelledEvent {
     private Long orderId;
     private Long userId;
     private String reason;
+    private OrderStatus previousStatus;
 }
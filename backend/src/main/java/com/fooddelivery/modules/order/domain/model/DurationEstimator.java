@@ -0,0 +1,52 @@
+package com.fooddelivery.modules.order.domain.model;
+
+import com.fooddelivery.util.DecayingQuantileSketch;
+
+/**
+ * Online estimate of one kind of duration. The median of a decaying quantile sketch is the
+ * estimate once enough samples were seen, since it shrugs off outliers such as an order marked
+ * ready long after it was; before that, an exponentially weighted mean stands in.
+ */
+public class DurationEstimator {
+
+    private static final double RELATIVE_ACCURACY = 0.02;
+    private static final double MIN_SECONDS = 1;
+    private static final double MAX_SECONDS = 24 * 3600;
+
+    private final DecayingQuantileSketch sketch;
+    private final double ewmaAlpha;
+    private final int minSamples;
+    private double ewma = Double.NaN;
+    private long count;
+
+    public DurationEstimator(double halfLifeSamples, int minSamples) {
+        this.sketch = new DecayingQuantileSketch(RELATIVE_ACCURACY, MIN_SECONDS, MAX_SECONDS, halfLifeSamples);
+        // Same memory as the sketch: a sample halfLife samples old keeps half its weight
+        this.ewmaAlpha = 1 - Math.pow(0.5, 1 / halfLifeSamples);
+        this.minSamples = minSamples;
+    }
+
+    public synchronized void record(double seconds) {
+        sketch.add(seconds);
+        ewma = Double.isNaN(ewma) ? seconds : ewma + ewmaAlpha * (seconds - ewma);
+        count++;
+    }
+
+    /**
+     * Estimated duration in seconds, or the fallback before any sample was recorded
+     */
+    public synchronized double estimate(double fallback) {
+        if (count == 0) {
+            return fallback;
+        }
+        return count >= minSamples ? sketch.quantile(0.5) : ewma;
+    }
+
+    public synchronized double quantile(double q) {
+        return sketch.quantile(q);
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+}
@@ -0,0 +1,141 @@
+package com.fooddelivery.modules.order.domain.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learned stage durations of the order lifecycle: confirmation (placed to confirmed), preparation
+ * per restaurant (confirmed to ready), handoff (ready to picked up) and travel pace per distance
+ * bucket (picked up to delivered). Stages without samples fall back to the priors.
+ */
+public class EtaModel {
+
+    public enum Stage {
+        CONFIRM, PREP, HANDOFF, TRAVEL
+    }
+
+    public record Eta(LocalDateTime pickupAt, LocalDateTime deliveryAt) {
+    }
+
+    // Upper bounds of the distance buckets; the last bucket is open-ended
+    private static final double[] DISTANCE_BUCKETS_KM = {1, 2, 3, 5, 8};
+    // Shorter trips say more about parking and stairs than about speed
+    private static final double MIN_TRAVEL_KM = 0.2;
+    private static final long MAX_STAGE_SECONDS = 6 * 3600;
+
+    private final double halfLifeSamples;
+    private final int minSamples;
+    private final double defaultConfirmSeconds;
+    private final double defaultHandoffSeconds;
+    private final double defaultPaceSecondsPerKm;
+
+    private final DurationEstimator confirm;
+    private final DurationEstimator handoff;
+    private final DurationEstimator[] paceByDistance;
+    private final Map<Long, DurationEstimator> prepByRestaurant = new ConcurrentHashMap<>();
+
+    public EtaModel(double halfLifeSamples, int minSamples, double defaultConfirmSeconds,
+                    double defaultHandoffSeconds, double defaultSpeedKmh) {
+        this.halfLifeSamples = halfLifeSamples;
+        this.minSamples = minSamples;
+        this.defaultConfirmSeconds = defaultConfirmSeconds;
+        this.defaultHandoffSeconds = defaultHandoffSeconds;
+        this.defaultPaceSecondsPerKm = 3600 / defaultSpeedKmh;
+        this.confirm = new DurationEstimator(halfLifeSamples, minSamples);
+        this.handoff = new DurationEstimator(halfLifeSamples, minSamples);
+        this.paceByDistance = new DurationEstimator[DISTANCE_BUCKETS_KM.length + 1];
+        for (int i = 0; i < paceByDistance.length; i++) {
+            paceByDistance[i] = new DurationEstimator(halfLifeSamples, minSamples);
+        }
+    }
+
+    /**
+     * Learn from the order having just completed the stage; incomplete or implausible stages are ignored
+     */
+    public void observe(OrderTimeline order, Stage stage) {
+        switch (stage) {
+            case CONFIRM -> {
+                long seconds = seconds(order.placedAt(), order.confirmedAt());
+                if (seconds > 0) {
+                    confirm.record(seconds);
+                }
+            }
+            case PREP -> {
+                long seconds = seconds(order.confirmedAt(), order.readyAt());
+                if (seconds > 0) {
+                    prepByRestaurant.computeIfAbsent(order.restaurantId(),
+                            id -> new DurationEstimator(halfLifeSamples, minSamples)).record(seconds);
+                }
+            }
+            case HANDOFF -> {
+                long seconds = seconds(order.readyAt(), order.pickedUpAt());
+                if (seconds > 0) {
+                    handoff.record(seconds);
+                }
+            }
+            case TRAVEL -> {
+                long seconds = seconds(order.pickedUpAt(), order.deliveredAt());
+                if (seconds > 0 && order.distanceKm() >= MIN_TRAVEL_KM) {
+                    paceByDistance[distanceBucket(order.distanceKm())].record(seconds / order.distanceKm());
+                }
+            }
+        }
+    }
+
+    /**
+     * Expected pickup and delivery times as of now. Stages already completed use their actual
+     * times; an overdue stage is expected to finish no earlier than now.
+     */
+    public Eta predict(OrderTimeline order, LocalDateTime now) {
+        LocalDateTime confirmedAt = order.confirmedAt() != null ? order.confirmedAt()
+                : notBefore(now, order.placedAt(), confirm.estimate(defaultConfirmSeconds));
+        LocalDateTime readyAt = order.readyAt() != null ? order.readyAt()
+                : notBefore(now, confirmedAt, prepSeconds(order));
+        LocalDateTime pickupAt = order.pickedUpAt() != null ? order.pickedUpAt()
+                : notBefore(now, readyAt, handoff.estimate(defaultHandoffSeconds));
+        LocalDateTime deliveryAt = order.deliveredAt() != null ? order.deliveredAt()
+                : notBefore(now, pickupAt, travelSeconds(order.distanceKm()));
+        return new Eta(pickupAt, deliveryAt);
+    }
+
+    /**
+     * Restaurants with learned prep times
+     */
+    public int restaurantCount() {
+        return prepByRestaurant.size();
+    }
+
+    private double prepSeconds(OrderTimeline order) {
+        DurationEstimator prep = prepByRestaurant.get(order.restaurantId());
+        double prior = order.prepTimeMinutes() * 60.0;
+        return prep != null ? prep.estimate(prior) : prior;
+    }
+
+    private double travelSeconds(double distanceKm) {
+        double km = Math.max(distanceKm, MIN_TRAVEL_KM);
+        return km * paceByDistance[distanceBucket(km)].estimate(defaultPaceSecondsPerKm);
+    }
+
+    private static int distanceBucket(double distanceKm) {
+        int bucket = 0;
+        while (bucket < DISTANCE_BUCKETS_KM.length && distanceKm >= DISTANCE_BUCKETS_KM[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static long seconds(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return -1;
+        }
+        long seconds = Duration.between(from, to).getSeconds();
+        return seconds <= MAX_STAGE_SECONDS ? seconds : -1;
+    }
+
+    private static LocalDateTime notBefore(LocalDateTime now, LocalDateTime start, double seconds) {
+        LocalDateTime end = start.plusSeconds(Math.round(seconds));
+        return end.isBefore(now) ? now : end;
+    }
+}
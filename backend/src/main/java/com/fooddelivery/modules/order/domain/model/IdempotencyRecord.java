@@ -0,0 +1,14 @@
+package com.fooddelivery.modules.order.domain.model;
+
+import com.fooddelivery.modules.order.domain.dto.OrderDTO;
+
+/**
+ * What is stored under an Idempotency-Key: a fingerprint of the request that claimed the key and,
+ * once that request completed, the order it created. A null order means still in flight.
+ */
+public record IdempotencyRecord(String fingerprint, OrderDTO order) {
+
+    public boolean completed() {
+        return order != null;
+    }
+}
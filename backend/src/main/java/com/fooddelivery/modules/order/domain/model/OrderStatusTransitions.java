@@ -0,0 +1,67 @@
+package com.fooddelivery.modules.order.domain.model;
+
+import com.fooddelivery.exception.InvalidStatusTransitionException;
+import com.fooddelivery.model.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The order lifecycle: which statuses an order may move to from each status.
+ * DELIVERED and CANCELLED are terminal.
+ */
+public final class OrderStatusTransitions {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED = new EnumMap<>(OrderStatus.class);
+
+    static {
+        allow(OrderStatus.PLACED, OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+        allow(OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.ASSIGNED, OrderStatus.CANCELLED);
+        allow(OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.ASSIGNED, OrderStatus.CANCELLED);
+        allow(OrderStatus.READY, OrderStatus.ASSIGNED, OrderStatus.PICKED_UP, OrderStatus.CANCELLED);
+        // An agent can accept before the kitchen is done; the restaurant then carries on from ASSIGNED.
+        // Pickup from ASSIGNED additionally needs the order to have been marked ready (see checkPickup)
+        allow(OrderStatus.ASSIGNED, OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.PICKED_UP, OrderStatus.CANCELLED);
+        allow(OrderStatus.PICKED_UP, OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED);
+        allow(OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED);
+        allow(OrderStatus.DELIVERED);
+        allow(OrderStatus.CANCELLED);
+    }
+
+    private OrderStatusTransitions() {
+    }
+
+    public static boolean isAllowed(OrderStatus from, OrderStatus to) {
+        return ALLOWED.get(from).contains(to);
+    }
+
+    /**
+     * Throw unless an order in status from may move to status to
+     */
+    public static void check(OrderStatus from, OrderStatus to) {
+        if (!isAllowed(from, to)) {
+            throw new InvalidStatusTransitionException("Cannot change order status from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Throw unless an order in status from, marked ready at readyAt (null if never), may be picked up.
+     * An order accepted after it was ready stays ASSIGNED with its readyAt set.
+     */
+    public static void checkPickup(OrderStatus from, LocalDateTime readyAt) {
+        check(from, OrderStatus.PICKED_UP);
+        if (from == OrderStatus.ASSIGNED && readyAt == null) {
+            throw new InvalidStatusTransitionException("Order is not ready for pickup yet");
+        }
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... to) {
+        Set<OrderStatus> targets = EnumSet.noneOf(OrderStatus.class);
+        Collections.addAll(targets, to);
+        ALLOWED.put(from, Collections.unmodifiableSet(targets));
+    }
+}
@@ -0,0 +1,17 @@
+package com.fooddelivery.modules.order.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The parts of an order the ETA model predicts from and learns from. Stage timestamps are null
+ * until the order reaches the stage.
+ */
+public record OrderTimeline(Long restaurantId,
+                            int prepTimeMinutes,
+                            double distanceKm,
+                            LocalDateTime placedAt,
+                            LocalDateTime confirmedAt,
+                            LocalDateTime readyAt,
+                            LocalDateTime pickedUpAt,
+                            LocalDateTime deliveredAt) {
+}
@@ -0,0 +1,57 @@
+package com.fooddelivery.modules.order.infra;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * JDBC access to order_number_nodes. Every call is its own statement outside any transaction, so
+ * a lease is visible to other instances as soon as the call returns.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderNumberNodeLeases {
+
+    private static final String TAKE_OVER_SQL =
+            "UPDATE order_number_nodes SET owner = ?, expires_at = ? WHERE node_id = ? AND expires_at < ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_number_nodes (node_id, owner, expires_at) VALUES (?, ?, ?)";
+
+    private static final String RENEW_SQL =
+            "UPDATE order_number_nodes SET expires_at = ? WHERE node_id = ? AND owner = ?";
+
+    private static final String RELEASE_SQL =
+            "DELETE FROM order_number_nodes WHERE node_id = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lease the node id if it is free or its lease ran out; false if another owner holds it
+     */
+    public boolean acquire(int nodeId, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        if (jdbcTemplate.update(TAKE_OVER_SQL, owner, Timestamp.valueOf(expiresAt), nodeId, Timestamp.valueOf(now)) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, nodeId, owner, Timestamp.valueOf(expiresAt)) == 1;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Extend the owner's lease; false if the lease ran out and another owner took the node id
+     */
+    public boolean renew(int nodeId, String owner, LocalDateTime expiresAt) {
+        return jdbcTemplate.update(RENEW_SQL, Timestamp.valueOf(expiresAt), nodeId, owner) == 1;
+    }
+
+    public void release(int nodeId, String owner) {
+        jdbcTemplate.update(RELEASE_SQL, nodeId, owner);
+    }
+}
@@ -1,34 +1,72 @@
 package com.fooddelivery.modules.order.infra;
 
 import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.enums.AssignmentStatus;
 import com.fooddelivery.model.enums.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    // Listings fetch the to-one associations used by OrderDTO in the page query itself;
+    // items are loaded for the whole page afterwards with fetchItems
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent"})
     Page<Order> findByCustomerIdOrderByPlacedAtDesc(Long customerId, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent"})
     Page<Order> findByRestaurantIdOrderByPlacedAtDesc(Long restaurantId, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent"})
     Page<Order> findByRestaurantIdAndStatusOrderByPlacedAtDesc(
         Long restaurantId, OrderStatus status, Pageable pageable);
     
     List<Order> findByRestaurantIdAndStatusIn(Long restaurantId, List<OrderStatus> statuses);
     
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent"})
     Page<Order> findByDeliveryAgentIdOrderByPlacedAtDesc(Long agentId, Pageable pageable);
     
+    @Override
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent"})
+    Page<Order> findAll(Specification<Order> spec, Pageable pageable);
+    
+    /**
+     * Initialize the items of already loaded orders in one query
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :orderIds")
+    List<Order> fetchItems(@Param("orderIds") Collection<Long> orderIds);
+    
+    @EntityGraph(attributePaths = {"customer", "restaurant", "deliveryAgent", "items"})
+    Optional<Order> findWithDetailsById(Long id);
+    
+    /**
+     * Load an order and hold its row lock until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
     List<Order> findByStatusAndPlacedAtBefore(OrderStatus status, LocalDateTime dateTime);
     
     @Query(value = "SELECT COUNT(o) FROM orders o WHERE o.restaurant_id = :restaurantId " +
@@ -56,4 +94,87 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                         @Param("endDate") LocalDateTime endDate);
 
     List<Order> findByRestaurantIdAndPlacedAtBetween(Long restaurantId, LocalDateTime startDate, LocalDateTime endDate);
+
+    // Rollup queries
+    @Query("SELECT o.restaurant.id, o.placedAt, o.totalAmount, o.deliveryFee, o.taxAmount " +
+           "FROM Order o WHERE o.id = :orderId")
+    List<Object[]> findRollupFactsById(@Param("orderId") Long orderId);
+
+    @Query("SELECT MIN(o.restaurant.id), MAX(o.restaurant.id) FROM Order o")
+    List<Object[]> findRestaurantIdRange();
+
+    /**
+     * [restaurantId, placedAt, status, totalAmount, deliveryFee, taxAmount, id] for every order of
+     * the restaurants in the id range; must be consumed and closed inside a transaction
+     */
+    @Query("SELECT o.restaurant.id, o.placedAt, o.status, o.totalAmount, o.deliveryFee, o.taxAmount, o.id " +
+           "FROM Order o WHERE o.restaurant.id BETWEEN :fromRestaurantId AND :toRestaurantId")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamRollupFactsByRestaurantIdBetween(@Param("fromRestaurantId") Long fromRestaurantId,
+                                                            @Param("toRestaurantId") Long toRestaurantId);
+
+    // Kitchen load queries
+    /**
+     * [orderId, restaurantId, restaurant prep time] for every order in one of the statuses
+     */
+    @Query("SELECT o.id, o.restaurant.id, o.restaurant.prepTimeMinutes FROM Order o WHERE o.status IN :statuses")
+    List<Object[]> findKitchenLoadByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    // ETA queries
+    /**
+     * [restaurantId, prep time, restaurant latitude, restaurant longitude, delivery latitude,
+     * delivery longitude, placedAt, confirmedAt, readyAt, pickedUpAt, deliveredAt] of every order
+     * placed since the given time, oldest first; must be consumed and closed inside a transaction
+     */
+    @Query("SELECT o.restaurant.id, o.restaurant.prepTimeMinutes, o.restaurant.latitude, o.restaurant.longitude, " +
+           "o.deliveryLatitude, o.deliveryLongitude, o.placedAt, o.confirmedAt, o.readyAt, o.pickedUpAt, o.deliveredAt " +
+           "FROM Order o WHERE o.placedAt >= :since ORDER BY o.placedAt")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamTimelinesPlacedSince(@Param("since") LocalDateTime since);
+
+    // Customer order stats queries
+    @Query("SELECT o.customer.id, o.placedAt, o.totalAmount FROM Order o WHERE o.id = :orderId")
+    List<Object[]> findCustomerStatsFactsById(@Param("orderId") Long orderId);
+
+    @Query("SELECT MIN(o.customer.id), MAX(o.customer.id) FROM Order o")
+    List<Object[]> findCustomerIdRange();
+
+    // Bulk status queries
+    /**
+     * [orderId, status, delivery latitude, delivery longitude, placedAt, confirmedAt, readyAt] of the
+     * restaurant's orders among the ids, row-locked in id order until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status, o.deliveryLatitude, o.deliveryLongitude, o.placedAt, o.confirmedAt, o.readyAt " +
+           "FROM Order o WHERE o.restaurant.id = :restaurantId AND o.id IN :orderIds ORDER BY o.id")
+    List<Object[]> findStatusRowsForUpdate(@Param("restaurantId") Long restaurantId,
+                                           @Param("orderIds") Collection<Long> orderIds);
+
+    // Dispatch queries
+    /**
+     * Orders in one of the statuses without an agent and without an open offer
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.deliveryAgent IS NULL " +
+           "AND NOT EXISTS (SELECT 1 FROM DeliveryAssignment a WHERE a.order = o AND a.status IN :openStatuses)")
+    List<Long> findUndispatchedIds(@Param("statuses") Collection<OrderStatus> statuses,
+                                   @Param("openStatuses") Collection<AssignmentStatus> openStatuses);
+
+    /**
+     * Lock the orders among the ids that are still waiting for an agent, skipping rows another
+     * dispatcher already holds (a lock timeout of -2 renders as FOR UPDATE SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :orderIds AND o.status IN :statuses " +
+           "AND o.deliveryAgent IS NULL ORDER BY o.id")
+    List<Long> claimUndispatchedIds(@Param("orderIds") Collection<Long> orderIds,
+                                    @Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.restaurant WHERE o.id IN :orderIds")
+    List<Order> findAllWithRestaurantByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT o.deliveryAgent.id, COUNT(o) FROM Order o WHERE o.deliveryAgent.id IN :agentIds " +
+           "AND o.status IN :statuses GROUP BY o.deliveryAgent.id")
+    List<Object[]> countByDeliveryAgentIdInAndStatusIn(@Param("agentIds") Collection<Long> agentIds,
+                                                       @Param("statuses") Collection<OrderStatus> statuses);
 }
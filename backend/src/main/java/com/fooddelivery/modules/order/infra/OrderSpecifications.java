@@ -0,0 +1,51 @@
+package com.fooddelivery.modules.order.infra;
+
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.util.KeysetCursor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Composable predicates for order listings. Null arguments yield no restriction.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> forCustomer(Long customerId) {
+        return (root, query, cb) -> cb.equal(root.get("customer").get("id"), customerId);
+    }
+
+    public static Specification<Order> forRestaurant(Long restaurantId) {
+        return (root, query, cb) -> cb.equal(root.get("restaurant").get("id"), restaurantId);
+    }
+
+    public static Specification<Order> forDeliveryAgent(Long agentId) {
+        return (root, query, cb) -> cb.equal(root.get("deliveryAgent").get("id"), agentId);
+    }
+
+    public static Specification<Order> hasStatus(OrderStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Order> placedFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("placedAt"), from);
+    }
+
+    public static Specification<Order> placedTo(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThanOrEqualTo(root.get("placedAt"), to);
+    }
+
+    /**
+     * Rows after the cursor in (placedAt DESC, id DESC) order
+     */
+    public static Specification<Order> placedBefore(KeysetCursor cursor) {
+        return (root, query, cb) -> cursor == null ? null : cb.or(
+                cb.lessThan(root.get("placedAt"), cursor.timestamp()),
+                cb.and(cb.equal(root.get("placedAt"), cursor.timestamp()),
+                        cb.lessThan(root.get("id"), cursor.id())));
+    }
+}
@@ -0,0 +1,80 @@
+package com.fooddelivery.modules.order.infra;
+
+import com.fooddelivery.model.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC writer for bulk order status changes, which move many orders without loading them.
+ * The status moves with one set-based UPDATE per target status; every order gets its own ETA,
+ * so ETAs go out as one batch of single-row updates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderStatusBatchWriter {
+
+    private static final String UPDATE_ETA_SQL = "UPDATE orders SET estimated_delivery_time = ? WHERE id = ?";
+    private static final String UPDATE_CANCELLATION_REASON_SQL = "UPDATE orders SET cancellation_reason = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Move the orders to the status and stamp the status's timestamp column, if it has one.
+     * Bumps the version so concurrent entity updates of these orders fail their optimistic check.
+     */
+    public int updateStatus(Collection<Long> orderIds, OrderStatus status, LocalDateTime now) {
+        String timestampColumn = switch (status) {
+            case CONFIRMED -> "confirmed_at";
+            case READY -> "ready_at";
+            case PICKED_UP -> "picked_up_at";
+            case DELIVERED -> "delivered_at";
+            case CANCELLED -> "cancelled_at";
+            default -> null;
+        };
+        String sql = "UPDATE orders SET status = :status, updated_at = :now, version = version + 1" +
+                (timestampColumn != null ? ", " + timestampColumn + " = :now" : "") +
+                " WHERE id IN (:orderIds)";
+        return namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("now", Timestamp.valueOf(now), Types.TIMESTAMP)
+                .addValue("orderIds", orderIds));
+    }
+
+    /**
+     * Store the ETA of each order; a null ETA clears it
+     */
+    public void updateEstimatedDeliveryTimes(Map<Long, LocalDateTime> etaByOrderId) {
+        List<Map.Entry<Long, LocalDateTime>> rows = new ArrayList<>(etaByOrderId.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_ETA_SQL, rows, rows.size(), (ps, row) -> {
+            if (row.getValue() != null) {
+                ps.setTimestamp(1, Timestamp.valueOf(row.getValue()));
+            } else {
+                ps.setNull(1, Types.TIMESTAMP);
+            }
+            ps.setLong(2, row.getKey());
+        });
+    }
+
+    /**
+     * Store the cancellation reason of each cancelled order
+     */
+    public void updateCancellationReasons(Map<Long, String> reasonByOrderId) {
+        List<Map.Entry<Long, String>> rows = new ArrayList<>(reasonByOrderId.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_CANCELLATION_REASON_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+    }
+}
@@ -0,0 +1,254 @@
+package com.fooddelivery.modules.outbox.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.model.entity.OutboxEvent;
+import com.fooddelivery.model.enums.OutboxStatus;
+import com.fooddelivery.modules.outbox.infra.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to the in-process listeners. Each poll locks a batch of due rows with
+ * SKIP LOCKED, so several instances can poll the same table without handing out an event twice,
+ * and commits the claim right away by pushing the rows' due time out by a lease. The events are
+ * then published on a bounded worker pool (virtual threads in virtual-thread mode) with no
+ * transaction or row lock held, and a second short transaction deletes the delivered rows and
+ * schedules retries for the rest. Delivery is at-least-once: events whose outcome was not
+ * recorded (a crash, or listeners running past the lease) are delivered again once the lease ends.
+ * <p>
+ * A batch holds at most one event per aggregate, the oldest one still pending, so the events of
+ * one order reach the listeners in the order they were recorded: a later event waits until the
+ * earlier one is delivered or given up, across retries and across dispatcher instances.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int MAX_BATCHES_PER_POLL = 10;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long leaseMs;
+    private final long pendingCountIntervalMs;
+    private final Executor handlerExecutor;
+
+    // Pending events as of the last count; counted by the poller, not on every metrics scrape
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private long pendingCountedAtMs;
+
+    private final Timer lagTimer;
+    private final Counter dispatchedCounter;
+    private final Counter failedCounter;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            Environment environment,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.dispatch-threads:4}") int dispatchThreads,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.retry-backoff-ms:5000}") long retryBackoffMs,
+                            @Value("${app.outbox.lease-ms:60000}") long leaseMs,
+                            @Value("${app.outbox.pending-count-interval-ms:15000}") long pendingCountIntervalMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoffMs = retryBackoffMs;
+        this.leaseMs = leaseMs;
+        this.pendingCountIntervalMs = pendingCountIntervalMs;
+
+        this.handlerExecutor = Threading.VIRTUAL.isActive(environment)
+                // One task per event, so batch-size already bounds the fan-out
+                ? new VirtualThreadTaskExecutor("outbox-dispatch-")
+                : boundedPool(Math.max(dispatchThreads, 1), this.batchSize);
+
+        this.lagTimer = Timer.builder("outbox.events.lag")
+                .description("Time from an event being recorded to its listeners having run")
+                .register(meterRegistry);
+        this.dispatchedCounter = Counter.builder("outbox.events.dispatched")
+                .description("Outbox events delivered to their listeners")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events.failed")
+                .description("Outbox event deliveries that threw and were scheduled for retry")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events waiting to be delivered, as of the poller's last count")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drain due events, a bounded number of batches per run so other scheduled jobs get a turn
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void poll() {
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            if (dispatchBatch() < batchSize) {
+                break;
+            }
+        }
+        countPending();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (handlerExecutor instanceof ThreadPoolExecutor pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ThreadPoolExecutor boundedPool(int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // The queue only overflows if batches overlap; the poller then delivers the event itself rather than dropping it
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-dispatch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> batch;
+        try {
+            batch = transactionTemplate.execute(status -> claim());
+        } catch (Exception ex) {
+            log.error("Outbox claim failed", ex);
+            return 0;
+        }
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // Every event is about a different aggregate, so they can all run in parallel
+        List<CompletableFuture<String>> results = new ArrayList<>(batch.size());
+        batch.forEach(event ->
+                results.add(CompletableFuture.supplyAsync(() -> deliver(event), handlerExecutor)));
+
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            String error = results.get(i).join();
+            if (error == null) {
+                delivered.add(batch.get(i).getId());
+            } else {
+                scheduleRetry(batch.get(i), error, now);
+                failed.add(batch.get(i));
+            }
+        }
+        dispatchedCounter.increment(delivered.size());
+        failedCounter.increment(failed.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> settle(delivered, failed));
+        } catch (Exception ex) {
+            log.error("Could not record the outcome of {} outbox events, they are delivered again after their lease",
+                    batch.size(), ex);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Lock a batch of due events and lease them; the lease is committed before any listener runs
+     */
+    private List<OutboxEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.claimBatch(
+                OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (!batch.isEmpty()) {
+            outboxEventRepository.leaseUntil(batch.stream().map(OutboxEvent::getId).toList(),
+                    now.plus(Duration.ofMillis(leaseMs)));
+        }
+        return batch;
+    }
+
+    private void settle(List<Long> delivered, List<OutboxEvent> failed) {
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+        }
+        for (OutboxEvent event : failed) {
+            outboxEventRepository.updateDeliveryState(event.getId(), event.getStatus(), event.getAttempts(),
+                    event.getLastError(), event.getAvailableAt());
+        }
+    }
+
+    private void countPending() {
+        long nowMs = System.currentTimeMillis();
+        if (nowMs - pendingCountedAtMs < pendingCountIntervalMs) {
+            return;
+        }
+        pendingCountedAtMs = nowMs;
+        try {
+            pendingEvents.set(outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+        } catch (Exception ex) {
+            log.warn("Could not count pending outbox events: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Publish one event; returns its error, or null once the listeners have run
+     */
+    private String deliver(OutboxEvent event) {
+        try {
+            Object payload = objectMapper.readValue(event.getPayload(), OutboxPublisher.eventType(event.getEventType()));
+            eventPublisher.publishEvent(payload);
+            lagTimer.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            return null;
+        } catch (Exception ex) {
+            log.warn("Outbox event {} ({}) failed on attempt {}", event.getId(), event.getEventType(),
+                    event.getAttempts() + 1, ex);
+            return String.valueOf(ex);
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, String error, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            log.error("Outbox event {} ({}) gave up after {} attempts", event.getId(), event.getEventType(), attempts);
+        } else {
+            event.setAvailableAt(now.plus(Duration.ofMillis(retryBackoffMs * attempts)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.fooddelivery.modules.outbox.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.model.entity.OutboxEvent;
+import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
+import com.fooddelivery.modules.order.domain.event.OrderPlacedEvent;
+import com.fooddelivery.modules.order.domain.event.OrderStatusChangedEvent;
+import com.fooddelivery.modules.outbox.infra.OutboxEventBatchWriter;
+import com.fooddelivery.modules.outbox.infra.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records domain events in the outbox as part of the caller's transaction, so an event
+ * exists if and only if the change that raised it committed. OutboxDispatcher delivers them.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Stream.of(
+                    OrderPlacedEvent.class, OrderStatusChangedEvent.class, OrderCancelledEvent.class)
+            .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventBatchWriter outboxEventBatchWriter;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Append an event about the given aggregate (e.g. an order id)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long aggregateId, Object event) {
+        outboxEventRepository.save(toOutboxEvent(aggregateId, event, LocalDateTime.now()));
+    }
+
+    /**
+     * Append one event per aggregate in a single JDBC batch, in map order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(Map<Long, ?> eventsByAggregateId) {
+        if (eventsByAggregateId.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(eventsByAggregateId.size());
+        eventsByAggregateId.forEach((aggregateId, event) -> events.add(toOutboxEvent(aggregateId, event, now)));
+        outboxEventBatchWriter.insertBatch(events);
+    }
+
+    private OutboxEvent toOutboxEvent(Long aggregateId, Object event, LocalDateTime now) {
+        String type = event.getClass().getSimpleName();
+        if (EVENT_TYPES.get(type) != event.getClass()) {
+            throw new IllegalArgumentException("Unregistered outbox event type: " + event.getClass().getName());
+        }
+        try {
+            return OutboxEvent.builder()
+                    .eventType(type)
+                    .aggregateId(aggregateId)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(now)
+                    .availableAt(now)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox event " + type, e);
+        }
+    }
+
+    static Class<?> eventType(String name) {
+        Class<?> type = EVENT_TYPES.get(name);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown outbox event type: " + name);
+        }
+        return type;
+    }
+}
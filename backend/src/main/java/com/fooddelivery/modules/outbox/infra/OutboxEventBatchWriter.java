@@ -0,0 +1,37 @@
+package com.fooddelivery.modules.outbox.infra;
+
+import com.fooddelivery.model.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC batch writer for outbox_events.
+ * OutboxEvent uses IDENTITY keys, which disables Hibernate insert batching,
+ * so the events of a bulk change are written with a single multi-row batch instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxEventBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, aggregate_id, payload, status, attempts, created_at, available_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertBatch(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getEventType());
+            ps.setLong(2, event.getAggregateId());
+            ps.setString(3, event.getPayload());
+            ps.setString(4, event.getStatus().name());
+            ps.setInt(5, event.getAttempts());
+            ps.setTimestamp(6, Timestamp.valueOf(event.getCreatedAt()));
+            ps.setTimestamp(7, Timestamp.valueOf(event.getAvailableAt()));
+        });
+    }
+}
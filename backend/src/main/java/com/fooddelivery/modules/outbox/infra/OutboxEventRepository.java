@@ -0,0 +1,56 @@
+package com.fooddelivery.modules.outbox.infra;
+
+import com.fooddelivery.model.entity.OutboxEvent;
+import com.fooddelivery.model.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Lock the oldest due events, skipping rows another dispatcher already holds
+     * (a lock timeout of -2 renders as FOR UPDATE SKIP LOCKED). Only the oldest pending event of
+     * each aggregate qualifies, so an aggregate's events are delivered one after another even when
+     * an earlier one is waiting for a retry or is held by another dispatcher.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status AND e.availableAt <= :now " +
+           "AND NOT EXISTS (SELECT 1 FROM OutboxEvent o WHERE o.aggregateId = e.aggregateId " +
+           "AND o.status = :status AND o.id < e.id) ORDER BY e.id")
+    List<OutboxEvent> claimBatch(@Param("status") OutboxStatus status,
+                                 @Param("now") LocalDateTime now,
+                                 Pageable limit);
+
+    /**
+     * Push the events' due time out to the lease end, so no dispatcher claims them again while
+     * their listeners run
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :leaseUntil WHERE e.id IN :ids")
+    int leaseUntil(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.lastError = :lastError, " +
+           "e.availableAt = :availableAt WHERE e.id = :id")
+    int updateDeliveryState(@Param("id") Long id,
+                            @Param("status") OutboxStatus status,
+                            @Param("attempts") int attempts,
+                            @Param("lastError") String lastError,
+                            @Param("availableAt") LocalDateTime availableAt);
+
+    long countByStatus(OutboxStatus status);
+}
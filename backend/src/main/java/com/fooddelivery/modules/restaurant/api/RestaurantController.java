@@ -6,6 +6,7 @@ import com.fooddelivery.modules.restaurant.domain.dto.ProductDTO;
 import com.fooddelivery.modules.restaurant.domain.dto.CreateProductRequest;
 import com.fooddelivery.modules.restaurant.domain.dto.UpdateProductRequest;
 import com.fooddelivery.modules.restaurant.domain.dto.UpdateRestaurantRequest;
+import com.fooddelivery.modules.restaurant.domain.dto.SearchResultDTO;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -51,6 +52,19 @@ public class RestaurantController {
         return ResponseEntity.ok(restaurantService.getRestaurantById(restaurantId));
     }
 
+    /**
+     * Search restaurants and dishes, best match first
+     * GET /api/v1/restaurants/search?q=margherta piz&type=all&limit=20
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchResultDTO>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Searching catalog for: {}", q);
+        return ResponseEntity.ok(restaurantService.searchCatalog(q, type, limit));
+    }
+
     /**
      * Search restaurants by cuisine
      * GET /api/v1/restaurants/search/cuisine?type=Italian
@@ -88,15 +102,16 @@ public class RestaurantController {
 
     /**
      * Get nearby restaurants
-     * GET /api/v1/restaurants/nearby?latitude=40.7128&longitude=-74.0060&radius=5
+     * GET /api/v1/restaurants/nearby?latitude=40.7128&longitude=-74.0060&radius=5&limit=20
      */
     @GetMapping("/nearby")
     public ResponseEntity<List<RestaurantDTO>> getNearbyRestaurants(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "5") Double radiusKm) {
+            @RequestParam(defaultValue = "5") Double radiusKm,
+            @RequestParam(required = false) Integer limit) {
         log.info("Searching nearby restaurants at ({}, {}) within {}km", latitude, longitude, radiusKm);
-        return ResponseEntity.ok(restaurantService.getNearbyRestaurants(latitude, longitude, radiusKm));
+        return ResponseEntity.ok(restaurantService.getNearbyRestaurants(latitude, longitude, radiusKm, limit));
     }
 
     /**
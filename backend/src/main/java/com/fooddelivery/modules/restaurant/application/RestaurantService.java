@@ -5,11 +5,15 @@ import com.fooddelivery.modules.restaurant.domain.dto.ProductDTO;
 import com.fooddelivery.modules.restaurant.domain.dto.CreateProductRequest;
 import com.fooddelivery.modules.restaurant.domain.dto.UpdateProductRequest;
 import com.fooddelivery.modules.restaurant.domain.dto.UpdateRestaurantRequest;
+import com.fooddelivery.modules.restaurant.domain.dto.SearchResultDTO;
+import com.fooddelivery.modules.restaurant.infra.CatalogSearchIndex;
+import com.fooddelivery.modules.restaurant.infra.RestaurantCache;
+import com.fooddelivery.modules.restaurant.infra.RestaurantGeoIndex;
 import com.fooddelivery.modules.restaurant.infra.RestaurantRepository;
 import com.fooddelivery.model.entity.Product;
 import com.fooddelivery.model.entity.Restaurant;
 import com.fooddelivery.repository.ProductRepository;
-import com.fooddelivery.util.GeoUtils;
+import com.fooddelivery.exception.BadRequestException;
 import com.fooddelivery.exception.ResourceNotFoundException;
 import com.fooddelivery.exception.UnauthorizedAccessException;
 import lombok.RequiredArgsConstructor;
@@ -19,10 +23,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,18 +39,25 @@ import java.util.stream.Collectors;
 @Transactional
 public class RestaurantService {
 
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private final RestaurantRepository restaurantRepository;
     private final ProductRepository productRepository;
+    private final RestaurantGeoIndex restaurantGeoIndex;
+    private final RestaurantCache restaurantCache;
+    private final CatalogSearchIndex catalogSearchIndex;
+
+    // The cached reads below only open a transaction on a miss (inside the repository calls),
+    // so cache hits never take a connection from the pool
 
     /**
      * Get restaurant by ID
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public RestaurantDTO getRestaurantById(Long restaurantId) {
         log.info("Fetching restaurant with ID: {}", restaurantId);
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with ID: " + restaurantId));
-        return mapToDTO(restaurant);
+        return restaurantCache.getRestaurant(restaurantId, () -> mapToDTO(restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with ID: " + restaurantId))));
     }
 
     /**
@@ -75,49 +90,74 @@ public class RestaurantService {
                 .map(this::mapToDTO);
     }
 
+    /**
+     * Search restaurants and dishes by name, cuisine, category and description, best match first.
+     * Served from the in-memory catalog index; tolerates typos and incomplete last words.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SearchResultDTO> searchCatalog(String query, String type, int limit) {
+        log.info("Searching catalog for: {} ({})", query, type);
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be empty");
+        }
+        CatalogSearchIndex.Scope scope;
+        try {
+            scope = CatalogSearchIndex.Scope.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Search type must be one of all, restaurants, dishes");
+        }
+        return catalogSearchIndex.search(query, scope, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+    }
+
     /**
      * Get top-rated restaurants
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<RestaurantDTO> getTopRatedRestaurants(int limit) {
         log.info("Fetching top {} rated restaurants", limit);
-        PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "rating"));
-        return restaurantRepository.findByIsActiveTrueAndIsAcceptingOrdersTrue(pageRequest)
-                .getContent()
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return restaurantCache.getTopRated(limit, () -> {
+            PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "rating"));
+            return restaurantRepository.findByIsActiveTrueAndIsAcceptingOrdersTrue(pageRequest)
+                    .getContent()
+                    .stream()
+                    .map(this::mapToDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
      * Get menu items (products) for a restaurant
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> getRestaurantMenu(Long restaurantId) {
         log.info("Fetching menu for restaurant: {}", restaurantId);
 
-        restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with ID: " + restaurantId));
+        return restaurantCache.getMenu(restaurantId, () -> {
+            restaurantRepository.findById(restaurantId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with ID: " + restaurantId));
 
-        List<Product> products = productRepository.findByRestaurantIdAndIsAvailableTrue(restaurantId);
-        return products.stream()
-                .map(this::mapProductToDTO)
-                .collect(Collectors.toList());
+            List<Product> products = productRepository.findByRestaurantIdAndIsAvailableTrue(restaurantId);
+            return products.stream()
+                    .map(this::mapProductToDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
      * Get menu items by category
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> getRestaurantMenuByCategory(Long restaurantId, String category) {
         log.info("Fetching {} items for restaurant: {}", category, restaurantId);
 
-        List<Product> products = productRepository
-                .findByRestaurantIdAndCategoryAndIsAvailableTrue(restaurantId, category);
+        return restaurantCache.getMenuByCategory(restaurantId, category, () -> {
+            List<Product> products = productRepository
+                    .findByRestaurantIdAndCategoryAndIsAvailableTrue(restaurantId, category);
 
-        return products.stream()
-                .map(this::mapProductToDTO)
-                .collect(Collectors.toList());
+            return products.stream()
+                    .map(this::mapProductToDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
@@ -132,7 +172,9 @@ public class RestaurantService {
         verifyRestaurantOwnership(restaurant, ownerId);
 
         restaurant.setIsAcceptingOrders(isAcceptingOrders);
-        Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
+        // Flushed so the bumped version goes out with the cache invalidation
+        Restaurant updatedRestaurant = restaurantRepository.saveAndFlush(restaurant);
+        restaurantCache.evictRestaurant(restaurantId, updatedRestaurant.getVersion());
 
         log.info("Restaurant {} status updated", restaurantId);
         return mapToDTO(updatedRestaurant);
@@ -182,7 +224,9 @@ public class RestaurantService {
                 .prepTimeMinutes(request.getPrepTimeMins() != null ? request.getPrepTimeMins() : 15)
                 .build();
 
-        Product savedProduct = productRepository.save(product);
+        Product savedProduct = productRepository.saveAndFlush(product);
+        restaurantCache.evictMenu(restaurantId, savedProduct.getId(), savedProduct.getVersion());
+        catalogSearchIndex.refreshProduct(savedProduct.getId());
         log.info("Product created with ID: {}", savedProduct.getId());
 
         return mapProductToDTO(savedProduct);
@@ -208,7 +252,9 @@ public class RestaurantService {
         if (request.getIsAvailable() != null) product.setIsAvailable(request.getIsAvailable());
         if (request.getPrepTimeMins() != null) product.setPrepTimeMinutes(request.getPrepTimeMins());
 
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        restaurantCache.evictMenu(product.getRestaurant().getId(), productId, updatedProduct.getVersion());
+        catalogSearchIndex.refreshProduct(productId);
         log.info("Product {} updated successfully", productId);
 
         return mapProductToDTO(updatedProduct);
@@ -226,6 +272,9 @@ public class RestaurantService {
         verifyRestaurantOwnership(product.getRestaurant(), ownerId);
 
         productRepository.delete(product);
+        // A deleted row has no next version; one past the last makes the delete win over updates
+        restaurantCache.evictMenu(product.getRestaurant().getId(), productId, product.getVersion() + 1);
+        catalogSearchIndex.refreshProduct(productId);
         log.info("Product {} deleted successfully", productId);
     }
 
@@ -241,7 +290,9 @@ public class RestaurantService {
         verifyRestaurantOwnership(product.getRestaurant(), ownerId);
 
         product.setIsAvailable(isAvailable);
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        restaurantCache.evictMenu(product.getRestaurant().getId(), productId, updatedProduct.getVersion());
+        catalogSearchIndex.refreshProduct(productId);
 
         return mapProductToDTO(updatedProduct);
     }
@@ -288,7 +339,10 @@ public class RestaurantService {
         if (request.getIsActive() != null) restaurant.setIsActive(request.getIsActive());
         if (request.getIsAcceptingOrders() != null) restaurant.setIsAcceptingOrders(request.getIsAcceptingOrders());
 
-        Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
+        Restaurant updatedRestaurant = restaurantRepository.saveAndFlush(restaurant);
+        restaurantGeoIndex.putAfterCommit(updatedRestaurant);
+        restaurantCache.evictRestaurant(restaurantId, updatedRestaurant.getVersion());
+        catalogSearchIndex.refreshRestaurant(restaurantId);
         log.info("Restaurant profile {} updated successfully", restaurantId);
 
         return mapToDTO(updatedRestaurant);
@@ -304,32 +358,37 @@ public class RestaurantService {
     }
 
     /**
-     * Search nearby restaurants
+     * Search nearby restaurants, nearest first. When limit is given only the
+     * k nearest within the radius are returned. The radius is capped by the geo index,
+     * so larger ones are rejected rather than silently shrunk.
      */
     @Transactional(readOnly = true)
-    public List<RestaurantDTO> getNearbyRestaurants(Double latitude, Double longitude, Double radiusKm) {
+    public List<RestaurantDTO> getNearbyRestaurants(Double latitude, Double longitude, Double radiusKm, Integer limit) {
         log.info("Searching restaurants near lat: {}, lon: {}, radius: {}km", latitude, longitude, radiusKm);
+        if (radiusKm == null || !(radiusKm > 0) || radiusKm > RestaurantGeoIndex.MAX_SEARCH_RADIUS_KM) {
+            throw new BadRequestException("Search radius must be greater than 0 and at most "
+                    + RestaurantGeoIndex.MAX_SEARCH_RADIUS_KM + " km");
+        }
+
+        List<RestaurantGeoIndex.Hit> hits = limit != null
+                ? restaurantGeoIndex.findNearest(latitude, longitude, limit, radiusKm)
+                : restaurantGeoIndex.findWithinRadius(latitude, longitude, radiusKm);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
 
-        List<Restaurant> allRestaurants = restaurantRepository.findByIsActiveTrue();
+        Map<Long, Restaurant> restaurantsById = restaurantRepository.findAllById(
+                        hits.stream().map(RestaurantGeoIndex.Hit::restaurantId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
 
-        return allRestaurants.stream()
-                .filter(r -> calculateDistance(latitude, longitude, r.getLatitude(), r.getLongitude()) <= radiusKm)
-                .sorted((r1, r2) -> {
-                    double dist1 = calculateDistance(latitude, longitude, r1.getLatitude(), r1.getLongitude());
-                    double dist2 = calculateDistance(latitude, longitude, r2.getLatitude(), r2.getLongitude());
-                    return Double.compare(dist1, dist2);
-                })
+        return hits.stream()
+                .map(hit -> restaurantsById.get(hit.restaurantId()))
+                .filter(r -> r != null && Boolean.TRUE.equals(r.getIsActive()))
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Calculate distance between two coordinates using Haversine formula
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        return GeoUtils.haversineDistance(lat1, lon1, lat2, lon2);
-    }
-
     /**
      * Convert Restaurant entity to DTO
      */
@@ -0,0 +1,23 @@
+package com.fooddelivery.modules.restaurant.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    private String type; // RESTAURANT or PRODUCT
+    private Long id;
+    private Long restaurantId;
+    private String restaurantName;
+    private String name;
+    private String detail; // cuisine type of a restaurant, category of a product
+    private BigDecimal price;
+    private Double score;
+}
@@ -0,0 +1,682 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import com.fooddelivery.modules.restaurant.domain.dto.SearchResultDTO;
+import com.fooddelivery.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over active restaurants (name, cuisine type) and available products
+ * (name, category, description), ranked with BM25 over field-weighted term frequencies.
+ * Query terms also match dictionary terms they are a prefix of (a range scan of the sorted
+ * dictionary) and, from four characters on, terms within a small edit distance (candidates come
+ * from a bigram index over the dictionary, then a bounded Damerau-Levenshtein check).
+ * Catalog writes mark rows dirty, on this node directly and on the others through the cache
+ * invalidation bus; a background refresh reloads the dirty rows, so changes show up within the
+ * refresh interval.
+ */
+@Slf4j
+@Component
+public class CatalogSearchIndex {
+
+    public enum Scope { ALL, RESTAURANTS, DISHES }
+
+    private enum Kind { RESTAURANT, PRODUCT }
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Field weights applied to term frequencies and document length
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CUISINE_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    // Expansion weights relative to an exact term match
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float ONE_EDIT_WEIGHT = 0.6f;
+    private static final float TWO_EDITS_WEIGHT = 0.4f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_EDITS_MIN_LENGTH = 8;
+    private static final int MAX_PREFIX_SCAN = 1000;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MAX_QUERY_TOKENS = 10;
+    // Compact once tombstoned postings outnumber this share of all postings
+    private static final double MAX_DEAD_RATIO = 0.5;
+    private static final int MIN_POSTINGS_TO_COMPACT = 10_000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "the", "of", "with", "in", "on", "for", "to");
+
+    private final RestaurantRepository restaurantRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer searchTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile State state;
+    private final Set<Long> dirtyRestaurants = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyProducts = ConcurrentHashMap.newKeySet();
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    public CatalogSearchIndex(RestaurantRepository restaurantRepository,
+                              ProductRepository productRepository,
+                              PlatformTransactionManager transactionManager,
+                              CacheInvalidationBus invalidationBus,
+                              MeterRegistry meterRegistry) {
+        this.restaurantRepository = restaurantRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.searchTimer = Timer.builder("catalog.search")
+                .description("Catalog search latency inside the index")
+                .register(meterRegistry);
+
+        invalidationBus.subscribe(EntityType.RESTAURANT, invalidation -> dirtyRestaurants.add(invalidation.id()));
+        invalidationBus.subscribe(EntityType.PRODUCT, invalidation -> dirtyProducts.add(invalidation.id()));
+    }
+
+    /**
+     * Index the whole catalog once the application has started. Queries keep using the previous
+     * index until the new one is swapped in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startNanos = System.nanoTime();
+        State next = new State();
+        restaurantRepository.findByIsActiveTrue().forEach(restaurant -> next.put(restaurantDocument(restaurant)));
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = productRepository.streamSearchRows()) {
+                rows.forEach(row -> next.put(productDocument(row)));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            state = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog search index built with {} documents and {} terms in {} ms",
+                next.liveDocs, next.terms.size(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Re-read the restaurant once the surrounding transaction commits
+     */
+    public void refreshRestaurant(Long restaurantId) {
+        afterCommit(() -> dirtyRestaurants.add(restaurantId));
+    }
+
+    /**
+     * Re-read the product once the surrounding transaction commits
+     */
+    public void refreshProduct(Long productId) {
+        afterCommit(() -> dirtyProducts.add(productId));
+    }
+
+    /**
+     * Apply the rows changed since the last run. This is the only place the live state is modified,
+     * so once the changes are in, the state can be copied for compaction without holding the lock:
+     * queries only read it, and a rebuild replaces it rather than touching it.
+     */
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval-ms:500}")
+    public void applyPendingChanges() {
+        if (state == null || (dirtyRestaurants.isEmpty() && dirtyProducts.isEmpty())) {
+            return;
+        }
+        List<Long> restaurantIds = drain(dirtyRestaurants);
+        List<Long> productIds = drain(dirtyProducts);
+        try {
+            List<Document> restaurants = new ArrayList<>();
+            Set<Long> missingRestaurants = new HashSet<>(restaurantIds);
+            for (Restaurant restaurant : restaurantRepository.findAllById(restaurantIds)) {
+                missingRestaurants.remove(restaurant.getId());
+                if (Boolean.TRUE.equals(restaurant.getIsActive())) {
+                    restaurants.add(restaurantDocument(restaurant));
+                } else {
+                    missingRestaurants.add(restaurant.getId());
+                }
+            }
+
+            List<Document> products = new ArrayList<>();
+            Set<Long> missingProducts = new HashSet<>(productIds);
+            List<Object[]> rows = productIds.isEmpty() ? List.of() : productRepository.findSearchRowsByIdIn(productIds);
+            for (Object[] row : rows) {
+                if (Boolean.TRUE.equals(row[6])) {
+                    missingProducts.remove((Long) row[0]);
+                    products.add(productDocument(row));
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                missingRestaurants.forEach(id -> state.remove(Kind.RESTAURANT, id));
+                missingProducts.forEach(id -> state.remove(Kind.PRODUCT, id));
+                restaurants.forEach(state::put);
+                products.forEach(state::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception ex) {
+            // Retry the batch on the next run
+            dirtyRestaurants.addAll(restaurantIds);
+            dirtyProducts.addAll(productIds);
+            log.error("Catalog search index refresh failed", ex);
+            return;
+        }
+
+        State current = state;
+        if (current.needsCompaction()) {
+            long startNanos = System.nanoTime();
+            State compacted = current.compact();
+            lock.writeLock().lock();
+            try {
+                if (state == current) {
+                    state = compacted;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Catalog search index compacted to {} documents in {} ms",
+                    compacted.liveDocs, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * Best matches for the query, highest score first
+     */
+    public List<SearchResultDTO> search(String query, Scope scope, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().limit(MAX_QUERY_TOKENS).toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long startNanos = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            State current = state;
+            if (current == null) {
+                return List.of();
+            }
+            Scratch scratch = borrowScratch(current.docs.size());
+            try {
+                return current.search(tokens, scope, limit, scratch);
+            } finally {
+                scratch.reset();
+                scratchPool.offer(scratch);
+            }
+        } finally {
+            lock.readLock().unlock();
+            searchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int size() {
+        State current = state;
+        return current == null ? 0 : current.liveDocs;
+    }
+
+    /**
+     * Internal document slots, tombstones included; back down to size() after a compaction
+     */
+    int slots() {
+        State current = state;
+        return current == null ? 0 : current.docs.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        return ids;
+    }
+
+    private Scratch borrowScratch(int size) {
+        Scratch scratch = scratchPool.poll();
+        return scratch != null && scratch.total.length >= size ? scratch : new Scratch(size);
+    }
+
+    // ------------------------------------------------------------------
+    // Documents and text analysis
+    // ------------------------------------------------------------------
+
+    static Document restaurantDocument(Restaurant restaurant) {
+        TermCounter counter = new TermCounter();
+        counter.add(restaurant.getName(), NAME_WEIGHT);
+        counter.add(restaurant.getCuisineType(), CUISINE_WEIGHT);
+        return counter.toDocument(Kind.RESTAURANT, restaurant.getId(), restaurant.getId(),
+                restaurant.getName(), restaurant.getCuisineType(), null);
+    }
+
+    /**
+     * Document from a search row [id, restaurantId, name, description, category, price, isAvailable]
+     */
+    static Document productDocument(Object[] row) {
+        String name = (String) row[2];
+        String category = (String) row[4];
+        TermCounter counter = new TermCounter();
+        counter.add(name, NAME_WEIGHT);
+        counter.add(category, CATEGORY_WEIGHT);
+        counter.add((String) row[3], DESCRIPTION_WEIGHT);
+        return counter.toDocument(Kind.PRODUCT, (Long) row[0], (Long) row[1], name, category, (BigDecimal) row[5]);
+    }
+
+    /**
+     * Lowercased, accent-free alphanumeric tokens without stop words
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(folded)) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Optimal string alignment distance (edits plus adjacent transpositions), or max + 1 as soon
+     * as it is known to exceed max
+     */
+    static int editDistance(String a, String b, int max) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[lb + 1];
+        int[] previous = new int[lb + 1];
+        int[] current = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= la; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= lb; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[lb], max + 1);
+    }
+
+    /**
+     * Boundary-marked bigrams: "pizza" gives ^p, pi, iz, zz, za, a$
+     */
+    private static List<String> bigrams(String term) {
+        String marked = "^" + term + "$";
+        List<String> grams = new ArrayList<>(marked.length() - 1);
+        for (int i = 0; i < marked.length() - 1; i++) {
+            grams.add(marked.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static final class TermCounter {
+        private final Map<String, Float> frequencies = new LinkedHashMap<>();
+        private float length;
+
+        void add(String text, float weight) {
+            for (String token : tokenize(text)) {
+                frequencies.merge(token, weight, Float::sum);
+                length += weight;
+            }
+        }
+
+        Document toDocument(Kind kind, long entityId, long restaurantId, String name, String detail, BigDecimal price) {
+            String[] terms = frequencies.keySet().toArray(new String[0]);
+            float[] freqs = new float[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                freqs[i] = frequencies.get(terms[i]);
+            }
+            return new Document(kind, entityId, restaurantId, name, detail, price, terms, freqs, length);
+        }
+    }
+
+    record Document(Kind kind, long entityId, long restaurantId, String name, String detail, BigDecimal price,
+                    String[] terms, float[] freqs, float length) {
+    }
+
+    // ------------------------------------------------------------------
+    // Index state
+    // ------------------------------------------------------------------
+
+    /**
+     * Documents get increasing internal ids, so every posting list is sorted by id. Removing a
+     * document leaves a tombstone (a null slot) that queries skip; compaction renumbers.
+     */
+    private static final class State {
+        final List<Document> docs = new ArrayList<>();
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        final Map<String, Set<String>> termsByBigram = new HashMap<>();
+        final Map<Long, Integer> restaurantDocs = new HashMap<>();
+        final Map<Long, Integer> productDocs = new HashMap<>();
+        double totalLength;
+        int liveDocs;
+        long totalPostings;
+        long deadPostings;
+
+        void put(Document doc) {
+            Map<Long, Integer> byEntity = doc.kind() == Kind.RESTAURANT ? restaurantDocs : productDocs;
+            Integer previous = byEntity.get(doc.entityId());
+            if (previous != null) {
+                removeDoc(previous);
+            }
+            int docId = docs.size();
+            docs.add(doc);
+            byEntity.put(doc.entityId(), docId);
+            for (int i = 0; i < doc.terms().length; i++) {
+                terms.computeIfAbsent(doc.terms()[i], this::newTerm).add(docId, doc.freqs()[i]);
+            }
+            totalPostings += doc.terms().length;
+            totalLength += doc.length();
+            liveDocs++;
+        }
+
+        void remove(Kind kind, long entityId) {
+            Integer docId = (kind == Kind.RESTAURANT ? restaurantDocs : productDocs).remove(entityId);
+            if (docId != null) {
+                removeDoc(docId);
+            }
+        }
+
+        private void removeDoc(int docId) {
+            Document doc = docs.set(docId, null);
+            for (String term : doc.terms()) {
+                Postings postings = terms.get(term);
+                if (--postings.df == 0) {
+                    terms.remove(term);
+                    bigrams(term).forEach(gram -> termsByBigram.computeIfPresent(gram, (g, set) -> {
+                        set.remove(term);
+                        return set.isEmpty() ? null : set;
+                    }));
+                    totalPostings -= postings.size;
+                    deadPostings -= postings.size - 1;
+                } else {
+                    deadPostings++;
+                }
+            }
+            totalLength -= doc.length();
+            liveDocs--;
+        }
+
+        private Postings newTerm(String term) {
+            bigrams(term).forEach(gram -> termsByBigram.computeIfAbsent(gram, g -> new HashSet<>()).add(term));
+            return new Postings();
+        }
+
+        boolean needsCompaction() {
+            return deadPostings > MIN_POSTINGS_TO_COMPACT && deadPostings > totalPostings * MAX_DEAD_RATIO;
+        }
+
+        State compact() {
+            State compacted = new State();
+            docs.stream().filter(Objects::nonNull).forEach(compacted::put);
+            return compacted;
+        }
+
+        List<SearchResultDTO> search(List<String> tokens, Scope scope, int limit, Scratch scratch) {
+            float avgLength = liveDocs == 0 ? 1f : (float) (totalLength / liveDocs);
+            for (String token : tokens) {
+                scoreToken(token, avgLength, scratch);
+            }
+            return topResults(tokens.size(), scope, limit, scratch);
+        }
+
+        /**
+         * Add the token's best-matching expansion per document to the running totals
+         */
+        private void scoreToken(String token, float avgLength, Scratch scratch) {
+            for (Map.Entry<String, Float> expansion : expand(token).entrySet()) {
+                Postings postings = terms.get(expansion.getKey());
+                float idf = (float) Math.log(1 + (liveDocs - postings.df + 0.5) / (postings.df + 0.5));
+                float weight = expansion.getValue() * idf;
+                for (int i = 0; i < postings.size; i++) {
+                    int docId = postings.docIds[i];
+                    Document doc = docs.get(docId);
+                    if (doc == null) {
+                        continue;
+                    }
+                    float tf = postings.freqs[i];
+                    float score = weight * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length() / avgLength));
+                    if (scratch.best[docId] == 0) {
+                        scratch.tokenTouched.add(docId);
+                    }
+                    scratch.best[docId] = Math.max(scratch.best[docId], score);
+                }
+            }
+            for (int i = 0; i < scratch.tokenTouched.size; i++) {
+                int docId = scratch.tokenTouched.values[i];
+                if (scratch.matched[docId]++ == 0) {
+                    scratch.touched.add(docId);
+                }
+                scratch.total[docId] += scratch.best[docId];
+                scratch.best[docId] = 0;
+            }
+            scratch.tokenTouched.size = 0;
+        }
+
+        /**
+         * Dictionary terms the token stands for, with their weight: the term itself, completions
+         * of it as a prefix and terms within the edit budget
+         */
+        private Map<String, Float> expand(String token) {
+            Map<String, Float> expansions = new HashMap<>();
+            if (terms.containsKey(token)) {
+                expansions.put(token, 1f);
+            }
+
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                List<String> completions = new ArrayList<>();
+                for (String term : terms.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                    completions.add(term);
+                    if (completions.size() >= MAX_PREFIX_SCAN) {
+                        break;
+                    }
+                }
+                if (completions.size() > MAX_EXPANSIONS) {
+                    // Keep the most common completions
+                    completions.sort(Comparator.comparingInt((String term) -> terms.get(term).df).reversed());
+                    completions = completions.subList(0, MAX_EXPANSIONS);
+                }
+                completions.forEach(term -> expansions.merge(term, PREFIX_WEIGHT, Math::max));
+            }
+
+            if (token.length() >= MIN_FUZZY_LENGTH) {
+                int maxEdits = token.length() >= TWO_EDITS_MIN_LENGTH ? 2 : 1;
+                List<String> grams = bigrams(token);
+                // Each edit changes at most two bigrams, so closer terms share at least this many
+                int minShared = Math.max(grams.size() - 2 * maxEdits, 1);
+                Map<String, Integer> shared = new HashMap<>();
+                for (String gram : grams) {
+                    Set<String> candidates = termsByBigram.get(gram);
+                    if (candidates != null) {
+                        for (String candidate : candidates) {
+                            if (Math.abs(candidate.length() - token.length()) <= maxEdits) {
+                                shared.merge(candidate, 1, Integer::sum);
+                            }
+                        }
+                    }
+                }
+                List<Map.Entry<String, Integer>> fuzzy = new ArrayList<>();
+                shared.forEach((candidate, count) -> {
+                    if (count >= minShared && !candidate.equals(token)) {
+                        int distance = editDistance(token, candidate, maxEdits);
+                        if (distance <= maxEdits) {
+                            fuzzy.add(Map.entry(candidate, distance));
+                        }
+                    }
+                });
+                fuzzy.sort(Map.Entry.comparingByValue());
+                fuzzy.stream().limit(MAX_EXPANSIONS).forEach(match -> expansions.merge(match.getKey(),
+                        match.getValue() == 1 ? ONE_EDIT_WEIGHT : TWO_EDITS_WEIGHT, Math::max));
+            }
+            return expansions;
+        }
+
+        private List<SearchResultDTO> topResults(int tokenCount, Scope scope, int limit, Scratch scratch) {
+            PriorityQueue<int[]> heap = new PriorityQueue<>(limit + 1,
+                    Comparator.comparingDouble((int[] entry) -> Float.intBitsToFloat(entry[1])));
+            for (int i = 0; i < scratch.touched.size; i++) {
+                int docId = scratch.touched.values[i];
+                Document doc = docs.get(docId);
+                if (!inScope(doc, scope)) {
+                    continue;
+                }
+                // Documents matching every query token rank above those matching some of them
+                float score = scratch.total[docId] * scratch.matched[docId] / tokenCount;
+                heap.offer(new int[]{docId, Float.floatToIntBits(score)});
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+
+            List<SearchResultDTO> results = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int[] entry = heap.poll();
+                results.add(toResult(docs.get(entry[0]), Float.intBitsToFloat(entry[1])));
+            }
+            Collections.reverse(results);
+            return results;
+        }
+
+        private boolean inScope(Document doc, Scope scope) {
+            if (doc.kind() == Kind.RESTAURANT) {
+                return scope != Scope.DISHES;
+            }
+            // Dishes of a restaurant that is no longer active are not shown
+            return scope != Scope.RESTAURANTS && restaurantDocs.containsKey(doc.restaurantId());
+        }
+
+        private SearchResultDTO toResult(Document doc, float score) {
+            Integer restaurantDocId = restaurantDocs.get(doc.restaurantId());
+            return SearchResultDTO.builder()
+                    .type(doc.kind().name())
+                    .id(doc.entityId())
+                    .restaurantId(doc.restaurantId())
+                    .restaurantName(restaurantDocId != null ? docs.get(restaurantDocId).name() : null)
+                    .name(doc.name())
+                    .detail(doc.detail())
+                    .price(doc.price())
+                    .score(Math.round(score * 1000) / 1000.0)
+                    .build();
+        }
+    }
+
+    private static final class Postings {
+        int[] docIds = new int[4];
+        float[] freqs = new float[4];
+        int size;
+        int df;
+
+        void add(int docId, float freq) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docIds[size] = docId;
+            freqs[size] = freq;
+            size++;
+            df++;
+        }
+    }
+
+    /**
+     * Per-query accumulators indexed by internal doc id, pooled so queries do not allocate
+     * arrays the size of the index; only touched slots are cleared afterwards
+     */
+    private static final class Scratch {
+        final float[] total;
+        final float[] best;
+        final byte[] matched;
+        final IntList touched = new IntList();
+        final IntList tokenTouched = new IntList();
+
+        Scratch(int size) {
+            // Headroom so documents added after the scratch was created still fit
+            int capacity = size + Math.max(size / 4, 1024);
+            total = new float[capacity];
+            best = new float[capacity];
+            matched = new byte[capacity];
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size; i++) {
+                int docId = touched.values[i];
+                total[docId] = 0;
+                matched[docId] = 0;
+            }
+            for (int i = 0; i < tokenTouched.size; i++) {
+                best[tokenTouched.values[i]] = 0;
+            }
+            touched.size = 0;
+            tokenTouched.size = 0;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[256];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
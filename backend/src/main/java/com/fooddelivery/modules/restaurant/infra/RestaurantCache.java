@@ -0,0 +1,116 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import com.fooddelivery.modules.restaurant.domain.dto.ProductDTO;
+import com.fooddelivery.modules.restaurant.domain.dto.RestaurantDTO;
+import com.fooddelivery.util.TwoLevelCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Restaurant and menu read models cached in process and in Redis. Layout per restaurant:
+ * one group for its profile and one for its menu (full menu plus each category), so a write
+ * drops exactly the entries it can change. Writes are broadcast on the invalidation bus so the
+ * other nodes drop their L1 copies too.
+ */
+@Component
+public class RestaurantCache {
+
+    private static final String PREFIX = "fd:v1:";
+    private static final String TOP_RATED_GROUP = PREFIX + "restaurants:top-rated";
+    private static final String PROFILE_FIELD = "profile";
+    private static final String FULL_MENU_FIELD = "all";
+
+    private final TwoLevelCache<RestaurantDTO> restaurants;
+    @SuppressWarnings("rawtypes")
+    private final TwoLevelCache<ArrayList> lists;
+    private final CacheInvalidationBus invalidationBus;
+
+    public RestaurantCache(ObjectProvider<RedisTemplate<String, Object>> redisTemplate,
+                           CacheInvalidationBus invalidationBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cache.restaurants.l2-enabled:true}") boolean remoteEnabled,
+                           @Value("${app.cache.restaurants.l1-max-entries:10000}") long localMaxEntries,
+                           @Value("${app.cache.restaurants.l1-ttl-seconds:60}") long localTtlSeconds,
+                           @Value("${app.cache.restaurants.l2-ttl-seconds:600}") long remoteTtlSeconds,
+                           @Value("${app.cache.restaurants.l2-retry-ms:30000}") long remoteRetryMs) {
+        RedisTemplate<String, Object> template = remoteEnabled ? redisTemplate.getIfAvailable() : null;
+        Duration localTtl = Duration.ofSeconds(localTtlSeconds);
+        Duration remoteTtl = Duration.ofSeconds(remoteTtlSeconds);
+        this.restaurants = new TwoLevelCache<>("restaurants", RestaurantDTO.class, template, meterRegistry,
+                localMaxEntries, localTtl, remoteTtl, remoteRetryMs);
+        this.lists = new TwoLevelCache<>("restaurant.lists", ArrayList.class, template, meterRegistry,
+                localMaxEntries, localTtl, remoteTtl, remoteRetryMs);
+
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(EntityType.RESTAURANT, invalidation -> {
+            restaurants.evictLocal(profileGroup(invalidation.id()));
+            lists.evictLocal(TOP_RATED_GROUP);
+        });
+        invalidationBus.subscribe(EntityType.PRODUCT, invalidation -> {
+            if (invalidation.parentId() != null) {
+                lists.evictLocal(menuGroup(invalidation.parentId()));
+            }
+        });
+    }
+
+    public RestaurantDTO getRestaurant(Long restaurantId, Supplier<RestaurantDTO> loader) {
+        return restaurants.get(profileGroup(restaurantId), PROFILE_FIELD, loader);
+    }
+
+    public List<ProductDTO> getMenu(Long restaurantId, Supplier<List<ProductDTO>> loader) {
+        return getList(menuGroup(restaurantId), FULL_MENU_FIELD, loader);
+    }
+
+    public List<ProductDTO> getMenuByCategory(Long restaurantId, String category, Supplier<List<ProductDTO>> loader) {
+        return getList(menuGroup(restaurantId), "category:" + category, loader);
+    }
+
+    public List<RestaurantDTO> getTopRated(int limit, Supplier<List<RestaurantDTO>> loader) {
+        return getList(TOP_RATED_GROUP, String.valueOf(limit), loader);
+    }
+
+    /**
+     * A restaurant's own fields changed (now at the given row version); its rank in the top-rated
+     * lists may have too
+     */
+    public void evictRestaurant(Long restaurantId, Long version) {
+        restaurants.evictGroup(profileGroup(restaurantId));
+        lists.evictGroup(TOP_RATED_GROUP);
+        invalidationBus.publish(EntityType.RESTAURANT, restaurantId, version, null);
+    }
+
+    /**
+     * A product of the restaurant was added, changed or removed; version is the product row's
+     * version after the change
+     */
+    public void evictMenu(Long restaurantId, Long productId, Long version) {
+        lists.evictGroup(menuGroup(restaurantId));
+        invalidationBus.publish(EntityType.PRODUCT, productId, version, restaurantId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> getList(String group, String field, Supplier<List<T>> loader) {
+        // Stored as ArrayList so the JSON in Redis carries a type that deserializes back to a list
+        ArrayList<T> cached = lists.get(group, field, () -> new ArrayList<>(loader.get()));
+        return Collections.unmodifiableList(cached);
+    }
+
+    private static String profileGroup(Long restaurantId) {
+        return PREFIX + "restaurant:" + restaurantId;
+    }
+
+    private static String menuGroup(Long restaurantId) {
+        return PREFIX + "restaurant:" + restaurantId + ":menu";
+    }
+}
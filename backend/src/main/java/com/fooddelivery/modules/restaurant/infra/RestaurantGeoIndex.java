@@ -0,0 +1,257 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import com.fooddelivery.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index over active restaurant coordinates.
+ * Restaurants are bucketed into fixed-size lat/lon cells so radius and
+ * k-nearest lookups only compute distances for restaurants in nearby cells.
+ * Restaurants changed on other nodes arrive as cache invalidations; their rows are
+ * reloaded on the next refresh, so moves and (de)activations reach every node.
+ */
+@Slf4j
+@Component
+public class RestaurantGeoIndex {
+
+    private static final double CELL_SIZE_DEGREES = 0.05; // ~5.5km of latitude
+    private static final long LON_CELLS = Math.round(360 / CELL_SIZE_DEGREES);
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+    public static final double MAX_SEARCH_RADIUS_KM = 50.0;
+
+    private final RestaurantRepository restaurantRepository;
+
+    private final Map<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyRestaurants = ConcurrentHashMap.newKeySet();
+
+    public RestaurantGeoIndex(RestaurantRepository restaurantRepository, CacheInvalidationBus invalidationBus) {
+        this.restaurantRepository = restaurantRepository;
+        invalidationBus.subscribe(EntityType.RESTAURANT, invalidation -> dirtyRestaurants.add(invalidation.id()));
+    }
+
+    /**
+     * Load all active restaurants once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        entriesById.clear();
+        cells.clear();
+        restaurantRepository.findByIsActiveTrue().forEach(this::put);
+        log.info("Restaurant geo index built with {} restaurants in {} cells", entriesById.size(), cells.size());
+    }
+
+    /**
+     * Reload the restaurants other nodes changed since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.geo.index-refresh-interval-ms:1000}")
+    public void applyPendingChanges() {
+        if (dirtyRestaurants.isEmpty()) {
+            return;
+        }
+        List<Long> restaurantIds = new ArrayList<>(dirtyRestaurants);
+        dirtyRestaurants.removeAll(restaurantIds);
+        try {
+            Set<Long> missing = new HashSet<>(restaurantIds);
+            for (Restaurant restaurant : restaurantRepository.findAllById(restaurantIds)) {
+                missing.remove(restaurant.getId());
+                put(restaurant);
+            }
+            missing.forEach(this::remove);
+        } catch (Exception ex) {
+            // Retry the batch on the next run
+            dirtyRestaurants.addAll(restaurantIds);
+            log.error("Restaurant geo index refresh failed", ex);
+        }
+    }
+
+    /**
+     * Add or move a restaurant; inactive restaurants are removed.
+     * Moves of one restaurant are serialized on its id, and each cell is only changed inside
+     * cells.compute, so an entry is never added to a cell that a concurrent removal just dropped.
+     */
+    public void put(Restaurant restaurant) {
+        if (restaurant.getId() == null) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(restaurant.getIsActive())
+                || restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+            remove(restaurant.getId());
+            return;
+        }
+
+        Entry entry = new Entry(restaurant.getId(), restaurant.getLatitude(), restaurant.getLongitude());
+        entriesById.compute(entry.id(), (id, previous) -> {
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            addToCell(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Apply put once the surrounding transaction commits, or right away outside a transaction
+     */
+    public void putAfterCommit(Restaurant restaurant) {
+        afterCommit(() -> put(restaurant));
+    }
+
+    /**
+     * Remove a restaurant from the index
+     */
+    public void remove(Long restaurantId) {
+        entriesById.computeIfPresent(restaurantId, (id, previous) -> {
+            removeFromCell(previous);
+            return null;
+        });
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * All restaurants within radiusKm (at most MAX_SEARCH_RADIUS_KM), nearest first
+     */
+    public List<Hit> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        List<Hit> hits = collect(latitude, longitude, Math.min(radiusKm, MAX_SEARCH_RADIUS_KM));
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    /**
+     * The k nearest restaurants within maxRadiusKm (at most MAX_SEARCH_RADIUS_KM), nearest first.
+     * Searches an expanding ring of cells until k hits are found.
+     */
+    public List<Hit> findNearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        double limit = Math.min(maxRadiusKm, MAX_SEARCH_RADIUS_KM);
+        double radius = Math.min(CELL_SIZE_DEGREES * KM_PER_DEGREE_LAT, limit);
+
+        while (true) {
+            List<Hit> hits = collect(latitude, longitude, radius);
+            if (hits.size() >= k || radius >= limit) {
+                hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+                return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+            }
+            radius = Math.min(radius * 2, limit);
+        }
+    }
+
+    private List<Hit> collect(double latitude, double longitude, double radiusKm) {
+        List<Hit> hits = new ArrayList<>();
+        double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double lonSpan = Math.min(radiusKm / (KM_PER_DEGREE_LAT * cosLat), 180.0);
+
+        long minLatCell = cellIndex(latitude - latSpan);
+        long maxLatCell = cellIndex(latitude + latSpan);
+        long minLonCell = cellIndex(longitude - lonSpan);
+        long maxLonCell = cellIndex(longitude + lonSpan);
+
+        // Near the antimeridian the longitude range runs past +-180; cells are wrapped by lonCell
+        long lonCellCount = Math.min(maxLonCell - minLonCell + 1, LON_CELLS);
+        long cellCount = (maxLatCell - minLatCell + 1) * lonCellCount;
+        if (cellCount > cells.size()) {
+            // Bounding box covers more cells than are populated; scan the occupied ones instead
+            cells.values().forEach(cell -> addHits(cell, latitude, longitude, radiusKm, hits));
+            return hits;
+        }
+
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lonCell = minLonCell; lonCell < minLonCell + lonCellCount; lonCell++) {
+                Set<Entry> cell = cells.get(pack(latCell, wrapLonCell(lonCell)));
+                if (cell != null) {
+                    addHits(cell, latitude, longitude, radiusKm, hits);
+                }
+            }
+        }
+        return hits;
+    }
+
+    private void addHits(Set<Entry> cell, double latitude, double longitude, double radiusKm, List<Hit> hits) {
+        for (Entry entry : cell) {
+            double distance = GeoUtils.haversineDistance(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance <= radiusKm) {
+                hits.add(new Hit(entry.id(), distance));
+            }
+        }
+    }
+
+    private void addToCell(Entry entry) {
+        cells.compute(cellKey(entry.latitude(), entry.longitude()), (key, cell) -> {
+            Set<Entry> target = cell != null ? cell : ConcurrentHashMap.<Entry>newKeySet();
+            target.add(entry);
+            return target;
+        });
+    }
+
+    private void removeFromCell(Entry entry) {
+        cells.computeIfPresent(cellKey(entry.latitude(), entry.longitude()), (key, cell) -> {
+            cell.remove(entry);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return pack(cellIndex(latitude), wrapLonCell(cellIndex(longitude)));
+    }
+
+    /**
+     * Longitude cell index in [-LON_CELLS / 2, LON_CELLS / 2), so 180 and -180 share a cell column
+     */
+    private static long wrapLonCell(long lonCell) {
+        return Math.floorMod(lonCell + LON_CELLS / 2, LON_CELLS) - LON_CELLS / 2;
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long pack(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Entry(Long id, double latitude, double longitude) {
+    }
+
+    /**
+     * Restaurant id with its distance from the query point
+     */
+    public record Hit(Long restaurantId, double distanceKm) {
+    }
+}
@@ -1,14 +1,36 @@
 package com.fooddelivery.repository;
 
 import com.fooddelivery.model.entity.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByRestaurantId(Long restaurantId);
     List<Product> findByRestaurantIdAndIsAvailableTrue(Long restaurantId);
     List<Product> findByRestaurantIdAndCategoryAndIsAvailableTrue(Long restaurantId, String category);
+
+    // Search index queries: [id, restaurantId, name, description, category, price, isAvailable]
+
+    /**
+     * Every available product; must be consumed and closed inside a transaction
+     */
+    @Query("SELECT p.id, p.restaurant.id, p.name, p.description, p.category, p.price, p.isAvailable " +
+           "FROM Product p WHERE p.isAvailable = true")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamSearchRows();
+
+    @Query("SELECT p.id, p.restaurant.id, p.name, p.description, p.category, p.price, p.isAvailable " +
+           "FROM Product p WHERE p.id IN :productIds")
+    List<Object[]> findSearchRowsByIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,12 +1,33 @@
 package com.fooddelivery.repository;
 
 import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.UserRole;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT u.role, u.isActive FROM User u WHERE u.id = :userId")
+    List<Object[]> findRoleAndActiveById(@Param("userId") Long userId);
+
+    /**
+     * Lock the active users with the role among the ids, skipping rows another transaction
+     * already holds (a lock timeout of -2 renders as FOR UPDATE SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.role = :role AND u.isActive = true ORDER BY u.id")
+    List<Long> claimActiveIdsWithRole(@Param("ids") Collection<Long> ids, @Param("role") UserRole role);
 }
@@ -28,6 +28,20 @@ public class CustomUserDetails implements UserDetails {
         );
     }
     
+    /**
+     * Principal built from verified token claims; carries no password
+     */
+    public CustomUserDetails(Long id, String email, String role, Boolean isActive) {
+        this.id = id;
+        this.email = email;
+        this.password = null;
+        this.role = role;
+        this.isActive = isActive;
+        this.authorities = Collections.singletonList(
+            new SimpleGrantedAuthority("ROLE_" + role)
+        );
+    }
+    
     public Long getId() {
         return id;
     }
@@ -1,7 +1,9 @@
 package com.fooddelivery.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +29,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private UserStateCache userStateCache;
+    
+    @Value("${app.security.jwt.stateless:true}")
+    private boolean stateless;
+    
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -35,19 +43,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             String jwt = getJwtFromRequest(request);
+            Claims claims = jwt != null ? tokenProvider.parseClaims(jwt) : null;
             
-            if (jwt != null && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request));
+            if (claims != null) {
+                UserDetails userDetails = stateless
+                        ? loadUserFromClaims(claims)
+                        : userDetailsService.loadUserByUsername(claims.getSubject());
                 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request));
+                    
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -56,6 +67,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Build the principal from token claims, checking only the cached role and active flag.
+     * Tokens without a userId claim fall back to loading the user.
+     */
+    private UserDetails loadUserFromClaims(Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        if (userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        
+        UserStateCache.UserState state = userStateCache.get(userId);
+        if (state == null || !state.active()) {
+            log.warn("Rejecting token for inactive or deleted user: {}", userId);
+            return null;
+        }
+        return new CustomUserDetails(userId, claims.getSubject(), state.role(), true);
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         
@@ -0,0 +1,84 @@
+package com.fooddelivery.security;
+
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import com.fooddelivery.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of each user's current role and active flag.
+ * Lets stateless JWT authentication honour deactivation and role changes
+ * without loading the user on every request; entries expire after the TTL
+ * and are dropped immediately when the user is updated, on every node.
+ */
+@Slf4j
+@Component
+public class UserStateCache {
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final Map<Long, UserState> states = new ConcurrentHashMap<>();
+
+    public UserStateCache(UserRepository userRepository,
+                          CacheInvalidationBus invalidationBus,
+                          @Value("${app.security.user-state-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${app.security.user-state-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(EntityType.USER, invalidation -> states.remove(invalidation.id()));
+    }
+
+    /**
+     * Current state of a user, or null if the user no longer exists
+     */
+    public UserState get(Long userId) {
+        long now = System.currentTimeMillis();
+        UserState state = states.get(userId);
+        if (state != null && state.expiresAtMs() > now) {
+            return state;
+        }
+
+        List<Object[]> rows = userRepository.findRoleAndActiveById(userId);
+        if (rows.isEmpty()) {
+            states.remove(userId);
+            return null;
+        }
+        UserRole role = (UserRole) rows.get(0)[0];
+        state = new UserState(role.name(), Boolean.TRUE.equals(rows.get(0)[1]), now + ttlMs);
+        if (states.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        states.put(userId, state);
+        return state;
+    }
+
+    /**
+     * Drop the user's state here now and on the other nodes once the update commits
+     */
+    public void invalidate(Long userId, Long version) {
+        states.remove(userId);
+        invalidationBus.publish(EntityType.USER, userId, version, null);
+    }
+
+    private void evictExpired(long now) {
+        states.values().removeIf(state -> state.expiresAtMs() <= now);
+        if (states.size() >= maxEntries) {
+            log.debug("User state cache full, clearing {} entries", states.size());
+            states.clear();
+        }
+    }
+
+    public record UserState(String role, boolean active, long expiresAtMs) {
+    }
+}
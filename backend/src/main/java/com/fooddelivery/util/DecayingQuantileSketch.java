@@ -0,0 +1,75 @@
+package com.fooddelivery.util;
+
+/**
+ * Streaming quantiles of positive values that gradually forget old data. Values are counted in
+ * logarithmic buckets, so memory is fixed and every quantile is within the relative accuracy of
+ * the true one. Each value weighs 2^(1/halfLife) times the previous one: a value seen halfLife
+ * values ago counts half as much as the latest. Not thread-safe.
+ */
+public class DecayingQuantileSketch {
+
+    private static final double RENORMALIZE_AT = 1e12;
+
+    private final double minValue;
+    private final double maxValue;
+    private final double gamma;
+    private final double logGamma;
+    private final double growth;
+    private final double[] counts;
+    private double weight = 1;
+    private double total;
+
+    public DecayingQuantileSketch(double relativeAccuracy, double minValue, double maxValue, double halfLife) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.growth = Math.pow(2, 1 / halfLife);
+        this.counts = new double[bucket(maxValue) + 1];
+    }
+
+    public void add(double value) {
+        counts[bucket(Math.min(Math.max(value, minValue), maxValue))] += weight;
+        total += weight;
+        weight *= growth;
+        if (weight > RENORMALIZE_AT) {
+            // Rescale so the newest value weighs 1 again; relative weights are unchanged
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] /= weight;
+            }
+            total /= weight;
+            weight = 1;
+        }
+    }
+
+    /**
+     * Value below which the given fraction of the (weighted) values fall; NaN while empty
+     */
+    public double quantile(double q) {
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double target = q * total;
+        double cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(Math.max(value(i), minValue), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    private int bucket(double value) {
+        return (int) Math.ceil(Math.log(value / minValue) / logGamma);
+    }
+
+    // Midpoint (in relative terms) of bucket i, which holds (minValue * gamma^(i-1), minValue * gamma^i]
+    private double value(int index) {
+        return minValue * Math.exp(index * logGamma) * 2 / (gamma + 1);
+    }
+}
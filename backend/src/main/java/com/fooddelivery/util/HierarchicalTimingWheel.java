@@ -0,0 +1,194 @@
+package com.fooddelivery.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for large numbers of timers.
+ * Scheduling and cancelling are O(1); advancing the clock costs O(1) per tick
+ * plus the timers that expire or cascade down a level. Timers fire at tick resolution,
+ * never before their deadline.
+ * All methods are synchronized so a single ticker thread and many producers can share it.
+ *
+ * @param <T> payload carried by each timer
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.levels.add(new Level(tickMs));
+    }
+
+    /**
+     * Schedule a timer. Returns null if the deadline has already passed.
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMs) {
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMs, deadlineMs + tickMs - 1);
+        if (!insert(timeout)) {
+            return null;
+        }
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a pending timer; returns false if it already fired or was cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the clock to nowMs and return the payloads of all timers that expired
+     */
+    public synchronized List<T> advanceTo(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            for (Level level : levels) {
+                level.currentTime = currentTime - (currentTime % level.tickMs);
+            }
+            // Cascade from the coarsest level down so re-inserted timers land in finer buckets
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Level level = levels.get(i);
+                if (currentTime % level.tickMs == 0) {
+                    Bucket<T> bucket = level.bucketFor(currentTime);
+                    Timeout<T> timeout;
+                    while ((timeout = bucket.poll()) != null) {
+                        if (i == 0 || !insert(timeout)) {
+                            size--;
+                            expired.add(timeout.payload);
+                        }
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean insert(Timeout<T> timeout) {
+        if (timeout.fireAtMs < currentTime + tickMs) {
+            return false;
+        }
+        int index = 0;
+        while (true) {
+            if (index == levels.size()) {
+                Level coarser = new Level(levels.get(index - 1).intervalMs);
+                coarser.currentTime = currentTime - (currentTime % coarser.tickMs);
+                levels.add(coarser);
+            }
+            Level level = levels.get(index);
+            if (timeout.fireAtMs < level.currentTime + level.intervalMs) {
+                level.bucketFor(timeout.fireAtMs).add(timeout);
+                return true;
+            }
+            index++;
+        }
+    }
+
+    private final class Level {
+        private final long tickMs;
+        private final long intervalMs;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs) {
+            this.tickMs = tickMs;
+            this.intervalMs = tickMs * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.currentTime = HierarchicalTimingWheel.this.currentTime
+                    - (HierarchicalTimingWheel.this.currentTime % tickMs);
+        }
+
+        private Bucket<T> bucketFor(long timeMs) {
+            return buckets[(int) ((timeMs / tickMs) % wheelSize)];
+        }
+    }
+
+    /**
+     * Intrusive doubly-linked list so removal is O(1)
+     */
+    private static final class Bucket<T> {
+        private final Timeout<T> head = new Timeout<>(null, 0, 0);
+
+        private Bucket() {
+            head.next = head;
+            head.prev = head;
+        }
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private Timeout<T> poll() {
+            Timeout<T> first = head.next;
+            if (first == head) {
+                return null;
+            }
+            remove(first);
+            return first;
+        }
+    }
+
+    /**
+     * Handle to a scheduled timer
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineMs;
+        private final long fireAtMs;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineMs, long fireAtMs) {
+            this.payload = payload;
+            this.deadlineMs = deadlineMs;
+            this.fireAtMs = fireAtMs;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+    }
+}
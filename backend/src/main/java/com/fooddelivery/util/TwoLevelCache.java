@@ -0,0 +1,295 @@
+package com.fooddelivery.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache with a bounded in-process L1 in front of a shared Redis L2. Entries are
+ * grouped: each group is one Redis hash, so everything cached about one restaurant (or one menu)
+ * is dropped with a single DEL. Redis is optional; after a failure the L2 is skipped for a while
+ * and reads fall through to the loader.
+ * <p>
+ * Every eviction also bumps a generation counter next to the group's hash, and a loaded value
+ * is only kept in Redis if the counter did not move while it was loaded. The counter is checked
+ * after the write and the write undone on a change, so a load that read the rows before another
+ * node's eviction cannot leave them in Redis until the TTL runs out.
+ * <p>
+ * The L1 is keyed by group too, so an eviction drops one map instead of scanning every key. Its
+ * size bound counts entries: a group weighs as many fields as it holds, and is replaced rather
+ * than modified so the weight stays current. Each field keeps its own TTL.
+ */
+@Slf4j
+public class TwoLevelCache<V> {
+
+    private final String name;
+    private final Cache<String, Map<String, Local<V>>> local;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Class<V> valueType;
+    private final Duration remoteTtl;
+    private final long localTtlNanos;
+    private final long remoteRetryMs;
+    private static final String GENERATION_SUFFIX = ":generation";
+
+    // Replaced on every eviction of a group, so a load that raced the eviction is not cached. Values
+    // come from one sequence, so a group whose entry expired and was recreated never matches a
+    // generation read before; the expiry only has to keep idle groups from piling up.
+    private final Cache<String, Long> generations;
+    private final AtomicLong generationSequence = new AtomicLong();
+    private volatile long remoteDisabledUntilMs;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+
+    public TwoLevelCache(String name, Class<V> valueType, RedisTemplate<String, Object> redisTemplate,
+                         MeterRegistry meterRegistry, long localMaxEntries, Duration localTtl,
+                         Duration remoteTtl, long remoteRetryMs) {
+        this.name = name;
+        this.valueType = valueType;
+        this.redisTemplate = redisTemplate;
+        this.remoteTtl = remoteTtl;
+        this.remoteRetryMs = remoteRetryMs;
+        this.localTtlNanos = localTtl.toNanos();
+        this.local = CacheBuilder.newBuilder()
+                .maximumWeight(localMaxEntries)
+                .weigher((String group, Map<String, Local<V>> fields) -> fields.size())
+                .expireAfterAccess(localTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.generations = CacheBuilder.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterAccess(localTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        this.localHits = Counter.builder("cache.gets")
+                .description("Cache lookups that found a value in process")
+                .tags("cache", name, "level", "l1", "result", "hit")
+                .register(meterRegistry);
+        this.localMisses = Counter.builder("cache.gets")
+                .description("Cache lookups that did not find a value in process")
+                .tags("cache", name, "level", "l1", "result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", local, Cache::size)
+                .description("Groups held in the in-process cache")
+                .tags("cache", name, "level", "l1")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", local, cache -> cache.stats().evictionCount())
+                .description("Groups dropped from the in-process cache for size or age")
+                .tags("cache", name, "level", "l1")
+                .register(meterRegistry);
+        this.remoteHits = Counter.builder("cache.gets")
+                .description("Cache lookups that found a value in Redis")
+                .tags("cache", name, "level", "l2", "result", "hit")
+                .register(meterRegistry);
+        this.remoteMisses = Counter.builder("cache.gets")
+                .description("Cache lookups that did not find a value in Redis")
+                .tags("cache", name, "level", "l2", "result", "miss")
+                .register(meterRegistry);
+        this.remoteErrors = Counter.builder("cache.l2.errors")
+                .description("Redis calls that failed and were served without the L2")
+                .tags("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, TwoLevelCache::localHitRatio)
+                .description("Share of lookups served by the in-process cache")
+                .tags("cache", name, "level", "l1")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, TwoLevelCache::remoteHitRatio)
+                .description("Share of L1 misses served by Redis")
+                .tags("cache", name, "level", "l2")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.loads", this, cache -> localMisses.count() - remoteHits.count())
+                .description("Lookups that missed both levels and went to the database")
+                .tags("cache", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached value of the entry, loading and storing it on a miss. A loader exception propagates
+     * and nothing is cached; a null result is returned but not cached.
+     */
+    public V get(String group, String field, Supplier<V> loader) {
+        V value = localGet(group, field);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        long generation = generation(group);
+        value = remoteGet(group, field);
+        if (value == null) {
+            Object remoteGeneration = remoteGeneration(group);
+            value = loader.get();
+            if (value == null) {
+                return null;
+            }
+            if (generation(group) == generation) {
+                remotePut(group, field, value, remoteGeneration);
+            }
+        }
+        localPut(group, field, value, generation);
+        return value;
+    }
+
+    /**
+     * Drop every entry of the group from both levels. Inside a transaction this happens after
+     * commit, so a concurrent read cannot re-cache the rows the transaction is replacing.
+     */
+    public void evictGroup(String group) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(group);
+                }
+            });
+        } else {
+            evictNow(group);
+        }
+    }
+
+    /**
+     * Drop the group from this instance only, when another node already evicted the L2
+     */
+    public void evictLocal(String group) {
+        generations.put(group, generationSequence.incrementAndGet());
+        local.invalidate(group);
+    }
+
+    private V localGet(String group, String field) {
+        Map<String, Local<V>> fields = local.getIfPresent(group);
+        Local<V> cached = fields == null ? null : fields.get(field);
+        return cached == null || System.nanoTime() - cached.storedAtNanos() >= localTtlNanos ? null : cached.value();
+    }
+
+    private void localPut(String group, String field, V value, long loadedGeneration) {
+        Local<V> stored = new Local<>(value, System.nanoTime());
+        local.asMap().compute(group, (g, fields) -> {
+            // Checked inside compute: an eviction either ran before, or drops the new map after
+            if (generation(group) != loadedGeneration) {
+                return fields;
+            }
+            if (fields == null) {
+                return ImmutableMap.of(field, stored);
+            }
+            return ImmutableMap.<String, Local<V>>builderWithExpectedSize(fields.size() + 1)
+                    .putAll(fields)
+                    .put(field, stored)
+                    .buildKeepingLast();
+        });
+    }
+
+    private void evictNow(String group) {
+        evictLocal(group);
+        if (remoteAvailable()) {
+            try {
+                // Bump before the DEL: a racing write either lands before it or sees the new generation
+                String generationKey = group + GENERATION_SUFFIX;
+                redisTemplate.opsForValue().increment(generationKey);
+                redisTemplate.expire(generationKey, remoteTtl);
+                redisTemplate.delete(group);
+            } catch (Exception ex) {
+                remoteFailed("evict", ex);
+            }
+        }
+    }
+
+    private V remoteGet(String group, String field) {
+        if (!remoteAvailable()) {
+            return null;
+        }
+        try {
+            Object cached = redisTemplate.opsForHash().get(group, field);
+            if (valueType.isInstance(cached)) {
+                remoteHits.increment();
+                return valueType.cast(cached);
+            }
+            remoteMisses.increment();
+        } catch (Exception ex) {
+            remoteFailed("read", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Generation of the group in Redis before a load, null when the group was never evicted
+     */
+    private Object remoteGeneration(String group) {
+        if (!remoteAvailable()) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().get(group + GENERATION_SUFFIX);
+        } catch (Exception ex) {
+            remoteFailed("read", ex);
+            return null;
+        }
+    }
+
+    private void remotePut(String group, String field, V value, Object loadedGeneration) {
+        if (!remoteAvailable()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForHash().put(group, field, value);
+            // The TTL covers the whole hash and restarts on each write; evictions keep it fresh
+            redisTemplate.expire(group, remoteTtl);
+            Object generation = redisTemplate.opsForValue().get(group + GENERATION_SUFFIX);
+            if (!Objects.equals(generation, loadedGeneration)) {
+                // Evicted while loading: the value may predate the change, so take it back
+                redisTemplate.opsForHash().delete(group, field);
+            }
+        } catch (Exception ex) {
+            remoteFailed("write", ex);
+        }
+    }
+
+    private boolean remoteAvailable() {
+        return redisTemplate != null && System.currentTimeMillis() >= remoteDisabledUntilMs;
+    }
+
+    private void remoteFailed(String operation, Exception ex) {
+        remoteErrors.increment();
+        boolean firstFailure = System.currentTimeMillis() >= remoteDisabledUntilMs;
+        remoteDisabledUntilMs = System.currentTimeMillis() + remoteRetryMs;
+        if (firstFailure) {
+            log.warn("Redis {} failed for cache {}, serving without L2 for {} ms: {}",
+                    operation, name, remoteRetryMs, ex.getMessage());
+        }
+    }
+
+    private double localHitRatio() {
+        double lookups = localHits.count() + localMisses.count();
+        return lookups == 0 ? 0 : localHits.count() / lookups;
+    }
+
+    private double remoteHitRatio() {
+        double lookups = remoteHits.count() + remoteMisses.count();
+        return lookups == 0 ? 0 : remoteHits.count() / lookups;
+    }
+
+    private long generation(String group) {
+        return generations.asMap().computeIfAbsent(group, g -> generationSequence.incrementAndGet());
+    }
+
+    private record Local<V>(V value, long storedAtNanos) {
+    }
+}
@@ -25,6 +25,7 @@ CREATE TYPE assignment_status AS ENUM (
     'PENDING',    -- Sent to agent, awaiting acceptance
     'ACCEPTED',   -- Agent accepted
     'REJECTED',   -- Agent rejected
+    'EXPIRED',    -- Agent did not respond before the assignment timeout
     'COMPLETED',  -- Delivery completed
     'CANCELLED'   -- Assignment cancelled
 );
@@ -56,9 +57,13 @@ CREATE TABLE users (
     is_active BOOLEAN DEFAULT true,
     is_verified BOOLEAN DEFAULT false,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0 NOT NULL -- optimistic lock, orders cache invalidations
 );
 
+-- Existing databases get the version column with:
+--   ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
 CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_users_role ON users(role);
 CREATE INDEX idx_users_phone ON users(phone);
@@ -115,9 +120,13 @@ CREATE TABLE restaurants (
     logo_url VARCHAR(500),
     banner_url VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0 NOT NULL -- optimistic lock, orders cache invalidations
 );
 
+-- Existing databases get the version column with:
+--   ALTER TABLE restaurants ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
 CREATE INDEX idx_restaurants_owner ON restaurants(owner_id);
 CREATE INDEX idx_restaurants_active ON restaurants(is_active, is_accepting_orders);
 CREATE INDEX idx_restaurants_cuisine ON restaurants(cuisine_type);
@@ -142,9 +151,13 @@ CREATE TABLE products (
     is_available BOOLEAN DEFAULT true,
     prep_time_mins INTEGER DEFAULT 15,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0 NOT NULL -- optimistic lock, orders cache invalidations
 );
 
+-- Existing databases get the version column with:
+--   ALTER TABLE products ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
 CREATE INDEX idx_products_restaurant ON products(restaurant_id);
 CREATE INDEX idx_products_available ON products(is_available);
 CREATE INDEX idx_products_category ON products(category);
@@ -187,7 +200,8 @@ CREATE TABLE orders (
     estimated_delivery_time TIMESTAMP,
     
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0 NOT NULL -- optimistic lock
 );
 
 CREATE INDEX idx_orders_customer ON orders(customer_id, status);
@@ -196,6 +210,16 @@ CREATE INDEX idx_orders_delivery ON orders(delivery_agent_id, status);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_date ON orders(placed_at);
 CREATE INDEX idx_orders_number ON orders(order_number);
+CREATE INDEX idx_orders_customer_placed ON orders(customer_id, placed_at, id); -- keyset pagination
+CREATE INDEX idx_orders_restaurant_placed ON orders(restaurant_id, placed_at, id); -- keyset pagination
+CREATE INDEX idx_orders_delivery_placed ON orders(delivery_agent_id, placed_at, id); -- keyset pagination
+
+-- Order and OrderItem ids come from pooled sequences (allocationSize = 50) so item inserts can be batched.
+-- On existing databases IdSequenceAligner moves both sequences past the current ids at startup.
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+
+-- Existing databases get the optimistic lock column with:
+--   ALTER TABLE orders ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
 
 -- ============================================
 -- ORDER ITEMS TABLE
@@ -214,6 +238,8 @@ CREATE TABLE order_items (
 CREATE INDEX idx_order_items_order ON order_items(order_id);
 CREATE INDEX idx_order_items_product ON order_items(product_id);
 
+CREATE SEQUENCE order_items_seq START WITH 1 INCREMENT BY 50;
+
 -- ============================================
 -- DELIVERY ASSIGNMENTS TABLE
 -- ============================================
@@ -235,6 +261,13 @@ CREATE TABLE delivery_assignments (
 CREATE INDEX idx_assignments_order ON delivery_assignments(order_id);
 CREATE INDEX idx_assignments_agent ON delivery_assignments(delivery_agent_id, status);
 CREATE INDEX idx_assignments_status ON delivery_assignments(status);
+CREATE INDEX idx_assignments_agent_assigned ON delivery_assignments(delivery_agent_id, assigned_at, id); -- keyset pagination
+-- At most one PENDING offer per order; backstop for the dispatch claim (created by PendingAssignmentIndexInitializer)
+CREATE UNIQUE INDEX uq_assignments_pending_order ON delivery_assignments(order_id) WHERE status = 'PENDING';
+
+-- Ids come from a pooled sequence so a dispatch round's offers are inserted in one batch.
+-- On existing databases IdSequenceAligner moves it past the current ids at startup.
+CREATE SEQUENCE delivery_assignments_seq START WITH 1 INCREMENT BY 50;
 
 -- ============================================
 -- ORDER STATUS HISTORY (AUDIT TRAIL)
@@ -252,6 +285,84 @@ CREATE TABLE order_status_history (
 CREATE INDEX idx_status_history_order ON order_status_history(order_id);
 CREATE INDEX idx_status_history_changed_at ON order_status_history(changed_at);
 
+-- ============================================
+-- ORDER ROLLUPS (ANALYTICS)
+-- ============================================
+CREATE TABLE order_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    restaurant_id BIGINT NOT NULL REFERENCES restaurants(id),
+    granularity VARCHAR(10) NOT NULL, -- HOUR or DAY
+    bucket_start TIMESTAMP NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    delivery_fee DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    tax_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_order_rollups_bucket UNIQUE (restaurant_id, granularity, bucket_start, status)
+);
+
+CREATE INDEX idx_order_rollups_lookup ON order_rollups(restaurant_id, granularity, bucket_start);
+
+-- Status each order is counted under in order_rollups; status changes are only folded in once
+CREATE TABLE order_rollup_orders (
+    order_id BIGINT PRIMARY KEY,
+    restaurant_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL
+);
+
+CREATE INDEX idx_order_rollup_orders_restaurant ON order_rollup_orders(restaurant_id);
+
+-- ============================================
+-- CUSTOMER ORDER STATS (PROFILE COUNTERS)
+-- ============================================
+CREATE TABLE customer_order_stats (
+    customer_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    total_orders BIGINT NOT NULL DEFAULT 0,
+    delivered_orders BIGINT NOT NULL DEFAULT 0,
+    cancelled_orders BIGINT NOT NULL DEFAULT 0,
+    lifetime_spend DECIMAL(14, 2) NOT NULL DEFAULT 0, -- total amount of delivered orders
+    last_order_at TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Status each order is counted under in customer_order_stats; status changes are only folded in once
+CREATE TABLE customer_order_stats_orders (
+    order_id BIGINT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL
+);
+
+CREATE INDEX idx_customer_order_stats_orders_customer ON customer_order_stats_orders(customer_id);
+
+-- ============================================
+-- ORDER NUMBER NODE LEASES
+-- ============================================
+CREATE TABLE order_number_nodes (
+    node_id INTEGER PRIMARY KEY, -- 0-1023, the node bits of order numbers
+    owner VARCHAR(200) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- ============================================
+-- OUTBOX EVENTS (domain events awaiting delivery)
+-- ============================================
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(100) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING' NOT NULL, -- PENDING, FAILED
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    available_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_outbox_events_pending ON outbox_events(status, available_at, id);
+-- The claim only takes the oldest pending event of each aggregate
+CREATE INDEX idx_outbox_events_aggregate ON outbox_events(aggregate_id, status, id);
+
 -- ============================================
 -- AGENT LOCATION TRACKING
 -- ============================================
@@ -268,6 +379,17 @@ CREATE TABLE agent_locations (
 CREATE INDEX idx_agent_locations_agent ON agent_locations(agent_id);
 CREATE INDEX idx_agent_locations_time ON agent_locations(recorded_at);
 CREATE INDEX idx_agent_locations_online ON agent_locations(agent_id, is_online);
+
+-- Latest position per agent, shared by all nodes for dispatch; moved forward by each location flush
+CREATE TABLE agent_positions (
+    agent_id BIGINT PRIMARY KEY REFERENCES users(id),
+    latitude DOUBLE PRECISION NOT NULL,
+    longitude DOUBLE PRECISION NOT NULL,
+    accuracy_meters DOUBLE PRECISION,
+    recorded_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_agent_positions_time ON agent_positions(recorded_at);
 -- Note: For geo-spatial queries, enable PostGIS extension and use:
 -- CREATE INDEX idx_agent_locations_geo ON agent_locations USING GIST(
 --     ll_to_earth(latitude, longitude)
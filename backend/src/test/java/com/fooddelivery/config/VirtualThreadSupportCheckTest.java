@@ -0,0 +1,29 @@
+package com.fooddelivery.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledForJreRange(max = JRE.JAVA_20)
+class VirtualThreadSupportCheckTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadSupportCheck.class, VirtualThreadConfig.class);
+
+    @Test
+    void requestingVirtualThreadsBeforeJava21IsReported() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(VirtualThreadSupportCheck.class);
+                    assertThat(context).doesNotHaveBean(VirtualThreadConfig.class);
+                });
+    }
+
+    @Test
+    void platformThreadsNeedNoWarning() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadSupportCheck.class));
+    }
+}
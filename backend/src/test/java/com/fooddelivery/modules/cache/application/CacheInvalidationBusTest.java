@@ -0,0 +1,149 @@
+package com.fooddelivery.modules.cache.application;
+
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes' buses joined by a stand-in for the Redis channel: a publish is delivered to every
+ * subscribed bus, the publisher included, as Redis pub/sub does.
+ */
+class CacheInvalidationBusTest {
+
+    private static final String CHANNEL = "test:cache-invalidation";
+
+    private final List<CacheInvalidationBus> subscribers = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheInvalidationBus publisher;
+    private CacheInvalidationBus receiver;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            String body = invocation.getArgument(1);
+            subscribers.forEach(bus -> bus.onMessage(message(body), null));
+            return 1L;
+        }).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = bus(redisTemplate, new SimpleMeterRegistry());
+        receiver = bus(redisTemplate, meterRegistry);
+    }
+
+    @Test
+    void publishedInvalidationsReachOtherNodesButNotThePublisher() {
+        List<CacheInvalidation> published = record(publisher, EntityType.RESTAURANT);
+        List<CacheInvalidation> received = record(receiver, EntityType.RESTAURANT);
+
+        publisher.publish(EntityType.RESTAURANT, 5L, 1L, null);
+
+        assertThat(published).isEmpty();
+        assertThat(received).singleElement().satisfies(invalidation -> {
+            assertThat(invalidation.id()).isEqualTo(5L);
+            assertThat(invalidation.version()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    void duplicateAndOutOfOrderVersionsAreIgnored() {
+        List<CacheInvalidation> received = record(receiver, EntityType.PRODUCT);
+
+        deliver(new CacheInvalidation(EntityType.PRODUCT, 7, 3, 1L, 0));
+        deliver(new CacheInvalidation(EntityType.PRODUCT, 7, 3, 1L, 0));
+        deliver(new CacheInvalidation(EntityType.PRODUCT, 7, 2, 1L, 0));
+        // Versions are tracked per row
+        deliver(new CacheInvalidation(EntityType.PRODUCT, 8, 1, 1L, 0));
+        deliver(new CacheInvalidation(EntityType.PRODUCT, 7, 4, 1L, 0));
+
+        assertThat(received).extracting(CacheInvalidation::id, CacheInvalidation::version)
+                .containsExactly(tuple(7L, 3L), tuple(8L, 1L), tuple(7L, 4L));
+        assertThat(meterRegistry.counter("cache.invalidation.stale").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("cache.invalidation.applied").count()).isEqualTo(3);
+    }
+
+    @Test
+    void versionsPublishedLocallyHideOlderOnesFromOtherNodes() {
+        List<CacheInvalidation> received = record(receiver, EntityType.USER);
+
+        receiver.publish(EntityType.USER, 9L, 5L, null);
+        deliver(new CacheInvalidation(EntityType.USER, 9, 4, null, 0));
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void malformedMessagesAreDropped() {
+        List<CacheInvalidation> received = record(receiver, EntityType.RESTAURANT);
+
+        for (String body : List.of("", "garbage", "X|1|1||0", "R|abc|1||0", "R|1|1|0")) {
+            receiver.onMessage(message(body), null);
+        }
+        deliver(new CacheInvalidation(EntityType.RESTAURANT, 1, 1, null, 0));
+
+        assertThat(received).extracting(CacheInvalidation::id).containsExactly(1L);
+    }
+
+    @Test
+    void invalidationsFanOutToEveryHandlerOfTheirType() {
+        List<CacheInvalidation> first = record(receiver, EntityType.RESTAURANT);
+        receiver.subscribe(EntityType.RESTAURANT, invalidation -> {
+            throw new IllegalStateException("handler failure");
+        });
+        List<CacheInvalidation> second = record(receiver, EntityType.RESTAURANT);
+        List<CacheInvalidation> products = record(receiver, EntityType.PRODUCT);
+
+        deliver(new CacheInvalidation(EntityType.RESTAURANT, 2, 1, null, 0));
+
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat(products).isEmpty();
+    }
+
+    private CacheInvalidationBus bus(StringRedisTemplate redisTemplate, SimpleMeterRegistry registry) {
+        CacheInvalidationBus bus = new CacheInvalidationBus(provider(redisTemplate),
+                provider(mock(RedisMessageListenerContainer.class)), registry, CHANNEL, 1000);
+        subscribers.add(bus);
+        return bus;
+    }
+
+    private void deliver(CacheInvalidation invalidation) {
+        receiver.onMessage(message(invalidation.encode()), null);
+    }
+
+    private static List<CacheInvalidation> record(CacheInvalidationBus bus, EntityType entityType) {
+        List<CacheInvalidation> received = new ArrayList<>();
+        bus.subscribe(entityType, received::add);
+        return received;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+}
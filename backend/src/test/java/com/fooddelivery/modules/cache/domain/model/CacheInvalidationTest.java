@@ -0,0 +1,34 @@
+package com.fooddelivery.modules.cache.domain.model;
+
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheInvalidationTest {
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        CacheInvalidation withParent = new CacheInvalidation(EntityType.PRODUCT, 42, 7, 3L, 1760680200000L);
+        CacheInvalidation withoutParent = new CacheInvalidation(EntityType.RESTAURANT, 3, 0, null, 1760680200000L);
+
+        assertThat(withParent.encode()).isEqualTo("P|42|7|3|1760680200000");
+        assertThat(CacheInvalidation.decode(withParent.encode())).isEqualTo(withParent);
+        assertThat(CacheInvalidation.decode(withoutParent.encode())).isEqualTo(withoutParent);
+    }
+
+    @Test
+    void rowKeysDifferByEntityType() {
+        assertThat(CacheInvalidation.of(EntityType.RESTAURANT, 1L, 1L, null).rowKey())
+                .isNotEqualTo(CacheInvalidation.of(EntityType.PRODUCT, 1L, 1L, null).rowKey());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "R|1|2", "R|1|2|3|4|5", "RR|1|2||4", "X|1|2||4", "R|one|2||4", "R|1|2||"})
+    void malformedMessagesAreRejected(String message) {
+        assertThatThrownBy(() -> CacheInvalidation.decode(message)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.model.entity.DeliveryAssignment;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.delivery.domain.dto.DeliveryAssignmentDTO;
+import com.fooddelivery.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Assignment listings carry a pickup estimate that reads each order's restaurant; the restaurants
+ * are new here, so nothing is cached and every one must come with the page, not one load each.
+ */
+class DeliveryListingQueryCountTest extends IntegrationTest {
+
+    private static final int ASSIGNMENTS = 12;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    private User agent;
+    private DeliveryAssignment lastAssignment;
+
+    @BeforeEach
+    void setUp() {
+        agent = createUser(UserRole.DELIVERY_AGENT);
+        User customer = createUser(UserRole.CUSTOMER);
+        for (int i = 0; i < ASSIGNMENTS; i++) {
+            lastAssignment = createOffer(createOrder(customer, createRestaurant(), OrderStatus.READY), agent);
+        }
+    }
+
+    @Test
+    void agentOrdersPageTakesTwoStatementsAtAnySize() {
+        long small = statementsFor(() -> assertPage(
+                deliveryService.getAgentOrders(agent.getId(), PageRequest.of(0, 5)), 5));
+        long large = statementsFor(() -> assertPage(
+                deliveryService.getAgentOrders(agent.getId(), PageRequest.of(0, 10)), 10));
+
+        // Page and count
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void agentOrdersCursorPageTakesOneStatementAtAnySize() {
+        long small = statementsFor(() -> assertCursorPage(deliveryService.getAgentOrders(agent.getId(), null, 5), 5));
+        long large = statementsFor(() -> assertCursorPage(deliveryService.getAgentOrders(agent.getId(), null, 10), 10));
+
+        assertThat(small).isEqualTo(1);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void assignmentDetailsTakeOneStatement() {
+        long statements = statementsFor(() ->
+                assertThat(deliveryService.getAssignmentDetails(lastAssignment.getId()).getEstimatedPickupTime())
+                        .isNotNull());
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private static void assertPage(Page<DeliveryAssignmentDTO> page, int expectedSize) {
+        assertThat(page.getContent()).hasSize(expectedSize)
+                .allSatisfy(assignment -> assertThat(assignment.getEstimatedPickupTime()).isNotNull());
+    }
+
+    private static void assertCursorPage(CursorPage<DeliveryAssignmentDTO> page, int expectedSize) {
+        assertThat(page.getContent()).hasSize(expectedSize)
+                .allSatisfy(assignment -> assertThat(assignment.getEstimatedPickupTime()).isNotNull());
+    }
+}
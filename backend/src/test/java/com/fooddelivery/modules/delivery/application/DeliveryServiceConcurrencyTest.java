@@ -0,0 +1,140 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.exception.InvalidStatusTransitionException;
+import com.fooddelivery.model.entity.DeliveryAssignment;
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.AssignmentStatus;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Answers to the offers for one order race each other on separate connections; the guarded
+ * UPDATEs must let exactly one of them through.
+ */
+class DeliveryServiceConcurrencyTest extends IntegrationTest {
+
+    private static final int AGENTS = 10;
+    private static final int ATTEMPTS_PER_OFFER = 3;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Test
+    void concurrentAcceptsAssignTheOrderExactlyOnce() throws Exception {
+        Restaurant restaurant = createRestaurant();
+        Order order = createOrder(createUser(UserRole.CUSTOMER), restaurant, OrderStatus.READY);
+        List<DeliveryAssignment> offers = new ArrayList<>();
+        for (int i = 0; i < AGENTS; i++) {
+            offers.add(createOffer(order, createUser(UserRole.DELIVERY_AGENT)));
+        }
+
+        List<Callable<Long>> accepts = new ArrayList<>();
+        for (DeliveryAssignment offer : offers) {
+            Long agentId = offer.getDeliveryAgent().getId();
+            for (int i = 0; i < ATTEMPTS_PER_OFFER; i++) {
+                accepts.add(() -> deliveryService.acceptAssignment(offer.getId(), agentId).getAgentId());
+            }
+        }
+        List<Outcome> outcomes = runTogether(accepts);
+
+        List<Long> winners = outcomes.stream().filter(Outcome::succeeded).map(Outcome::value).toList();
+        assertThat(winners).hasSize(1);
+        assertThat(outcomes.stream().filter(o -> !o.succeeded()))
+                .allSatisfy(o -> assertThat(o.error()).isInstanceOf(InvalidStatusTransitionException.class));
+
+        Map<AssignmentStatus, Long> statuses = deliveryAssignmentRepository.findAllById(
+                        offers.stream().map(DeliveryAssignment::getId).toList()).stream()
+                .collect(Collectors.groupingBy(DeliveryAssignment::getStatus, Collectors.counting()));
+        assertThat(statuses).containsExactlyInAnyOrderEntriesOf(Map.of(
+                AssignmentStatus.ACCEPTED, 1L,
+                AssignmentStatus.CANCELLED, (long) AGENTS - 1));
+
+        Order assigned = orderRepository.findWithDetailsById(order.getId()).orElseThrow();
+        assertThat(assigned.getStatus()).isEqualTo(OrderStatus.ASSIGNED);
+        assertThat(assigned.getDeliveryAgent().getId()).isEqualTo(winners.get(0));
+    }
+
+    @Test
+    void acceptRacingRejectOfTheSameOfferSettlesOnce() throws Exception {
+        Restaurant restaurant = createRestaurant();
+        Order order = createOrder(createUser(UserRole.CUSTOMER), restaurant, OrderStatus.READY);
+        DeliveryAssignment offer = createOffer(order, createUser(UserRole.DELIVERY_AGENT));
+        Long agentId = offer.getDeliveryAgent().getId();
+
+        List<Outcome> outcomes = runTogether(List.of(
+                () -> deliveryService.acceptAssignment(offer.getId(), agentId).getId(),
+                () -> {
+                    deliveryService.rejectAssignment(offer.getId(), agentId);
+                    return offer.getId();
+                }));
+
+        assertThat(outcomes).filteredOn(Outcome::succeeded).hasSize(1);
+        assertThat(outcomes).filteredOn(o -> !o.succeeded())
+                .singleElement()
+                .satisfies(o -> assertThat(o.error()).isInstanceOf(InvalidStatusTransitionException.class));
+
+        AssignmentStatus status = deliveryAssignmentRepository.findById(offer.getId()).orElseThrow().getStatus();
+        OrderStatus orderStatus = orderRepository.findById(order.getId()).orElseThrow().getStatus();
+        if (status == AssignmentStatus.ACCEPTED) {
+            assertThat(orderStatus).isEqualTo(OrderStatus.ASSIGNED);
+        } else {
+            assertThat(status).isEqualTo(AssignmentStatus.REJECTED);
+            assertThat(orderStatus).isEqualTo(OrderStatus.READY);
+        }
+    }
+
+    /**
+     * Start all calls at once, each on its own thread, and collect how each one ended
+     */
+    private static List<Outcome> runTogether(List<Callable<Long>> calls) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (Callable<Long> call : calls) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<Outcome> outcomes = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                try {
+                    outcomes.add(new Outcome(future.get(30, TimeUnit.SECONDS), null));
+                } catch (ExecutionException ex) {
+                    outcomes.add(new Outcome(null, ex.getCause()));
+                }
+            }
+            return outcomes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private record Outcome(Long value, Throwable error) {
+
+        boolean succeeded() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.fooddelivery.modules.delivery.application;
+
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.AssignmentStatus;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.delivery.domain.model.AgentLocationFix;
+import com.fooddelivery.modules.delivery.infra.AgentLocationBatchWriter;
+import com.fooddelivery.modules.delivery.infra.AgentPositionRepository;
+import com.fooddelivery.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dispatch rounds running at the same time (on one node or several) must not offer an order twice
+ */
+class DispatchEngineTest extends IntegrationTest {
+
+    private static final int ORDERS = 5;
+    private static final int AGENTS = 3;
+    private static final int ROUNDS = 4;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private AgentLocationTracker agentLocationTracker;
+
+    @Autowired
+    private AgentLocationBatchWriter agentLocationBatchWriter;
+
+    @Autowired
+    private AgentPositionRepository agentPositionRepository;
+
+    @Test
+    void concurrentRoundsOfferEachOrderOnce() throws Exception {
+        Restaurant restaurant = createRestaurant();
+        User customer = createUser(UserRole.CUSTOMER);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(createOrder(customer, restaurant, OrderStatus.READY).getId());
+        }
+        for (int i = 0; i < AGENTS; i++) {
+            User agent = createUser(UserRole.DELIVERY_AGENT);
+            agentLocationTracker.record(agent.getId(), restaurant.getLatitude(), restaurant.getLongitude(), null);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(ROUNDS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> rounds = new ArrayList<>();
+            for (int i = 0; i < ROUNDS; i++) {
+                rounds.add(pool.submit(() -> {
+                    start.await();
+                    orderIds.forEach(dispatchEngine::submit);
+                    dispatchEngine.dispatchPending();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> round : rounds) {
+                round.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Object[]> offers = deliveryAssignmentRepository.findOrderAgentPairsWithStatusIn(
+                orderIds, List.of(AssignmentStatus.PENDING));
+        assertThat(offers).extracting(row -> (Long) row[0]).containsExactlyInAnyOrderElementsOf(orderIds);
+    }
+
+    @Test
+    void agentsReportingToAnotherNodeAreOffered() {
+        // Far from the other tests' agents, so only this agent is in pickup range
+        Restaurant restaurant = createRestaurant();
+        restaurant.setLatitude(-33.87);
+        restaurant.setLongitude(151.21);
+        restaurant = restaurantRepository.save(restaurant);
+        Order order = createOrder(createUser(UserRole.CUSTOMER), restaurant, OrderStatus.READY);
+        User agent = createUser(UserRole.DELIVERY_AGENT);
+        LocalDateTime now = LocalDateTime.now();
+        // Written the way another node's flush writes it, so this node's tracker never saw the fix
+        agentLocationBatchWriter.upsertPositions(List.of(
+                new AgentLocationFix(agent.getId(), restaurant.getLatitude(), restaurant.getLongitude(), null, now)));
+        agentLocationBatchWriter.upsertPositions(List.of(
+                new AgentLocationFix(agent.getId(), 0, 0, null, now.minusMinutes(1))));
+        assertThat(agentPositionRepository.findById(agent.getId()).orElseThrow().getLatitude())
+                .isEqualTo(restaurant.getLatitude());
+
+        dispatchEngine.submit(order.getId());
+        dispatchEngine.dispatchPending();
+
+        assertThat(deliveryAssignmentRepository.findOrderAgentPairsWithStatusIn(
+                List.of(order.getId()), List.of(AssignmentStatus.PENDING)))
+                .singleElement()
+                .satisfies(row -> assertThat(row[1]).isEqualTo(agent.getId()));
+    }
+
+    @Test
+    void ordersThatLeftTheDispatchableStatusesAreNotOffered() {
+        Restaurant restaurant = createRestaurant();
+        Order cancelled = createOrder(createUser(UserRole.CUSTOMER), restaurant, OrderStatus.CANCELLED);
+        User agent = createUser(UserRole.DELIVERY_AGENT);
+        agentLocationTracker.record(agent.getId(), restaurant.getLatitude(), restaurant.getLongitude(), null);
+
+        dispatchEngine.submit(cancelled.getId());
+        dispatchEngine.dispatchPending();
+
+        assertThat(deliveryAssignmentRepository.findOrderIdsWithStatusIn(
+                List.of(cancelled.getId()), List.of(AssignmentStatus.PENDING))).isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EtaEngineTest {
+
+    private static final Restaurant RESTAURANT = Restaurant.builder()
+            .id(1L)
+            .latitude(12.97)
+            .longitude(77.59)
+            .prepTimeMinutes(20)
+            .build();
+
+    @Test
+    void stagesLearnedDuringWarmUpSurviveTheSwap() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.streamTimelinesPlacedSince(any())).thenAnswer(invocation -> Stream.empty());
+        List<Runnable> tasks = new ArrayList<>();
+        EtaEngine engine = new EtaEngine(orderRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), tasks::add, 200, 1, 3, 8, 20, 30, 30);
+
+        engine.warmUpAsync();
+        assertThat(tasks).hasSize(1);
+        // Handoffs take 40 minutes instead of the 8 minute prior; learned while the warm-up runs
+        LocalDateTime readyAt = LocalDateTime.now().minusHours(1);
+        engine.refresh(order(OrderStatus.PICKED_UP, readyAt.minusMinutes(25), readyAt.minusMinutes(20), readyAt,
+                readyAt.plusMinutes(40)));
+        tasks.get(0).run();
+
+        LocalDateTime placedAt = LocalDateTime.now();
+        LocalDateTime pickupAt = engine.estimatePickup(order(OrderStatus.PLACED, placedAt, null, null, null));
+        // Confirm 3 + prep 20 + handoff 40 minutes
+        assertThat(Duration.between(placedAt, pickupAt).toMinutes()).isBetween(60L, 65L);
+    }
+
+    private static Order order(OrderStatus status, LocalDateTime placedAt, LocalDateTime confirmedAt,
+                               LocalDateTime readyAt, LocalDateTime pickedUpAt) {
+        return Order.builder()
+                .restaurant(RESTAURANT)
+                .status(status)
+                .deliveryLatitude(12.98)
+                .deliveryLongitude(77.60)
+                .placedAt(placedAt)
+                .confirmedAt(confirmedAt)
+                .readyAt(readyAt)
+                .pickedUpAt(pickedUpAt)
+                .build();
+    }
+}
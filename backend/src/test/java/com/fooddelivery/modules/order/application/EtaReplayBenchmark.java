@@ -0,0 +1,84 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.modules.order.domain.dto.EtaReplayReportDTO;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replay of a synthetic order history (500 restaurants, stage durations drawn around a per
+ * restaurant prep time) through a fresh ETA model: the cost of the startup warm-up, and the
+ * prediction error it reports.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.include=EtaReplayBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class EtaReplayBenchmark {
+
+    private static final int DAYS = 30;
+    private static final int RESTAURANTS = 500;
+    private static final double LATITUDE = 12.97;
+    private static final double LONGITUDE = 77.59;
+
+    @Param({"100000", "1000000"})
+    public int orders;
+
+    private EtaEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(DAYS);
+        long spacingSeconds = DAYS * 86_400L / orders;
+        List<Object[]> rows = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            long restaurantId = 1 + random.nextInt(RESTAURANTS);
+            int prepMinutes = 10 + (int) (restaurantId % 30);
+            LocalDateTime placedAt = start.plusSeconds(i * spacingSeconds);
+            LocalDateTime confirmedAt = placedAt.plusSeconds(60 + random.nextInt(240));
+            LocalDateTime readyAt = confirmedAt.plusSeconds((long) (prepMinutes * 60 * (0.7 + random.nextDouble() * 0.6)));
+            LocalDateTime pickedUpAt = readyAt.plusSeconds(120 + random.nextInt(600));
+            double deliveryLatitude = LATITUDE + (random.nextDouble() - 0.5) * 0.1;
+            double deliveryLongitude = LONGITUDE + (random.nextDouble() - 0.5) * 0.1;
+            LocalDateTime deliveredAt = pickedUpAt.plusSeconds(300 + random.nextInt(1500));
+            rows.add(new Object[] {restaurantId, prepMinutes, LATITUDE, LONGITUDE, deliveryLatitude, deliveryLongitude,
+                    placedAt, confirmedAt, readyAt, pickedUpAt, deliveredAt});
+        }
+
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.streamTimelinesPlacedSince(any())).thenAnswer(invocation -> rows.stream());
+        engine = new EtaEngine(orderRepository, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                Runnable::run, 200, 20, 3, 8, 20, DAYS, 30);
+    }
+
+    @Benchmark
+    public EtaReplayReportDTO replay() {
+        return engine.replay(DAYS);
+    }
+}
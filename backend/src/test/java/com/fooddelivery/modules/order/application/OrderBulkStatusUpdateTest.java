@@ -0,0 +1,67 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.OutboxEvent;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.order.domain.dto.BulkOrderStatusUpdateResultDTO;
+import com.fooddelivery.modules.order.domain.dto.OrderStatusUpdateRequest;
+import com.fooddelivery.modules.outbox.infra.OutboxEventRepository;
+import com.fooddelivery.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderBulkStatusUpdateTest extends IntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    void bulkCancellationsRecordTheirReasonAndPublishCancelledEvents() {
+        Restaurant restaurant = createRestaurant();
+        User customer = createUser(UserRole.CUSTOMER);
+        Order withReason = createOrder(customer, restaurant, OrderStatus.PLACED);
+        Order withoutReason = createOrder(customer, restaurant, OrderStatus.CONFIRMED);
+        Order confirmed = createOrder(customer, restaurant, OrderStatus.PLACED);
+
+        BulkOrderStatusUpdateResultDTO result = orderService.updateOrderStatuses(restaurant.getId(), List.of(
+                OrderStatusUpdateRequest.builder().orderId(withReason.getId()).status(OrderStatus.CANCELLED)
+                        .cancellationReason("Out of ingredients").build(),
+                OrderStatusUpdateRequest.builder().orderId(withoutReason.getId()).status(OrderStatus.CANCELLED).build(),
+                OrderStatusUpdateRequest.builder().orderId(confirmed.getId()).status(OrderStatus.CONFIRMED).build()),
+                restaurant.getOwner().getId());
+
+        assertThat(result.getUpdated()).isEqualTo(3);
+        assertThat(orderRepository.findById(withReason.getId()).orElseThrow())
+                .satisfies(order -> {
+                    assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+                    assertThat(order.getCancelledAt()).isNotNull();
+                    assertThat(order.getCancellationReason()).isEqualTo("Out of ingredients");
+                });
+        assertThat(orderRepository.findById(withoutReason.getId()).orElseThrow().getCancellationReason())
+                .isEqualTo("Cancelled by restaurant");
+        assertThat(orderRepository.findById(confirmed.getId()).orElseThrow().getCancellationReason()).isNull();
+
+        Map<Long, OutboxEvent> events = outboxEventRepository.findAll().stream()
+                .filter(event -> List.of(withReason.getId(), withoutReason.getId(), confirmed.getId())
+                        .contains(event.getAggregateId()))
+                .collect(Collectors.toMap(OutboxEvent::getAggregateId, event -> event));
+        assertThat(events.get(withReason.getId()).getEventType()).isEqualTo("OrderCancelledEvent");
+        assertThat(events.get(withReason.getId()).getPayload())
+                .contains("\"reason\":\"Out of ingredients\"", "\"previousStatus\":\"PLACED\"");
+        assertThat(events.get(withoutReason.getId()).getEventType()).isEqualTo("OrderCancelledEvent");
+        assertThat(events.get(withoutReason.getId()).getPayload()).contains("\"previousStatus\":\"CONFIRMED\"");
+        assertThat(events.get(confirmed.getId()).getEventType()).isEqualTo("OrderStatusChangedEvent");
+    }
+}
@@ -0,0 +1,107 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.Product;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.order.domain.dto.OrderDTO;
+import com.fooddelivery.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order listings load a page with a fixed number of statements, however many orders, items,
+ * customers and agents the page holds.
+ */
+class OrderListingQueryCountTest extends IntegrationTest {
+
+    private static final int ORDERS = 25;
+
+    @Autowired
+    private OrderService orderService;
+
+    private Restaurant restaurant;
+    private User customer;
+    private Order lastOrder;
+
+    @BeforeEach
+    void setUp() {
+        restaurant = createRestaurant();
+        Product first = createProduct(restaurant);
+        Product second = createProduct(restaurant);
+        customer = createUser(UserRole.CUSTOMER);
+        User agent = createUser(UserRole.DELIVERY_AGENT);
+        for (int i = 0; i < ORDERS; i++) {
+            // Alternate customers and agents so the page has several distinct associations to load
+            User orderedBy = i % 2 == 0 ? customer : createUser(UserRole.CUSTOMER);
+            Order order = createOrder(orderedBy, restaurant, OrderStatus.ASSIGNED, first, second);
+            if (i % 3 == 0) {
+                order.setDeliveryAgent(i % 2 == 0 ? agent : createUser(UserRole.DELIVERY_AGENT));
+                order = orderRepository.save(order);
+            }
+            lastOrder = order;
+        }
+    }
+
+    @Test
+    void restaurantOrdersPageTakesThreeStatementsAtAnySize() {
+        long small = statementsFor(() -> assertPage(
+                orderService.getRestaurantOrders(restaurant.getId(), null, PageRequest.of(0, 10)), 10));
+        long large = statementsFor(() -> assertPage(
+                orderService.getRestaurantOrders(restaurant.getId(), null, PageRequest.of(0, 20)), 20));
+
+        // Page, count and the items of every order on it
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void restaurantOrdersCursorPageTakesTwoStatementsAtAnySize() {
+        long small = statementsFor(() -> assertCursorPage(
+                orderService.getRestaurantOrders(restaurant.getId(), null, null, 10), 10));
+        long large = statementsFor(() -> assertCursorPage(
+                orderService.getRestaurantOrders(restaurant.getId(), null, null, 20), 20));
+
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void customerOrdersPageTakesThreeStatementsAtAnySize() {
+        long small = statementsFor(() -> assertPage(
+                orderService.getCustomerOrders(customer.getId(), PageRequest.of(0, 5)), 5));
+        long large = statementsFor(() -> assertPage(
+                orderService.getCustomerOrders(customer.getId(), PageRequest.of(0, 10)), 10));
+
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void orderByIdTakesOneStatement() {
+        long statements = statementsFor(() -> {
+            OrderDTO order = orderService.getOrderById(lastOrder.getId());
+            assertThat(order.getItems()).hasSize(2);
+        });
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private static void assertPage(Page<OrderDTO> page, int expectedSize) {
+        assertThat(page.getContent()).hasSize(expectedSize)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+    }
+
+    private static void assertCursorPage(CursorPage<OrderDTO> page, int expectedSize) {
+        assertThat(page.getContent()).hasSize(expectedSize)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+    }
+}
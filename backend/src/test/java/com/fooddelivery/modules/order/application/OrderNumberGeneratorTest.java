@@ -0,0 +1,153 @@
+package com.fooddelivery.modules.order.application;
+
+import com.fooddelivery.modules.order.infra.OrderNumberNodeLeases;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final long SEQUENCE_SIZE = 4096;
+
+    @Test
+    void concurrentCallersOnSeveralNodesNeverGetTheSameNumber() throws Exception {
+        List<OrderNumberGenerator> nodes = List.of(new OrderNumberGenerator(1), new OrderNumberGenerator(2));
+        long[] ids = new long[THREADS * IDS_PER_THREAD];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                OrderNumberGenerator generator = nodes.get(t % nodes.size());
+                int offset = t * IDS_PER_THREAD;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    boolean increasing = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[offset + i] = generator.nextId();
+                        increasing &= i == 0 || ids[offset + i] > ids[offset + i - 1];
+                    }
+                    return increasing;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).as("ids seen by one caller keep increasing").isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Millions of ids outrun 4096 per millisecond, so the sequence carries into the timestamp
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).as("id %d is unique", i).isNotEqualTo(ids[i - 1]);
+        }
+    }
+
+    @Test
+    void exhaustedSequenceCarriesIntoTheNextMillisecond() {
+        long now = System.currentTimeMillis();
+        OrderNumberGenerator generator = new OrderNumberGenerator(5, () -> now);
+
+        long previous = generator.nextId();
+        assertThat(timestamp(previous)).isEqualTo(now - EPOCH_MILLIS);
+        assertThat(sequence(previous)).isZero();
+        for (int i = 1; i < 3 * SEQUENCE_SIZE; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(nodeId(id)).isEqualTo(5);
+            assertThat(timestamp(id)).isEqualTo(now - EPOCH_MILLIS + i / SEQUENCE_SIZE);
+            assertThat(sequence(id)).isEqualTo(i % SEQUENCE_SIZE);
+            previous = id;
+        }
+    }
+
+    @Test
+    void clockMovingBackwardsKeepsIdsIncreasing() {
+        long start = System.currentTimeMillis();
+        AtomicLong clock = new AtomicLong(start);
+        OrderNumberGenerator generator = new OrderNumberGenerator(5, clock::get);
+
+        long beforeStep = generator.nextId();
+        // An NTP step back by five seconds
+        clock.set(start - 5000);
+        long afterStep = generator.nextId();
+        clock.set(start - 4000);
+        long later = generator.nextId();
+
+        assertThat(afterStep).isGreaterThan(beforeStep);
+        assertThat(later).isGreaterThan(afterStep);
+        assertThat(timestamp(later)).isEqualTo(start - EPOCH_MILLIS);
+        assertThat(sequence(later)).isEqualTo(2);
+
+        // Once the clock passes the last issued millisecond, ids follow it again
+        clock.set(start + 1);
+        long caughtUp = generator.nextId();
+        assertThat(caughtUp).isGreaterThan(later);
+        assertThat(timestamp(caughtUp)).isEqualTo(start + 1 - EPOCH_MILLIS);
+        assertThat(sequence(caughtUp)).isZero();
+    }
+
+    @Test
+    void formattedNumbersSortLikeTheIds() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1023);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(OrderNumberGenerator.format(first)).startsWith("ORD-").hasSize(17);
+        assertThat(OrderNumberGenerator.format(first)).isLessThan(OrderNumberGenerator.format(second));
+    }
+
+    @Test
+    void instancesWithoutConfiguredNodeIdLeaseDifferentIds() {
+        Map<Integer, String> held = new ConcurrentHashMap<>();
+        OrderNumberNodeLeases leases = mock(OrderNumberNodeLeases.class);
+        when(leases.acquire(anyInt(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(call -> held.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null);
+
+        OrderNumberGenerator first = new OrderNumberGenerator(leases, -1, 300);
+        OrderNumberGenerator second = new OrderNumberGenerator(leases, -1, 300);
+
+        assertThat(held).hasSize(2);
+        assertThat(nodeId(first.nextId())).isNotEqualTo(nodeId(second.nextId()));
+    }
+
+    @Test
+    void rejectsNodeIdsOutsideTheTenBitRange() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long nodeId(long id) {
+        return (id >>> 12) & 1023;
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long sequence(long id) {
+        return id & (SEQUENCE_SIZE - 1);
+    }
+}
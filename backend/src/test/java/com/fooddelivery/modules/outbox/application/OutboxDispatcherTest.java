@@ -0,0 +1,117 @@
+package com.fooddelivery.modules.outbox.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fooddelivery.model.entity.OutboxEvent;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.OutboxStatus;
+import com.fooddelivery.modules.order.domain.event.OrderCancelledEvent;
+import com.fooddelivery.modules.outbox.infra.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private static final long LEASE_MS = 60_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private OutboxEventRepository repository;
+    private ApplicationEventPublisher eventPublisher;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboxDispatcher(repository, eventPublisher, objectMapper, transactionManager, meterRegistry,
+                new MockEnvironment(), 10, 1, 3, 5000, LEASE_MS, 60_000);
+    }
+
+    @Test
+    void claimIsCommittedBeforeListenersRunAndDeliveredEventsAreDeletedAfterwards() throws Exception {
+        OutboxEvent event = event(1L, "OrderCancelledEvent",
+                objectMapper.writeValueAsString(new OrderCancelledEvent(7L, 3L, "test", OrderStatus.PLACED)));
+        when(repository.claimBatch(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(event));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.poll();
+
+        InOrder order = inOrder(transactionManager, repository, eventPublisher);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(repository).leaseUntil(eq(List.of(1L)),
+                argThat(leaseUntil -> !leaseUntil.isBefore(before.plusSeconds(LEASE_MS / 1000))));
+        order.verify(transactionManager).commit(any());
+        order.verify(eventPublisher).publishEvent(any(OrderCancelledEvent.class));
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(repository).deleteAllByIdInBatch(List.of(1L));
+        order.verify(transactionManager).commit(any());
+        verify(repository, never()).updateDeliveryState(any(), any(), eq(1), any(), any());
+    }
+
+    @Test
+    void failedEventsAreScheduledForRetryInTheSecondTransaction() {
+        when(repository.claimBatch(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(event(2L, "NoSuchEvent", "{}")));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.poll();
+
+        verify(repository).updateDeliveryState(eq(2L), eq(OutboxStatus.PENDING), eq(1),
+                argThat(error -> error.contains("NoSuchEvent")),
+                argThat(availableAt -> !availableAt.isBefore(before.plusSeconds(5))));
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void pendingGaugeIsCountedByThePollerNotByScrapes() {
+        when(repository.claimBatch(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of());
+        when(repository.countByStatus(OutboxStatus.PENDING)).thenReturn(42L);
+
+        dispatcher.poll();
+        dispatcher.poll();
+        for (int i = 0; i < 3; i++) {
+            assertThat(meterRegistry.get("outbox.events.pending").gauge().value()).isEqualTo(42);
+        }
+
+        // Once per count interval, however often the poller runs or the gauge is read
+        verify(repository, times(1)).countByStatus(OutboxStatus.PENDING);
+    }
+
+    private static OutboxEvent event(Long id, String type, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxEvent.builder()
+                .id(id)
+                .eventType(type)
+                .aggregateId(id)
+                .payload(payload)
+                .createdAt(now)
+                .availableAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.restaurant.domain.dto.SearchResultDTO;
+import com.fooddelivery.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Catalog search latency over a synthetic catalog (one restaurant per 50 products) for exact,
+ * prefix, misspelled and multi-term queries. Sample mode reports the latency percentiles.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.include=CatalogSearchIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CatalogSearchIndexBenchmark {
+
+    private static final String[] DISHES = {"pizza", "burger", "biryani", "curry", "noodles", "salad", "sandwich",
+            "pasta", "tacos", "burrito", "ramen", "sushi", "dumplings", "kebab", "shawarma", "falafel", "paneer",
+            "dosa", "idli", "soup", "wrap", "risotto", "lasagne", "omelette", "pancakes", "waffles", "brownie"};
+    private static final String[] STYLES = {"margherita", "pepperoni", "spicy", "chicken", "mutton", "vegetable",
+            "mushroom", "cheese", "butter", "tandoori", "schezwan", "garlic", "classic", "smoky", "crispy",
+            "grilled", "roasted", "masala", "teriyaki", "lemon", "honey", "chilli", "hyderabadi", "caesar"};
+    private static final String[] CATEGORIES = {"starters", "mains", "desserts", "beverages", "combos", "sides"};
+    private static final String[] CUISINES = {"Italian", "Indian", "Chinese", "Mexican", "Japanese", "American",
+            "Lebanese", "Thai", "Continental"};
+
+    @Param({"10000", "100000"})
+    public int products;
+
+    @Param({"margherita pizza", "marg", "margarita", "spicy chicken biryani", "hydrabadi biryni"})
+    public String query;
+
+    private CatalogSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int restaurantCount = Math.max(products / 50, 1);
+        List<Restaurant> restaurants = new ArrayList<>(restaurantCount);
+        for (long id = 1; id <= restaurantCount; id++) {
+            restaurants.add(Restaurant.builder()
+                    .id(id)
+                    .name(pick(random, STYLES) + " " + pick(random, DISHES) + " house " + id)
+                    .cuisineType(pick(random, CUISINES))
+                    .isActive(true)
+                    .build());
+        }
+        List<Object[]> rows = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            String style = pick(random, STYLES);
+            String dish = pick(random, DISHES);
+            rows.add(new Object[] {id, 1 + id % restaurantCount, style + " " + dish,
+                    "Our " + pick(random, STYLES) + " take on " + dish + " with " + pick(random, STYLES) + " sauce",
+                    pick(random, CATEGORIES), BigDecimal.valueOf(100 + id % 400), true});
+        }
+
+        RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(restaurantRepository.findByIsActiveTrue()).thenReturn(restaurants);
+        when(productRepository.streamSearchRows()).thenAnswer(invocation -> rows.stream());
+        index = new CatalogSearchIndex(restaurantRepository, productRepository, mock(PlatformTransactionManager.class),
+                mock(CacheInvalidationBus.class), new SimpleMeterRegistry());
+        index.rebuild();
+    }
+
+    @Benchmark
+    public List<SearchResultDTO> search() {
+        return index.search(query, CatalogSearchIndex.Scope.ALL, 20);
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,217 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.restaurant.domain.dto.SearchResultDTO;
+import com.fooddelivery.modules.restaurant.infra.CatalogSearchIndex.Scope;
+import com.fooddelivery.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index over an in-memory catalog: the repositories answer from the restaurant and product maps,
+ * so a test edits a map, marks the row dirty and applies the pending changes.
+ */
+class CatalogSearchIndexTest {
+
+    private final Map<Long, Restaurant> restaurants = new LinkedHashMap<>();
+    private final Map<Long, Object[]> products = new LinkedHashMap<>();
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(restaurantRepository.findByIsActiveTrue()).thenAnswer(invocation -> restaurants.values().stream()
+                .filter(Restaurant::getIsActive)
+                .toList());
+        when(restaurantRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(restaurants::containsKey).map(restaurants::get).toList();
+        });
+        when(productRepository.streamSearchRows()).thenAnswer(invocation -> products.values().stream()
+                .filter(row -> Boolean.TRUE.equals(row[6])));
+        when(productRepository.findSearchRowsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(products::containsKey).map(products::get).toList();
+        });
+        index = new CatalogSearchIndex(restaurantRepository, productRepository, mock(PlatformTransactionManager.class),
+                mock(CacheInvalidationBus.class), new SimpleMeterRegistry());
+
+        restaurant(1L, "Trattoria Roma", "Italian", true);
+        restaurant(2L, "Spice Route", "Indian", true);
+    }
+
+    @Test
+    void tokensAreFoldedToLowercaseAsciiWithoutStopWords() {
+        assertThat(CatalogSearchIndex.tokenize("Crème Brûlée & the Café-Style PIZZA, 2 pcs"))
+                .containsExactly("creme", "brulee", "cafe", "style", "pizza", "2", "pcs");
+        assertThat(CatalogSearchIndex.tokenize("  --  ")).isEmpty();
+        assertThat(CatalogSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAndStopsAtTheBound() {
+        assertThat(CatalogSearchIndex.editDistance("pizza", "pizza", 2)).isZero();
+        assertThat(CatalogSearchIndex.editDistance("pizza", "piza", 2)).isEqualTo(1);
+        assertThat(CatalogSearchIndex.editDistance("biryani", "biryain", 2)).isEqualTo(1);
+        assertThat(CatalogSearchIndex.editDistance("margherita", "margarita", 2)).isEqualTo(2);
+        // Beyond the bound the result is max + 1, whatever the real distance
+        assertThat(CatalogSearchIndex.editDistance("abcdef", "uvwxyz", 2)).isEqualTo(3);
+        assertThat(CatalogSearchIndex.editDistance("pizza", "pizzeria", 1)).isEqualTo(2);
+        assertThat(CatalogSearchIndex.editDistance("", "ab", 2)).isEqualTo(2);
+    }
+
+    @Test
+    void tokensExpandToCompletionsAndCloseMisspellings() {
+        product(10L, 1L, "Margherita Pizza", null, "Mains");
+        product(11L, 2L, "Hyderabadi Biryani", null, "Mains");
+        index.rebuild();
+
+        assertThat(ids("marg", Scope.DISHES)).containsExactly(10L);
+        assertThat(ids("margarita", Scope.DISHES)).containsExactly(10L);
+        assertThat(ids("piza", Scope.DISHES)).containsExactly(10L);
+        assertThat(ids("hydrabadi biryni", Scope.DISHES)).containsExactly(11L);
+        // Too short to be a prefix, and below the length where typos are tolerated
+        assertThat(ids("m", Scope.DISHES)).isEmpty();
+        assertThat(ids("pza", Scope.DISHES)).isEmpty();
+    }
+
+    @Test
+    void exactMatchesOutrankCompletionsWhichOutrankMisspellings() {
+        product(20L, 1L, "Pesta", null, "Mains");
+        product(21L, 1L, "Pastas", null, "Mains");
+        product(22L, 1L, "Pasta", null, "Mains");
+        index.rebuild();
+
+        assertThat(ids("pasta", Scope.DISHES)).containsExactly(22L, 21L, 20L);
+    }
+
+    @Test
+    void rankingFavoursNamesFullMatchesAndRareTerms() {
+        product(30L, 2L, "Lassi", "Fresh mango pulp", "Beverages");
+        product(31L, 2L, "Mango Lassi", null, "Beverages");
+        product(32L, 2L, "Paneer Butter Masala", null, "Mains");
+        product(33L, 2L, "Paneer Tikka", null, "Starters");
+        product(34L, 2L, "Butter Naan", null, "Breads");
+        product(35L, 2L, "Butter Chicken", null, "Mains");
+        index.rebuild();
+
+        // A name hit weighs more than a description hit
+        assertThat(ids("mango", Scope.DISHES)).containsExactly(31L, 30L);
+        // Matching every token beats matching some of them
+        assertThat(ids("paneer tikka", Scope.DISHES).get(0)).isEqualTo(33L);
+        // "masala" is rarer than "butter", so it decides between the partial matches
+        assertThat(ids("butter masala", Scope.DISHES).get(0)).isEqualTo(32L);
+        List<SearchResultDTO> results = index.search("butter", Scope.DISHES, 10);
+        assertThat(results).extracting(SearchResultDTO::getScore).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    void scopesSeparateRestaurantsFromDishes() {
+        product(40L, 1L, "Roma Special", null, "Mains");
+        index.rebuild();
+
+        assertThat(index.search("roma", Scope.ALL, 10)).extracting(SearchResultDTO::getType)
+                .containsExactlyInAnyOrder("RESTAURANT", "PRODUCT");
+        assertThat(ids("roma", Scope.RESTAURANTS)).containsExactly(1L);
+        assertThat(index.search("roma", Scope.DISHES, 10)).singleElement().satisfies(result -> {
+            assertThat(result.getId()).isEqualTo(40L);
+            assertThat(result.getRestaurantName()).isEqualTo("Trattoria Roma");
+        });
+    }
+
+    @Test
+    void changedAndRemovedRowsAreAppliedIncrementally() {
+        product(50L, 1L, "Tiramisu", null, "Desserts");
+        product(51L, 1L, "Panna Cotta", null, "Desserts");
+        product(52L, 2L, "Gulab Jamun", null, "Desserts");
+        index.rebuild();
+        assertThat(index.size()).isEqualTo(5);
+
+        product(50L, 1L, "Affogato", null, "Desserts");
+        products.get(51L)[6] = false;
+        restaurants.get(2L).setIsActive(false);
+        index.refreshProduct(50L);
+        index.refreshProduct(51L);
+        index.refreshRestaurant(2L);
+        index.applyPendingChanges();
+
+        assertThat(ids("tiramisu", Scope.ALL)).isEmpty();
+        assertThat(ids("affogato", Scope.DISHES)).containsExactly(50L);
+        assertThat(ids("panna", Scope.ALL)).isEmpty();
+        assertThat(ids("spice", Scope.ALL)).isEmpty();
+        // Dishes of an inactive restaurant stay indexed but are not shown
+        assertThat(ids("gulab", Scope.DISHES)).isEmpty();
+        assertThat(ids("desserts", Scope.DISHES)).containsExactly(50L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void tombstonesAreCompactedAwayOnceTheyDominate() {
+        for (long id = 1000; id < 4000; id++) {
+            product(id, 1L, "Spicy Chicken Curry Bowl", null, "Mains");
+        }
+        index.rebuild();
+        assertThat(index.slots()).isEqualTo(3002);
+
+        // 2,500 of 3,000 products gone leaves 12,500 dead postings out of 15,000
+        for (long id = 1000; id < 3500; id++) {
+            products.remove(id);
+            index.refreshProduct(id);
+        }
+        index.applyPendingChanges();
+
+        assertThat(index.size()).isEqualTo(502);
+        assertThat(index.slots()).isEqualTo(502);
+        assertThat(index.search("curry", Scope.DISHES, 1000)).hasSize(500)
+                .extracting(SearchResultDTO::getId)
+                .allMatch(id -> id >= 3500);
+    }
+
+    @Test
+    void fewTombstonesAreKeptUntilTheyPayForACompaction() {
+        product(60L, 1L, "Bruschetta", null, "Starters");
+        product(61L, 1L, "Arancini", null, "Starters");
+        index.rebuild();
+
+        products.remove(60L);
+        index.refreshProduct(60L);
+        index.applyPendingChanges();
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.slots()).isEqualTo(4);
+        assertThat(ids("starters", Scope.DISHES)).containsExactly(61L);
+    }
+
+    private List<Long> ids(String query, Scope scope) {
+        return index.search(query, scope, 10).stream().map(SearchResultDTO::getId).toList();
+    }
+
+    private void restaurant(Long id, String name, String cuisineType, boolean active) {
+        restaurants.put(id, Restaurant.builder()
+                .id(id)
+                .name(name)
+                .cuisineType(cuisineType)
+                .isActive(active)
+                .build());
+    }
+
+    private void product(Long id, Long restaurantId, String name, String description, String category) {
+        products.put(id, new Object[] {id, restaurantId, name, description, category, BigDecimal.TEN, true});
+    }
+}
@@ -0,0 +1,109 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.util.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Nearby-restaurant lookups against catalog size: the grid index (radius and k-nearest) next to
+ * the full scan it replaced, which filtered every active restaurant and sorted them with a
+ * haversine pair per comparison. Restaurants are spread uniformly over a ~55 x 55 km metro area.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.include=RestaurantGeoIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantGeoIndexBenchmark {
+
+    private static final double CENTER_LATITUDE = 12.97;
+    private static final double CENTER_LONGITUDE = 77.59;
+    private static final double SPAN_DEGREES = 0.5;
+    private static final double RADIUS_KM = 5;
+    private static final int NEAREST = 20;
+    private static final int QUERY_POINTS = 1024;
+
+    @Param({"1000", "10000", "50000"})
+    public int catalogSize;
+
+    private RestaurantGeoIndex index;
+    private List<Restaurant> restaurants;
+    private double[][] points;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new RestaurantGeoIndex(null, mock(CacheInvalidationBus.class));
+        restaurants = new ArrayList<>(catalogSize);
+        for (long id = 1; id <= catalogSize; id++) {
+            Restaurant restaurant = Restaurant.builder()
+                    .id(id)
+                    .latitude(randomAround(random, CENTER_LATITUDE))
+                    .longitude(randomAround(random, CENTER_LONGITUDE))
+                    .isActive(true)
+                    .build();
+            restaurants.add(restaurant);
+            index.put(restaurant);
+        }
+        points = new double[QUERY_POINTS][];
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            points[i] = new double[] {randomAround(random, CENTER_LATITUDE), randomAround(random, CENTER_LONGITUDE)};
+        }
+    }
+
+    @Benchmark
+    public List<RestaurantGeoIndex.Hit> indexWithinRadius() {
+        double[] point = nextPoint();
+        return index.findWithinRadius(point[0], point[1], RADIUS_KM);
+    }
+
+    @Benchmark
+    public List<RestaurantGeoIndex.Hit> indexNearest() {
+        double[] point = nextPoint();
+        return index.findNearest(point[0], point[1], NEAREST, RADIUS_KM);
+    }
+
+    @Benchmark
+    public List<Restaurant> fullScanWithinRadius() {
+        double[] point = nextPoint();
+        return restaurants.stream()
+                .filter(r -> GeoUtils.haversineDistance(point[0], point[1], r.getLatitude(), r.getLongitude()) <= RADIUS_KM)
+                .sorted((r1, r2) -> Double.compare(
+                        GeoUtils.haversineDistance(point[0], point[1], r1.getLatitude(), r1.getLongitude()),
+                        GeoUtils.haversineDistance(point[0], point[1], r2.getLatitude(), r2.getLongitude())))
+                .collect(Collectors.toList());
+    }
+
+    private double[] nextPoint() {
+        double[] point = points[next];
+        next = (next + 1) % QUERY_POINTS;
+        return point;
+    }
+
+    private static double randomAround(Random random, double center) {
+        return center + (random.nextDouble() - 0.5) * SPAN_DEGREES;
+    }
+}
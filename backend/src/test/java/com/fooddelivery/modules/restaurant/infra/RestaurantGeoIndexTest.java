@@ -0,0 +1,149 @@
+package com.fooddelivery.modules.restaurant.infra;
+
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.modules.cache.application.CacheInvalidationBus;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation;
+import com.fooddelivery.modules.cache.domain.model.CacheInvalidation.EntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RestaurantGeoIndexTest {
+
+    private static final double LATITUDE = 12.97;
+    private static final double LONGITUDE = 77.59;
+    // One degree of latitude is ~111 km
+    private static final double NEAR_KM = 30;
+    private static final double FAR_KM = 80;
+
+    private RestaurantRepository restaurantRepository;
+    private Consumer<CacheInvalidation> invalidationHandler;
+    private RestaurantGeoIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        restaurantRepository = mock(RestaurantRepository.class);
+        CacheInvalidationBus invalidationBus = mock(CacheInvalidationBus.class);
+        index = new RestaurantGeoIndex(restaurantRepository, invalidationBus);
+        ArgumentCaptor<Consumer<CacheInvalidation>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq(EntityType.RESTAURANT), handler.capture());
+        invalidationHandler = handler.getValue();
+        index.put(restaurant(1L, LATITUDE + NEAR_KM / 111.32));
+        index.put(restaurant(2L, LATITUDE + FAR_KM / 111.32));
+    }
+
+    @Test
+    void radiusSearchesAreCappedAtTheMaximumRadius() {
+        assertThat(index.findWithinRadius(LATITUDE, LONGITUDE, 200))
+                .extracting(RestaurantGeoIndex.Hit::restaurantId)
+                .containsExactly(1L);
+        assertThat(index.findNearest(LATITUDE, LONGITUDE, 10, 200))
+                .extracting(RestaurantGeoIndex.Hit::restaurantId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void radiusSearchesBelowTheCapAgree() {
+        assertThat(index.findWithinRadius(LATITUDE, LONGITUDE, NEAR_KM + 1))
+                .isEqualTo(index.findNearest(LATITUDE, LONGITUDE, 10, NEAR_KM + 1));
+        assertThat(index.findWithinRadius(LATITUDE, LONGITUDE, NEAR_KM - 1)).isEmpty();
+    }
+
+    @Test
+    void restaurantsChangedOnOtherNodesAreReloaded() {
+        Restaurant moved = restaurant(2L, LATITUDE);
+        Restaurant deactivated = restaurant(1L, LATITUDE + NEAR_KM / 111.32);
+        deactivated.setIsActive(false);
+        Restaurant reactivated = restaurant(3L, LATITUDE + 0.01);
+        when(restaurantRepository.findAllById(anyIterable())).thenReturn(List.of(moved, deactivated, reactivated));
+
+        for (long id = 1; id <= 3; id++) {
+            invalidationHandler.accept(CacheInvalidation.of(EntityType.RESTAURANT, id, 2L, null));
+        }
+        index.applyPendingChanges();
+
+        assertThat(index.findWithinRadius(LATITUDE, LONGITUDE, 5))
+                .extracting(RestaurantGeoIndex.Hit::restaurantId)
+                .containsExactly(2L, 3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void searchesWrapAroundTheAntimeridian() {
+        index.put(restaurant(3L, 0, 179.99));
+        index.put(restaurant(4L, 0, -179.99));
+
+        assertThat(index.findWithinRadius(0, 179.995, 5))
+                .extracting(RestaurantGeoIndex.Hit::restaurantId)
+                .containsExactlyInAnyOrder(3L, 4L);
+        assertThat(index.findNearest(0, -179.995, 2, 5))
+                .extracting(RestaurantGeoIndex.Hit::restaurantId)
+                .containsExactlyInAnyOrder(3L, 4L);
+    }
+
+    @Test
+    void concurrentMovesLeaveEachRestaurantInOneCell() throws Exception {
+        int threads = 8;
+        int movesPerThread = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> movers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                movers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < movesPerThread; i++) {
+                        long id = 10 + random.nextInt(4);
+                        if (random.nextInt(10) == 0) {
+                            index.remove(id);
+                        } else {
+                            // Jumps between two neighbouring cells, so moves keep emptying cells
+                            index.put(restaurant(id, LATITUDE, LONGITUDE + random.nextInt(2) * 0.05));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> mover : movers) {
+                mover.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Every indexed restaurant is found exactly once; a lost or stale cell entry shows up here
+        List<Long> found = index.findWithinRadius(LATITUDE, LONGITUDE, 20).stream()
+                .map(RestaurantGeoIndex.Hit::restaurantId)
+                .filter(id -> id >= 10)
+                .toList();
+        assertThat(found).doesNotHaveDuplicates().hasSize(index.size() - 2);
+    }
+
+    private static Restaurant restaurant(Long id, double latitude) {
+        return restaurant(id, latitude, LONGITUDE);
+    }
+
+    private static Restaurant restaurant(Long id, double latitude, double longitude) {
+        return Restaurant.builder()
+                .id(id)
+                .latitude(latitude)
+                .longitude(longitude)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.fooddelivery.support;
+
+import com.fooddelivery.model.entity.DeliveryAssignment;
+import com.fooddelivery.model.entity.Order;
+import com.fooddelivery.model.entity.OrderItem;
+import com.fooddelivery.model.entity.Product;
+import com.fooddelivery.model.entity.Restaurant;
+import com.fooddelivery.model.entity.User;
+import com.fooddelivery.model.enums.OrderStatus;
+import com.fooddelivery.model.enums.UserRole;
+import com.fooddelivery.modules.delivery.infra.DeliveryAssignmentRepository;
+import com.fooddelivery.modules.order.infra.OrderRepository;
+import com.fooddelivery.modules.restaurant.infra.RestaurantRepository;
+import com.fooddelivery.repository.ProductRepository;
+import com.fooddelivery.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base for tests that run against the full application on in-memory H2 (see application-test.yml).
+ * Fixtures are committed, not rolled back, so that work done on other threads sees them; every
+ * fixture gets unique keys, so tests share the database without cleaning up after each other.
+ * Configuration is read from the classpath only, so an application.yml in the working directory
+ * cannot override the test profile.
+ */
+@SpringBootTest(properties = "spring.config.location=classpath:/")
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected RestaurantRepository restaurantRepository;
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @Autowired
+    protected OrderRepository orderRepository;
+
+    @Autowired
+    protected DeliveryAssignmentRepository deliveryAssignmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected User createUser(UserRole role) {
+        long n = SEQUENCE.incrementAndGet();
+        return userRepository.save(User.builder()
+                .email(role.name().toLowerCase() + n + "@test.local")
+                .passwordHash("not-a-hash")
+                .role(role)
+                .firstName(role.name() + " " + n)
+                .phone("555" + n)
+                .build());
+    }
+
+    protected Restaurant createRestaurant() {
+        return restaurantRepository.save(Restaurant.builder()
+                .owner(createUser(UserRole.RESTAURANT_OWNER))
+                .name("Restaurant " + SEQUENCE.incrementAndGet())
+                .address("1 Test Street")
+                .latitude(12.97)
+                .longitude(77.59)
+                .phone("5550000")
+                .openingTime(LocalTime.MIN)
+                .closingTime(LocalTime.of(23, 59))
+                .build());
+    }
+
+    protected Product createProduct(Restaurant restaurant) {
+        return productRepository.save(Product.builder()
+                .restaurant(restaurant)
+                .name("Dish " + SEQUENCE.incrementAndGet())
+                .price(new BigDecimal("9.50"))
+                .build());
+    }
+
+    /**
+     * Order with one line per product, placed now
+     */
+    protected Order createOrder(User customer, Restaurant restaurant, OrderStatus status, Product... products) {
+        Order order = Order.builder()
+                .orderNumber("TEST-" + SEQUENCE.incrementAndGet())
+                .customer(customer)
+                .restaurant(restaurant)
+                .deliveryLatitude(12.98)
+                .deliveryLongitude(77.60)
+                .status(status)
+                .itemsTotal(BigDecimal.ZERO)
+                .totalAmount(BigDecimal.ZERO)
+                .placedAt(LocalDateTime.now())
+                .readyAt(status == OrderStatus.READY ? LocalDateTime.now() : null)
+                .build();
+        for (Product product : products) {
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .productName(product.getName())
+                    .quantity(1)
+                    .unitPrice(product.getPrice())
+                    .subtotal(product.getPrice())
+                    .build());
+            order.setItemsTotal(order.getItemsTotal().add(product.getPrice()));
+        }
+        order.setTotalAmount(order.getItemsTotal());
+        return orderRepository.save(order);
+    }
+
+    protected DeliveryAssignment createOffer(Order order, User agent) {
+        return deliveryAssignmentRepository.save(DeliveryAssignment.builder()
+                .order(order)
+                .deliveryAgent(agent)
+                .build());
+    }
+
+    /**
+     * Number of JDBC statements the call prepares; counted application-wide, so only meaningful
+     * while nothing else runs
+     */
+    protected long statementsFor(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
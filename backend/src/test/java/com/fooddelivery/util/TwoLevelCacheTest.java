@@ -0,0 +1,68 @@
+package com.fooddelivery.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TwoLevelCache<String> cache = new TwoLevelCache<>("test", String.class, null, meterRegistry,
+            100, Duration.ofMinutes(1), Duration.ofMinutes(10), 1000);
+
+    @Test
+    void evictingAGroupDropsOnlyItsFields() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", "x", () -> "a.x" + loads.incrementAndGet());
+        cache.get("a", "y", () -> "a.y" + loads.incrementAndGet());
+        cache.get("b", "x", () -> "b.x" + loads.incrementAndGet());
+
+        cache.evictLocal("a");
+
+        assertThat(cache.get("a", "x", () -> "a.x" + loads.incrementAndGet())).isEqualTo("a.x4");
+        assertThat(cache.get("a", "y", () -> "a.y" + loads.incrementAndGet())).isEqualTo("a.y5");
+        assertThat(cache.get("b", "x", () -> "b.x" + loads.incrementAndGet())).isEqualTo("b.x3");
+        assertThat(meterRegistry.get("cache.loads").functionCounter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void valueLoadedAcrossAnEvictionIsNotKept() {
+        String loaded = cache.get("a", "x", () -> {
+            cache.evictLocal("a");
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.get("a", "x", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void sizeBoundCountsFieldsNotGroups() {
+        TwoLevelCache<String> small = new TwoLevelCache<>("small", String.class, null, meterRegistry,
+                10, Duration.ofMinutes(1), Duration.ofMinutes(10), 1000);
+        for (int group = 0; group < 4; group++) {
+            for (int field = 0; field < 5; field++) {
+                small.get("g" + group, "f" + field, () -> "v");
+            }
+        }
+
+        assertThat(meterRegistry.get("cache.size").tag("cache", "small").gauge().value()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void fieldsExpireOnTheirOwnTtl() throws InterruptedException {
+        TwoLevelCache<String> shortLived = new TwoLevelCache<>("short", String.class, null, meterRegistry,
+                100, Duration.ofMillis(50), Duration.ofMinutes(10), 1000);
+        shortLived.get("a", "x", () -> "old");
+        Thread.sleep(30);
+        // Adding a field to the group does not extend the older field's lifetime
+        shortLived.get("a", "y", () -> "y");
+        Thread.sleep(30);
+
+        assertThat(shortLived.get("a", "x", () -> "new")).isEqualTo("new");
+    }
+}